@@ -0,0 +1,238 @@
+package freecell.controller;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.solver.CoalescingHintEngine;
+import freecell.solver.DeadEndDetector;
+import freecell.solver.HintEngine;
+
+/**
+ * This class plays many game scripts in one JVM, each with its own model and
+ * {@link FreecellController} reading the commands of the script, so a farm of
+ * scripted tests pays for starting and warming up the JVM once. Games can run
+ * on several threads; they share one hint engine, which coalesces the hints
+ * asked for the same position at the same time. The output of every game can
+ * be written to a transcript file named after the game.
+ */
+public class BatchRunner {
+
+  private final int numThreads;
+  private final HintEngine hints;
+  private final boolean deadEnds;
+  private final SessionCapture capture;
+
+  /**
+   * Construct a runner with a coalescing hint engine and no dead end
+   * detection, like a game played from the command line.
+   *
+   * @param numThreads the number of games to play at a time
+   * @throws IllegalArgumentException if the number of threads is not positive
+   */
+  public BatchRunner(int numThreads) throws IllegalArgumentException {
+    this(numThreads, new CoalescingHintEngine(), false);
+  }
+
+  /**
+   * Constructor for BatchRunner.
+   *
+   * @param numThreads the number of games to play at a time
+   * @param hints the engine answering hint commands of every game, which must
+   *        be safe for use by several threads
+   * @param deadEnds whether games announce when they can no longer be won,
+   *        which costs a proof search after many moves
+   * @throws IllegalArgumentException if the number of threads is not positive
+   */
+  public BatchRunner(int numThreads, HintEngine hints, boolean deadEnds)
+      throws IllegalArgumentException {
+    this(numThreads, hints, deadEnds, null);
+  }
+
+  /**
+   * Construct a runner that captures the games it plays.
+   *
+   * @param numThreads the number of games to play at a time
+   * @param hints the engine answering hint commands of every game, which must
+   *        be safe for use by several threads
+   * @param deadEnds whether games announce when they can no longer be won
+   * @param capture the capture to write the games to, or null for none
+   * @throws IllegalArgumentException if the number of threads is not positive
+   */
+  public BatchRunner(int numThreads, HintEngine hints, boolean deadEnds,
+      SessionCapture capture) throws IllegalArgumentException {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Wrong number of threads: "
+          + numThreads);
+    }
+    this.numThreads = numThreads;
+    this.hints = hints;
+    this.deadEnds = deadEnds;
+    this.capture = capture;
+  }
+
+  /**
+   * Play games and write their transcripts.
+   *
+   * @param scripts the games to play
+   * @param transcripts the directory to write a transcript per game to, or
+   *        null for none
+   * @return the summary of the batch
+   * @throws IllegalArgumentException if the scripts are null
+   */
+  public BatchSummary run(List<GameScript> scripts, Path transcripts)
+      throws IllegalArgumentException {
+    if (scripts == null) {
+      throw new IllegalArgumentException("Scripts cannot be null.");
+    }
+    long begin = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<Outcome>> futures = new ArrayList<>();
+    try {
+      for (GameScript script : scripts) {
+        futures.add(executor.submit(() -> play(script, transcripts)));
+      }
+      int won = 0;
+      long commands = 0;
+      List<String> failures = new ArrayList<>();
+      for (Future<Outcome> f : futures) {
+        Outcome outcome = f.get();
+        won += outcome.won ? 1 : 0;
+        commands += outcome.commands;
+        if (outcome.failure != null) {
+          failures.add(outcome.failure);
+        }
+      }
+      return new BatchSummary(scripts.size(), won, commands, failures,
+          System.nanoTime() - begin);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Batch interrupted.", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Game failed.", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Play one game, catching what it throws as its failure.
+   */
+  private Outcome play(GameScript script, Path transcripts) {
+    StringBuilder out = new StringBuilder();
+    FreecellModel model = new FreecellModel();
+    ScriptFeed feed = new ScriptFeed(script.getCommands());
+    String failure = null;
+    try {
+      new FreecellController(feed, out, hints,
+          deadEnds ? new DeadEndDetector() : null, capture).playGame(
+          new DealGenerator().getDeal(script.getDealNumber()), model,
+          script.getNumCascades(), script.getNumOpens(), false);
+    } catch (RuntimeException e) {
+      failure = script.getName() + ": " + e;
+      out.append(e).append('\n');
+    }
+    if (transcripts != null) {
+      try {
+        Files.write(transcripts.resolve(script.getName() + ".txt"),
+            out.toString().getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        failure = script.getName() + ": " + e;
+      }
+    }
+    return new Outcome(failure == null && model.isGameOver(), feed.fed,
+        failure);
+  }
+
+  /**
+   * Feeds the commands of a script one at a time, counting the commands the
+   * controller read. The scanner of the controller reads no further than the
+   * end of the command it returns, so commands after the end of the game are
+   * never fed.
+   */
+  private static class ScriptFeed implements Readable {
+    private final String[] commands;
+    private int fed;
+    private String pending = "";
+
+    ScriptFeed(String script) {
+      String trimmed = script.trim();
+      this.commands = trimmed.isEmpty() ? new String[0]
+          : trimmed.split("\\s+");
+    }
+
+    @Override
+    public int read(CharBuffer cb) {
+      if (pending.isEmpty()) {
+        if (fed == commands.length) {
+          return -1;
+        }
+        pending = commands[fed++] + "\n";
+      }
+      int n = Math.min(cb.remaining(), pending.length());
+      cb.put(pending, 0, n);
+      pending = pending.substring(n);
+      return n;
+    }
+  }
+
+  /**
+   * How one game ended.
+   */
+  private static class Outcome {
+    private final boolean won;
+    private final int commands;
+    private final String failure;
+
+    Outcome(boolean won, int commands, String failure) {
+      this.won = won;
+      this.commands = commands;
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * Play the game scripts of a file or directory and print the summary.
+   *
+   * @param args the script file or directory, and optionally the directory
+   *        to write transcripts to ("-" for none, the default), the number
+   *        of threads (default 1) and a file to capture the games to
+   * @throws IOException if the scripts cannot be read or the transcript
+   *         directory cannot be made
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: BatchRunner SCRIPTS [TRANSCRIPTS|-] "
+          + "[THREADS] [CAPTURE]");
+      System.exit(2);
+    }
+    List<GameScript> scripts = GameScript.load(Paths.get(args[0]));
+    Path transcripts = null;
+    if (args.length > 1 && !args[1].equals("-")) {
+      transcripts = Files.createDirectories(Paths.get(args[1]));
+    }
+    int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    if (args.length < 4) {
+      System.out.println(new BatchRunner(numThreads).run(scripts,
+          transcripts));
+      return;
+    }
+    try (Writer out = Files.newBufferedWriter(Paths.get(args[3]),
+        StandardCharsets.UTF_8)) {
+      System.out.println(new BatchRunner(numThreads, new CoalescingHintEngine(),
+          false, new SessionCapture(out)).run(scripts, transcripts));
+    }
+  }
+}
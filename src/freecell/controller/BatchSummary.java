@@ -0,0 +1,91 @@
+package freecell.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents the result of playing a batch of game scripts.
+ */
+public class BatchSummary {
+
+  private final int games;
+  private final int won;
+  private final long commands;
+  private final List<String> failures;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for BatchSummary.
+   *
+   * @param games number of games played
+   * @param won number of games won
+   * @param commands number of input tokens in the scripts played
+   * @param failures a message for every game that failed with an exception
+   * @param elapsedNanos the time the batch took
+   */
+  public BatchSummary(int games, int won, long commands, List<String> failures,
+      long elapsedNanos) {
+    this.games = games;
+    this.won = won;
+    this.commands = commands;
+    this.failures = new ArrayList<>(failures);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public int getGames() {
+    return games;
+  }
+
+  public int getWon() {
+    return won;
+  }
+
+  public long getCommands() {
+    return commands;
+  }
+
+  /**
+   * Get the messages of the games that failed with an exception.
+   *
+   * @return an unmodifiable list of messages
+   */
+  public List<String> getFailures() {
+    return Collections.unmodifiableList(failures);
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Get the number of games played per second.
+   *
+   * @return games per second, 0 if no time elapsed
+   */
+  public double getGamesPerSecond() {
+    return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * Get the number of input tokens played per second.
+   *
+   * @return tokens per second, 0 if no time elapsed
+   */
+  public double getCommandsPerSecond() {
+    return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder toReturn = new StringBuilder();
+    toReturn.append(String.format("Games: %d, won: %d, failures: %d, "
+            + "commands: %d, time: %.3f s, %.0f games/s, %.0f commands/s",
+        games, won, failures.size(), commands, elapsedNanos / 1e9,
+        getGamesPerSecond(), getCommandsPerSecond()));
+    for (String f : failures) {
+      toReturn.append("\n").append(f);
+    }
+    return toReturn.toString();
+  }
+}
@@ -0,0 +1,123 @@
+package freecell.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import freecell.model.Card;
+import freecell.model.CardCodes;
+
+/**
+ * This class represents a game read from a {@link SessionCapture}: its deal,
+ * the tokens it read with the times they arrived, and when it ended.
+ */
+public class CapturedSession {
+
+  private final long id;
+  private final long startNanos;
+  private final int numCascades;
+  private final int numOpens;
+  private final int[] deck;
+  private final List<String> tokens = new ArrayList<>();
+  private long[] offsets = new long[16];
+  private long endNanos = -1;
+
+  /**
+   * Construct a session without tokens.
+   */
+  CapturedSession(long id, long startNanos, int numCascades, int numOpens,
+      int[] deck) {
+    this.id = id;
+    this.startNanos = startNanos;
+    this.numCascades = numCascades;
+    this.numOpens = numOpens;
+    this.deck = deck;
+  }
+
+  /**
+   * Add a token that arrived at a time from the start of the game.
+   */
+  void add(long offsetNanos, String token) {
+    if (tokens.size() == offsets.length) {
+      long[] grown = new long[offsets.length * 2];
+      System.arraycopy(offsets, 0, grown, 0, offsets.length);
+      offsets = grown;
+    }
+    offsets[tokens.size()] = offsetNanos;
+    tokens.add(token);
+  }
+
+  /**
+   * Set when the game ended, from its start.
+   */
+  void end(long offsetNanos) {
+    this.endNanos = offsetNanos;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Get when the game started, from the creation of the capture.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  public int getNumCascades() {
+    return numCascades;
+  }
+
+  public int getNumOpens() {
+    return numOpens;
+  }
+
+  /**
+   * Get the deck as dealt.
+   *
+   * @return a new list of cards
+   * @throws IllegalArgumentException if a captured code is not a card
+   */
+  public List<Card> getDeck() throws IllegalArgumentException {
+    List<Card> toReturn = new ArrayList<>();
+    for (int code : deck) {
+      toReturn.add(CardCodes.fromCode(code));
+    }
+    return toReturn;
+  }
+
+  /**
+   * Get the tokens read, in order.
+   *
+   * @return an unmodifiable list of tokens
+   */
+  public List<String> getTokens() {
+    return Collections.unmodifiableList(tokens);
+  }
+
+  /**
+   * Get when a token arrived, from the start of the game.
+   *
+   * @param index the index of the token
+   * @return the time in nanoseconds
+   * @throws IllegalArgumentException if there is no such token
+   */
+  public long getOffsetNanos(int index) throws IllegalArgumentException {
+    if (index < 0 || index >= tokens.size()) {
+      throw new IllegalArgumentException("Wrong token index: " + index);
+    }
+    return offsets[index];
+  }
+
+  /**
+   * Get when the game ended, from its start.
+   *
+   * @return the time in nanoseconds, or -1 if the capture has no end of it
+   */
+  public long getEndNanos() {
+    return endNanos;
+  }
+}
@@ -1,7 +1,15 @@
 package freecell.controller;
 
+import freecell.metrics.GameFinishedEvent;
+import freecell.metrics.LatencyHistogram;
+import freecell.metrics.Metrics;
 import freecell.model.Card;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
 import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.solver.DeadEndDetector;
+import freecell.solver.HintEngine;
 import java.io.IOException;
 import java.util.List;
 
@@ -17,6 +25,10 @@ public class FreecellController implements IFreecellController<Card> {
   private Appendable output;
   private Scanner scan;
   private Readable input;
+  private HintEngine hints;
+  private DeadEndDetector deadEnds;
+  private SessionCapture capture;
+  private LatencyHistogram sessionLatency;
 
   /**
    * Constructor for controller.
@@ -25,8 +37,51 @@ public class FreecellController implements IFreecellController<Card> {
    * @param ap appendable
    */
   public FreecellController(Readable rd, Appendable ap) {
+    this(rd, ap, new HintEngine());
+  }
+
+  /**
+   * Constructor for controller with the given hint engine.
+   *
+   * @param rd readable
+   * @param ap appendable
+   * @param hints the engine answering hint commands
+   */
+  public FreecellController(Readable rd, Appendable ap, HintEngine hints) {
+    this(rd, ap, hints, null);
+  }
+
+  /**
+   * Constructor for controller with the given hint engine and dead end
+   * detector. Without a detector, lost games are not announced.
+   *
+   * @param rd readable
+   * @param ap appendable
+   * @param hints the engine answering hint commands
+   * @param deadEnds the detector proving games lost, or null
+   */
+  public FreecellController(Readable rd, Appendable ap, HintEngine hints,
+      DeadEndDetector deadEnds) {
+    this(rd, ap, hints, deadEnds, null);
+  }
+
+  /**
+   * Constructor for controller that captures every game it plays, with the
+   * tokens it reads and when they arrive, for {@link SessionReplay}.
+   *
+   * @param rd readable
+   * @param ap appendable
+   * @param hints the engine answering hint commands
+   * @param deadEnds the detector proving games lost, or null
+   * @param capture the capture to write sessions to, or null for none
+   */
+  public FreecellController(Readable rd, Appendable ap, HintEngine hints,
+      DeadEndDetector deadEnds, SessionCapture capture) {
+    this.capture = capture;
     this.input = rd;
     this.output = ap;
+    this.hints = hints;
+    this.deadEnds = deadEnds;
     try {
       this.scan = new Scanner(rd);
     } catch (NullPointerException e) {
@@ -38,6 +93,38 @@ public class FreecellController implements IFreecellController<Card> {
   public void playGame(List<Card> deck, FreecellOperations<Card> model, int numCascades,
       int numOpens,
       boolean shuffle) throws IllegalArgumentException, IllegalStateException {
+    GameFinishedEvent event = new GameFinishedEvent();
+    if (!Metrics.isOn() && !event.isEnabled()) {
+      play(deck, model, numCascades, numOpens, shuffle);
+      return;
+    }
+    event.begin();
+    long start = System.nanoTime();
+    boolean won = false;
+    try {
+      won = play(deck, model, numCascades, numOpens, shuffle);
+    } finally {
+      if (Metrics.isOn()) {
+        Metrics.global().recordGame(System.nanoTime() - start, won);
+      }
+      if (event.shouldCommit()) {
+        event.setWon(won);
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Play a game, without metrics or events.
+   *
+   * @return true if the game was won
+   */
+  private boolean play(List<Card> deck, FreecellOperations<Card> model,
+      int numCascades, int numOpens, boolean shuffle)
+      throws IllegalArgumentException, IllegalStateException {
+    if (sessionLatency != null) {
+      sessionLatency.reset();
+    }
 
     if (input == null || output == null) {
       throw new IllegalStateException("Readable or appendable not initialized");
@@ -51,70 +138,119 @@ public class FreecellController implements IFreecellController<Card> {
     }
     //game start.
     if (startGame(deck, model, numCascades, numOpens, shuffle)) {
-      appendOut(model.getGameState());
-
-      String src = "";
-      String des = "";
-      String index = "";
-
-      //read input
-      //Scanner scan = new Scanner(inputRead);
-
-      while (true) {
-        if (model.isGameOver()) {
-          appendOut("Game over.");
-          return;
-        }
-
-        if (!scan.hasNext()) {
-          appendOut("Game quit prematurely. Reached end of input file.");
-          return;
-        }
+      SessionCapture.Session session = capture == null ? null
+          : capture.start(model, deck, numCascades, numOpens, shuffle);
+      try {
+        appendOut(model.getGameState());
+
+        String src = "";
+        String des = "";
+        String index = "";
+        boolean lostAnnounced = false;
+        DeadEndDetector.LoopCheck loops = deadEnds == null ? null
+            : deadEnds.loopCheck();
+        isRepeated(model, loops);
+
+        //read input
+        //Scanner scan = new Scanner(inputRead);
+
+        while (true) {
+          if (model.isGameOver()) {
+            appendOut("Game over.");
+            return true;
+          }
 
-        String input = scan.next();
-        if (input.equals("q") || input.equals("Q")) {
-          appendOut("Game quit prematurely.");
-          return;
-        }
+          if (!scan.hasNext()) {
+            appendOut("Game quit prematurely. Reached end of input file.");
+            return false;
+          }
 
-        // read 3 valid input, repeat until valid
-        if (src.length() == 0) {
-          if (!expectedPileInput(input)) {
-            continue;
-          } else {
-            src = input;
+          String input = scan.next();
+          if (session != null) {
+            session.token(input);
           }
-        } else if (index.length() == 0) {
-          if (!isNumber(input)) {
-            continue;
-          } else if (Integer.valueOf(input) < 1) {
-            continue;
-          } else {
-            index = input;
+          long readNanos = Metrics.isOn() ? System.nanoTime() : 0;
+          if (input.equals("q") || input.equals("Q")) {
+            appendOut("Game quit prematurely.");
+            return false;
           }
-        } else if (des.length() == 0) {
-          if (!expectedPileInput(input)) {
+          if (input.equals("h") || input.equals("H")) {
+            appendOut(hint(model));
             continue;
-          } else {
-            des = input;
           }
-        }
 
-        // if all input are valid
-        if (des.length() >= 2) {
-          String moveMsg = parseInputAndMove(src, index, des, model);
-          src = "";
-          index = "";
-          des = "";
-          if (moveMsg.equals("")) {
-            appendOut(model.getGameState());
-          } else {
-            moveMsg = "Invalid move. Try again." + " " + moveMsg;
-            appendOut(moveMsg);
+          // read 3 valid input, repeat until valid
+          if (src.length() == 0) {
+            if (!expectedPileInput(input)) {
+              continue;
+            } else {
+              src = input;
+            }
+          } else if (index.length() == 0) {
+            if (!isNumber(input)) {
+              continue;
+            } else if (Integer.valueOf(input) < 1) {
+              continue;
+            } else {
+              index = input;
+            }
+          } else if (des.length() == 0) {
+            if (!expectedPileInput(input)) {
+              continue;
+            } else {
+              des = input;
+            }
+          }
+
+          // if all input are valid
+          if (des.length() >= 2) {
+            String moveMsg = parseInputAndMove(src, index, des, model);
+            src = "";
+            index = "";
+            des = "";
+            if (moveMsg.equals("")) {
+              appendOut(model.getGameState());
+              boolean repeated = isRepeated(model, loops);
+              if (!lostAnnounced && isLost(model)) {
+                lostAnnounced = true;
+                appendOut("No moves can win this game anymore.");
+              }
+              if (repeated) {
+                appendOut("No progress: this position was reached before.");
+              }
+            } else {
+              moveMsg = "Invalid move. Try again." + " " + moveMsg;
+              appendOut(moveMsg);
+            }
+            if (readNanos != 0) {
+              long latency = System.nanoTime() - readNanos;
+              getSessionLatency().record(latency);
+              Metrics.global().recordMoveLatency(latency);
+            }
           }
         }
+      } finally {
+        if (session != null) {
+          session.end();
+        }
       }
     }
+    return false;
+  }
+
+  /**
+   * Get the latencies of the moves of the last game played, from reading the
+   * last token of a move to writing the response. Only recorded while
+   * metrics are on; the histogram is only made when first needed, so a
+   * controller costs nothing for it while metrics are off.
+   *
+   * @return the live histogram of the last game
+   */
+  public LatencyHistogram getSessionLatency() {
+    if (sessionLatency == null) {
+      sessionLatency = new LatencyHistogram();
+    }
+    return sessionLatency;
   }
 
   /**
@@ -198,6 +334,59 @@ public class FreecellController implements IFreecellController<Card> {
     return errorMsg;
   }
 
+  /**
+   * Ask the hint engine for a move and format it as a command the user can
+   * enter, like "Hint: C1 7 F1".
+   *
+   * @param model the game model
+   * @return the hint message
+   */
+  private String hint(FreecellOperations<Card> model) {
+    if (hints == null || !(model instanceof FreecellModel)) {
+      return "No hint available.";
+    }
+    FreecellModel freecellModel = (FreecellModel) model;
+    Move m = hints.hint(Position.of(freecellModel));
+    if (m == null) {
+      return "No hint available.";
+    }
+    return "Hint: " + Move.pileName(m.getSource()) + (m.getSourcePile() + 1)
+        + " " + freecellModel.getPileSize(m.getSource(), m.getSourcePile())
+        + " " + Move.pileName(m.getDestination()) + (m.getDestPile() + 1);
+  }
+
+  /**
+   * Check whether the game of a model can no longer be won. A proof is only
+   * tried when there is no empty open pile and no empty cascade.
+   *
+   * @param model the game model
+   * @return true if the game is proven lost
+   */
+  private boolean isLost(FreecellOperations<Card> model) {
+    if (deadEnds == null || !(model instanceof FreecellModel)
+        || model.isGameOver()) {
+      return false;
+    }
+    Position p = Position.of((FreecellModel) model);
+    return deadEnds.isTight(p) && deadEnds.isLost(p);
+  }
+
+  /**
+   * Record the position of the game of a model in a loop check.
+   *
+   * @param model the game model
+   * @param loops the loop check of the game, or null for none
+   * @return true if the position was reached before with no card put on a
+   *         foundation since
+   */
+  private boolean isRepeated(FreecellOperations<Card> model,
+      DeadEndDetector.LoopCheck loops) {
+    if (loops == null || !(model instanceof FreecellModel)) {
+      return false;
+    }
+    return loops.visit(Position.of((FreecellModel) model));
+  }
+
   /**
    * Decode character into PileType, it non exist, return null.
    *
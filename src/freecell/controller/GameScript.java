@@ -0,0 +1,162 @@
+package freecell.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import freecell.model.DealGenerator;
+
+/**
+ * This class represents a scripted game: a numbered deal and the commands to
+ * feed the controller, as a user would type them. In a script file every game
+ * starts with a line
+ * <pre>
+ * deal NUMBER [CASCADES [OPENS]]
+ * </pre>
+ * followed by its commands, up to the next deal line. The piles default to
+ * {@link DealGenerator#NUM_CASCADES} and {@link DealGenerator#NUM_OPENS}.
+ * Blank lines and lines starting with '#' are skipped.
+ */
+public class GameScript {
+
+  private final String name;
+  private final int dealNumber;
+  private final int numCascades;
+  private final int numOpens;
+  private final String commands;
+
+  /**
+   * Constructor for GameScript.
+   *
+   * @param name the name of the game, used for its transcript
+   * @param dealNumber a positive deal number, see {@link DealGenerator}
+   * @param numCascades number of cascade piles
+   * @param numOpens number of open piles
+   * @param commands the input of the controller
+   * @throws IllegalArgumentException if the name or commands are null or the
+   *         deal number is not positive
+   */
+  public GameScript(String name, int dealNumber, int numCascades,
+      int numOpens, String commands) throws IllegalArgumentException {
+    if (name == null || commands == null) {
+      throw new IllegalArgumentException("Name and commands cannot be null.");
+    }
+    if (dealNumber < 1) {
+      throw new IllegalArgumentException("Wrong deal number: " + dealNumber);
+    }
+    this.name = name;
+    this.dealNumber = dealNumber;
+    this.numCascades = numCascades;
+    this.numOpens = numOpens;
+    this.commands = commands;
+  }
+
+  /**
+   * Parse the games of a script file. A file of one game names it after the
+   * file; games of a longer file get their number in the file appended.
+   *
+   * @param name the name of the file, without extension
+   * @param text the text of the file
+   * @return the games in the order of the file
+   * @throws IllegalArgumentException if a deal line is wrong or commands come
+   *         before the first deal line
+   */
+  public static List<GameScript> parse(String name, String text)
+      throws IllegalArgumentException {
+    List<String[]> headers = new ArrayList<>();
+    List<StringBuilder> bodies = new ArrayList<>();
+    String[] lines = text.split("\r?\n");
+    for (int i = 0; i < lines.length; i++) {
+      String line = lines[i].trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] words = line.split("\\s+");
+      if (words[0].equalsIgnoreCase("deal")) {
+        if (words.length < 2 || words.length > 4) {
+          throw new IllegalArgumentException("Wrong deal line " + (i + 1)
+              + " in " + name);
+        }
+        headers.add(words);
+        bodies.add(new StringBuilder());
+      } else if (bodies.isEmpty()) {
+        throw new IllegalArgumentException("Commands before a deal line in "
+            + name);
+      } else {
+        bodies.get(bodies.size() - 1).append(line).append('\n');
+      }
+    }
+    List<GameScript> scripts = new ArrayList<>();
+    for (int i = 0; i < headers.size(); i++) {
+      String[] words = headers.get(i);
+      try {
+        scripts.add(new GameScript(headers.size() == 1 ? name
+            : name + "-" + (i + 1), Integer.parseInt(words[1]),
+            words.length > 2 ? Integer.parseInt(words[2])
+                : DealGenerator.NUM_CASCADES,
+            words.length > 3 ? Integer.parseInt(words[3])
+                : DealGenerator.NUM_OPENS, bodies.get(i).toString()));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Wrong deal line in " + name
+            + ": " + String.join(" ", words));
+      }
+    }
+    return scripts;
+  }
+
+  /**
+   * Load the games of a script file, or of every regular file of a
+   * directory in the order of their names.
+   *
+   * @param path a file or directory
+   * @return the games
+   * @throws IOException if reading fails
+   * @throws IllegalArgumentException if a file is not a valid script
+   */
+  public static List<GameScript> load(Path path)
+      throws IOException, IllegalArgumentException {
+    List<Path> files;
+    if (Files.isDirectory(path)) {
+      try (Stream<Path> list = Files.list(path)) {
+        files = list.filter(Files::isRegularFile).sorted()
+            .collect(Collectors.toList());
+      }
+    } else {
+      files = Collections.singletonList(path);
+    }
+    List<GameScript> scripts = new ArrayList<>();
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      int dot = name.lastIndexOf('.');
+      scripts.addAll(parse(dot > 0 ? name.substring(0, dot) : name,
+          new String(Files.readAllBytes(file), StandardCharsets.UTF_8)));
+    }
+    return scripts;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getDealNumber() {
+    return dealNumber;
+  }
+
+  public int getNumCascades() {
+    return numCascades;
+  }
+
+  public int getNumOpens() {
+    return numOpens;
+  }
+
+  public String getCommands() {
+    return commands;
+  }
+}
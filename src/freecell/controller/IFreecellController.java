@@ -37,6 +37,20 @@ public interface IFreecellController<K> {
    * the controller should write the message "Game quit prematurely."
    * on a separate line to the Appendable object, and return.</p>
    *
+   * <p>If the controller was given a dead end detector, after a valid move
+   * where the game can be proven to be lost, the controller should write
+   * "No moves can win this game anymore." on a separate line after the game
+   * state, once per game, and keep playing. After a valid move that comes
+   * back to a position reached in the last moves with no card put on a
+   * foundation since, it should write "No progress: this position was reached
+   * before." on a separate line after the game state.</p>
+   *
+   * <p>If at any point, the input is either the letter 'h' or the letter 'H',
+   * the controller should write a suggested move on a separate line, formatted
+   * as the three inputs of that move, like "Hint: C1 7 F1", or
+   * "No hint available." if it has no suggestion. Any part of a move already
+   * entered is kept.</p>
+   *
    * <p>At any point if the Appendable fails to transmit output,
    * the controller should immediately quit the game.</p>
    *
@@ -59,7 +73,7 @@ public interface IFreecellController<K> {
    * <p>If an input is unexpected, The method ask the user to input it again, until
    * a valid input is entered.
    * <ul><li>An unexpected input is can be one or more of the these flaws:
-   * <li>Any letter other than 'q' or 'Q' to quit the game.
+   * <li>Any letter other than 'q' or 'Q' to quit the game, or 'h' or 'H' for a hint.
    * <li>Any letter other than 'C', 'F', 'O' to name a pile.</li>
    * <li>Anything that cannot be parsed to a valid number after the pile letter.</li>
    * <li>Anything that is not a number for the card index.</li>
@@ -0,0 +1,63 @@
+package freecell.controller;
+
+import freecell.metrics.LatencyHistogram;
+
+/**
+ * This class represents the result of replaying captured sessions.
+ */
+public class ReplayReport {
+
+  private final int sessions;
+  private final long tokens;
+  private final LatencyHistogram latency;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for ReplayReport.
+   *
+   * @param sessions number of sessions replayed
+   * @param tokens number of tokens fed to the controllers
+   * @param latency the time each token took, from feeding it to the
+   *        controller asking for the next one
+   * @param elapsedNanos the time the replay took
+   */
+  public ReplayReport(int sessions, long tokens, LatencyHistogram latency,
+      long elapsedNanos) {
+    this.sessions = sessions;
+    this.tokens = tokens;
+    this.latency = latency;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public int getSessions() {
+    return sessions;
+  }
+
+  public long getTokens() {
+    return tokens;
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Get the number of tokens handled per second.
+   *
+   * @return tokens per second, 0 if no time elapsed
+   */
+  public double getTokensPerSecond() {
+    return elapsedNanos == 0 ? 0 : tokens * 1e9 / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Sessions: %d, tokens: %d, time: %.3f s, "
+        + "%.0f tokens/s, latency %s", sessions, tokens, elapsedNanos / 1e9,
+        getTokensPerSecond(), latency);
+  }
+}
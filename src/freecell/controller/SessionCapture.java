@@ -0,0 +1,185 @@
+package freecell.controller;
+
+import java.io.BufferedReader;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import freecell.model.Card;
+import freecell.model.CardCodes;
+import freecell.model.FreecellModel;
+import freecell.model.FreecellOperations;
+import freecell.model.PileType;
+
+/**
+ * This class captures the sessions of controllers: the deal of every game and
+ * every token read from its input with the time it arrived, so real traffic
+ * can be replayed by {@link SessionReplay}. One capture can be shared by
+ * controllers on several threads. The capture is text, one line per event:
+ * <pre>
+ * FCCAP1
+ * S id start cascades opens code,code,...   a game started
+ * T id offset token                         a token was read
+ * E id offset                               the game ended
+ * </pre>
+ * where start is the time from the creation of the capture and offset the
+ * time from the start of the game, both in nanoseconds, and the 52 codes are
+ * the deck as dealt, from {@link CardCodes}, dealt one card to each cascade
+ * in turn. Lines of different sessions may interleave, and a session cut
+ * short has no end line. If writing fails, capturing stops and the games go
+ * on.
+ */
+public class SessionCapture {
+
+  static final String HEADER = "FCCAP1";
+
+  private final Appendable out;
+  private final long origin;
+  private final AtomicLong ids = new AtomicLong();
+  private boolean failed;
+
+  /**
+   * Constructor for SessionCapture. Writes the header at once.
+   *
+   * @param out where to write the capture, flushed after every game start
+   *        and end if it can be
+   * @throws IllegalArgumentException if the output is null
+   */
+  public SessionCapture(Appendable out) throws IllegalArgumentException {
+    if (out == null) {
+      throw new IllegalArgumentException("Output cannot be null.");
+    }
+    this.out = out;
+    this.origin = System.nanoTime();
+    write(HEADER, true);
+  }
+
+  /**
+   * Start capturing a game that has just been started.
+   *
+   * @param model the model of the game
+   * @param deck the deck the game was started with
+   * @param numCascades number of cascade piles
+   * @param numOpens number of open piles
+   * @param shuffle whether the deck was shuffled before dealing
+   * @return the session to capture the tokens of the game with, or null if
+   *         the deal cannot be known: the deck was shuffled by a model other
+   *         than {@link FreecellModel}, whose cascades cannot be read
+   */
+  Session start(FreecellOperations<Card> model, List<Card> deck,
+      int numCascades, int numOpens, boolean shuffle) {
+    if (shuffle && !(model instanceof FreecellModel)) {
+      return null;
+    }
+    StringBuilder codes = new StringBuilder();
+    for (int i = 0; i < CardCodes.NUM_CODES; i++) {
+      Card card = model instanceof FreecellModel
+          ? ((FreecellModel) model).getCard(PileType.CASCADE, i % numCascades,
+          i / numCascades) : deck.get(i);
+      codes.append(i == 0 ? "" : ",").append(CardCodes.toCode(card));
+    }
+    Session session = new Session(ids.incrementAndGet());
+    write("S " + session.id + " " + (session.begin - origin) + " "
+        + numCascades + " " + numOpens + " " + codes, true);
+    return session;
+  }
+
+  /**
+   * Helper method to write a line, unless writing failed before.
+   */
+  private synchronized void write(String line, boolean flush) {
+    if (failed) {
+      return;
+    }
+    try {
+      out.append(line).append('\n');
+      if (flush && out instanceof Flushable) {
+        ((Flushable) out).flush();
+      }
+    } catch (IOException e) {
+      failed = true;
+    }
+  }
+
+  /**
+   * Read the sessions of a capture.
+   *
+   * @param in the capture
+   * @return the sessions in the order they started
+   * @throws IOException if reading fails or the capture is not valid
+   */
+  public static List<CapturedSession> read(Reader in) throws IOException {
+    BufferedReader reader = new BufferedReader(in);
+    if (!HEADER.equals(reader.readLine())) {
+      throw new IOException("Not a session capture.");
+    }
+    Map<Long, CapturedSession> sessions = new LinkedHashMap<>();
+    int number = 1;
+    for (String line = reader.readLine(); line != null;
+        line = reader.readLine()) {
+      number++;
+      String[] words = line.split(" ");
+      try {
+        long id = Long.parseLong(words[1]);
+        if (words[0].equals("S") && words.length == 6) {
+          String[] codes = words[5].split(",");
+          int[] deck = new int[codes.length];
+          for (int i = 0; i < codes.length; i++) {
+            deck[i] = Integer.parseInt(codes[i]);
+          }
+          sessions.put(id, new CapturedSession(id, Long.parseLong(words[2]),
+              Integer.parseInt(words[3]), Integer.parseInt(words[4]), deck));
+        } else if (words[0].equals("T") && words.length == 4
+            && sessions.containsKey(id)) {
+          sessions.get(id).add(Long.parseLong(words[2]), words[3]);
+        } else if (words[0].equals("E") && words.length == 3
+            && sessions.containsKey(id)) {
+          sessions.get(id).end(Long.parseLong(words[2]));
+        } else {
+          throw new IOException("Wrong capture line " + number + ": " + line);
+        }
+      } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+        throw new IOException("Wrong capture line " + number + ": " + line);
+      }
+    }
+    List<CapturedSession> toReturn = new ArrayList<>(sessions.values());
+    toReturn.sort(Comparator.comparingLong(CapturedSession::getStartNanos));
+    return toReturn;
+  }
+
+  /**
+   * The capture of one game.
+   */
+  class Session {
+    private final long id;
+    private final long begin;
+
+    Session(long id) {
+      this.id = id;
+      this.begin = System.nanoTime();
+    }
+
+    /**
+     * Capture a token read from the input.
+     *
+     * @param token the token
+     */
+    void token(String token) {
+      write("T " + id + " " + (System.nanoTime() - begin) + " " + token,
+          false);
+    }
+
+    /**
+     * Capture the end of the game, and flush the capture.
+     */
+    void end() {
+      write("E " + id + " " + (System.nanoTime() - begin), true);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package freecell.controller;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import freecell.metrics.LatencyHistogram;
+import freecell.model.FreecellModel;
+import freecell.solver.HintEngine;
+
+/**
+ * This class drives captured sessions back through a
+ * {@link FreecellController} and a {@link FreecellModel} each, and measures
+ * how long every token takes: from handing it to the controller until the
+ * controller asks for the next one, which covers the move, the hint or the
+ * game state written back. At the original pace every session starts and
+ * every token arrives at its captured time, so the load matches production;
+ * at full speed tokens are fed as soon as they are asked for, to find the
+ * throughput limit. Games are dealt as captured and never shuffled.
+ */
+public class SessionReplay {
+
+  private final boolean originalPace;
+  private final int numThreads;
+  private final HintEngine hints;
+
+  /**
+   * Constructor for SessionReplay.
+   *
+   * @param originalPace true to keep the captured times, false to replay at
+   *        full speed
+   * @param numThreads the number of sessions to replay at a time, which at the
+   *        original pace should cover the sessions that overlapped
+   * @param hints the engine answering hint commands of every session, which
+   *        must be safe for use by several threads
+   * @throws IllegalArgumentException if the number of threads is not positive
+   */
+  public SessionReplay(boolean originalPace, int numThreads, HintEngine hints)
+      throws IllegalArgumentException {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Wrong number of threads: "
+          + numThreads);
+    }
+    this.originalPace = originalPace;
+    this.numThreads = numThreads;
+    this.hints = hints;
+  }
+
+  /**
+   * Replay sessions.
+   *
+   * @param sessions the sessions, in the order they started
+   * @return the report of the replay
+   * @throws IllegalArgumentException if the sessions are null
+   */
+  public ReplayReport replay(List<CapturedSession> sessions)
+      throws IllegalArgumentException {
+    if (sessions == null) {
+      throw new IllegalArgumentException("Sessions cannot be null.");
+    }
+    LatencyHistogram latency = new LatencyHistogram();
+    LongAdder tokens = new LongAdder();
+    long first = sessions.isEmpty() ? 0 : sessions.get(0).getStartNanos();
+    long begin = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (CapturedSession session : sessions) {
+        long start = begin + session.getStartNanos() - first;
+        futures.add(executor.submit(() -> {
+          if (originalPace) {
+            sleepUntil(start);
+          }
+          TokenFeed feed = new TokenFeed(session, latency);
+          new FreecellController(feed, new StringBuilder(), hints).playGame(
+              session.getDeck(), new FreecellModel(), session.getNumCascades(),
+              session.getNumOpens(), false);
+          feed.finish();
+          tokens.add(feed.next);
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Replay interrupted.", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Session failed.", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return new ReplayReport(sessions.size(), tokens.sum(), latency,
+        System.nanoTime() - begin);
+  }
+
+  /**
+   * Helper method to sleep until a time, or less if interrupted.
+   */
+  private static void sleepUntil(long nanos) {
+    long wait = nanos - System.nanoTime();
+    if (wait > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * The input of a replayed controller, handing out one token per read, each
+   * followed by a newline so the controller can take it at once.
+   */
+  private class TokenFeed implements Readable {
+    private final CapturedSession session;
+    private final LatencyHistogram latency;
+    private final long begin = System.nanoTime();
+    private int next;
+    private String pending = "";
+    private long fedAt;
+
+    TokenFeed(CapturedSession session, LatencyHistogram latency) {
+      this.session = session;
+      this.latency = latency;
+    }
+
+    @Override
+    public int read(CharBuffer cb) {
+      if (pending.isEmpty()) {
+        finish();
+        if (next == session.getTokens().size()) {
+          return -1;
+        }
+        if (originalPace) {
+          sleepUntil(begin + session.getOffsetNanos(next));
+        }
+        pending = session.getTokens().get(next++) + "\n";
+        fedAt = System.nanoTime();
+      }
+      int n = Math.min(cb.remaining(), pending.length());
+      cb.put(pending, 0, n);
+      pending = pending.substring(n);
+      return n;
+    }
+
+    /**
+     * Record the latency of the last token fed, if not recorded yet.
+     */
+    void finish() {
+      if (fedAt != 0) {
+        latency.record(System.nanoTime() - fedAt);
+        fedAt = 0;
+      }
+    }
+  }
+
+  /**
+   * Replay a capture and print the report.
+   *
+   * @param args the capture file, and optionally "paced" to keep the
+   *        captured times (default full speed) and the number of threads
+   *        (default 1)
+   * @throws IOException if the capture cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: SessionReplay CAPTURE [paced|fast] "
+          + "[THREADS]");
+      System.exit(2);
+    }
+    List<CapturedSession> sessions;
+    try (Reader in = Files.newBufferedReader(Paths.get(args[0]),
+        StandardCharsets.UTF_8)) {
+      sessions = SessionCapture.read(in);
+    }
+    boolean paced = args.length > 1 && args[1].equals("paced");
+    int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    System.out.println(new SessionReplay(paced, numThreads, new HintEngine())
+        .replay(sessions));
+  }
+}
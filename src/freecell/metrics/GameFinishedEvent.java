@@ -0,0 +1,26 @@
+package freecell.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a game played by a controller, lasting the whole
+ * game.
+ */
+@Name("freecell.GameFinished")
+@Label("Game Finished")
+@Category("Freecell")
+@Description("A controller finished playing a game.")
+@StackTrace(false)
+public class GameFinishedEvent extends jdk.jfr.Event {
+
+  @Label("Won")
+  private boolean won;
+
+  public void setWon(boolean won) {
+    this.won = won;
+  }
+}
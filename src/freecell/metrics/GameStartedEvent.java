@@ -0,0 +1,41 @@
+package freecell.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a game started by the model, lasting as long as
+ * dealing took.
+ */
+@Name("freecell.GameStarted")
+@Label("Game Started")
+@Category("Freecell")
+@Description("A game was dealt.")
+@StackTrace(false)
+public class GameStartedEvent extends jdk.jfr.Event {
+
+  @Label("Cascades")
+  private int cascades;
+
+  @Label("Opens")
+  private int opens;
+
+  @Label("Shuffled")
+  private boolean shuffled;
+
+  /**
+   * Set what was started.
+   *
+   * @param cascades the number of cascade piles
+   * @param opens the number of open piles
+   * @param shuffled whether the deck was shuffled
+   */
+  public void setGame(int cascades, int opens, boolean shuffled) {
+    this.cascades = cascades;
+    this.opens = opens;
+    this.shuffled = shuffled;
+  }
+}
@@ -0,0 +1,71 @@
+package freecell.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class writes a line for a latency histogram periodically: the
+ * percentiles of the values recorded since the previous line, and of all
+ * values so far. It runs on its own daemon thread until closed.
+ */
+public class LatencyDumper implements AutoCloseable {
+
+  private final LatencyHistogram source;
+  private final Appendable out;
+  private final ScheduledExecutorService executor;
+  private LatencyHistogram previous;
+
+  /**
+   * Constructor for LatencyDumper. Dumping starts after the first period.
+   *
+   * @param source the histogram to dump
+   * @param periodMillis the time between two lines
+   * @param out where to write the lines
+   * @throws IllegalArgumentException if the source or output is null, or the
+   *         period is not positive
+   */
+  public LatencyDumper(LatencyHistogram source, long periodMillis,
+      Appendable out) throws IllegalArgumentException {
+    if (source == null || out == null) {
+      throw new IllegalArgumentException("Source and output cannot be null.");
+    }
+    if (periodMillis < 1) {
+      throw new IllegalArgumentException("Wrong period: " + periodMillis);
+    }
+    this.source = source;
+    this.out = out;
+    this.previous = source.snapshot();
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "latency-dumper");
+      t.setDaemon(true);
+      return t;
+    });
+    executor.scheduleAtFixedRate(this::dump, periodMillis, periodMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Write one line now.
+   */
+  public synchronized void dump() {
+    LatencyHistogram current = source.snapshot();
+    LatencyHistogram interval = current.since(previous);
+    previous = current;
+    try {
+      out.append(String.format("%tT interval %s total %s%n",
+          System.currentTimeMillis(), interval, current));
+    } catch (IOException e) {
+      // a failed line is dropped, the next one may succeed
+    }
+  }
+
+  /**
+   * Stop dumping.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,180 @@
+package freecell.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a histogram of latencies in nanoseconds with log-linear
+ * buckets, in the style of HdrHistogram. Values below 128 have a bucket each;
+ * above, every power of two is split into 64 buckets, so a value is known
+ * within 1.6%. Values up to about 73 minutes are kept, larger values count as
+ * the largest.
+ *
+ * <p>Recording is thread safe and allocates nothing. Reading percentiles
+ * while others record gives a close but not exact answer; take a
+ * {@link #snapshot()} for consistent numbers.</p>
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF = SUB_BUCKETS / 2;
+  private static final int MAX_BITS = 42;
+  private static final int NUM_BUCKETS = SUB_BUCKETS
+      + (MAX_BITS - SUB_BUCKET_BITS) * HALF;
+
+  private final AtomicLongArray counts;
+
+  /**
+   * Construct an empty histogram.
+   */
+  public LatencyHistogram() {
+    this.counts = new AtomicLongArray(NUM_BUCKETS);
+  }
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos the latency, negative values count as 0
+   */
+  public void record(long nanos) {
+    counts.incrementAndGet(index(nanos));
+  }
+
+  /**
+   * Get the bucket of a value.
+   */
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return value < 0 ? 0 : (int) value;
+    }
+    int msb = 63 - Long.numberOfLeadingZeros(value);
+    if (msb >= MAX_BITS) {
+      return NUM_BUCKETS - 1;
+    }
+    int shift = msb - (SUB_BUCKET_BITS - 1);
+    return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+  }
+
+  /**
+   * Get the highest value of a bucket.
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / HALF + 1;
+    long sub = (index - SUB_BUCKETS) % HALF + HALF;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /**
+   * Get the number of values recorded.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    long n = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      n += counts.get(i);
+    }
+    return n;
+  }
+
+  /**
+   * Get the value at a percentile: the highest value of the bucket holding
+   * the value that many percent of the values are at or below.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the value, 0 if nothing was recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    long total = getCount();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile)
+        / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return highestValue(i);
+      }
+    }
+    return highestValue(NUM_BUCKETS - 1);
+  }
+
+  /**
+   * Get the highest value of the highest bucket recorded.
+   *
+   * @return the maximum, 0 if nothing was recorded
+   */
+  public long getMax() {
+    for (int i = NUM_BUCKETS - 1; i >= 0; i--) {
+      if (counts.get(i) > 0) {
+        return highestValue(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Get a copy of this histogram.
+   *
+   * @return a new histogram with the same counts
+   */
+  public LatencyHistogram snapshot() {
+    LatencyHistogram toReturn = new LatencyHistogram();
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      toReturn.counts.set(i, counts.get(i));
+    }
+    return toReturn;
+  }
+
+  /**
+   * Get the values recorded in this histogram since an earlier snapshot of
+   * it.
+   *
+   * @param earlier an earlier snapshot
+   * @return a new histogram with the counts of this one less the earlier
+   */
+  public LatencyHistogram since(LatencyHistogram earlier) {
+    LatencyHistogram toReturn = new LatencyHistogram();
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      toReturn.counts.set(i, Math.max(0, counts.get(i)
+          - earlier.counts.get(i)));
+    }
+    return toReturn;
+  }
+
+  /**
+   * Add the values of another histogram to this one.
+   *
+   * @param other the other histogram
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      long n = other.counts.get(i);
+      if (n != 0) {
+        counts.addAndGet(i, n);
+      }
+    }
+  }
+
+  /**
+   * Forget all values.
+   */
+  public void reset() {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d p50=%.1fus p99=%.1fus p999=%.1fus "
+        + "max=%.1fus", getCount(), getValueAtPercentile(50) / 1e3,
+        getValueAtPercentile(99) / 1e3, getValueAtPercentile(99.9) / 1e3,
+        getMax() / 1e3);
+  }
+}
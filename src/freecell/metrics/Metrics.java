@@ -0,0 +1,250 @@
+package freecell.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class holds the counters and timers of the model and the controller:
+ * moves made and refused, games started, played and won, game states rendered,
+ * and a histogram of move latencies. There is one global instance, exported
+ * through JMX by {@link #register()}.
+ *
+ * <p>Metrics are off unless the system property {@code freecell.metrics} is
+ * true or {@link #setEnabled(boolean)} turns them on. Instrumented code checks
+ * {@link #isOn()} first and skips all timing when it is false, so disabled
+ * metrics cost one volatile read per call.</p>
+ */
+public final class Metrics implements MetricsMBean {
+
+  /**
+   * The name the metrics are registered under in JMX.
+   */
+  public static final String OBJECT_NAME = "freecell:type=Metrics";
+
+  private static final Metrics GLOBAL = new Metrics();
+  private static volatile boolean on = Boolean.getBoolean("freecell.metrics");
+
+  private final Timer moves = new Timer();
+  private final LongAdder illegalMoves = new LongAdder();
+  private final Timer startGames = new Timer();
+  private final Timer games = new Timer();
+  private final LongAdder gamesWon = new LongAdder();
+  private final Timer renders = new Timer();
+  private final LatencyHistogram moveLatency = new LatencyHistogram();
+  private volatile long sinceNanos = System.nanoTime();
+
+  /**
+   * Metrics are only made once.
+   */
+  private Metrics() {
+  }
+
+  /**
+   * Get the global metrics.
+   *
+   * @return the metrics
+   */
+  public static Metrics global() {
+    return GLOBAL;
+  }
+
+  /**
+   * To check whether metrics are recorded. Instrumented code calls this before
+   * timing anything.
+   *
+   * @return true if on
+   */
+  public static boolean isOn() {
+    return on;
+  }
+
+  /**
+   * Register the global metrics in the platform MBean server, once.
+   *
+   * @return the name they are registered under
+   * @throws JMException if registering fails
+   */
+  public static synchronized ObjectName register() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (!server.isRegistered(name)) {
+      server.registerMBean(GLOBAL, name);
+    }
+    return name;
+  }
+
+  /**
+   * Record a move of the model.
+   *
+   * @param nanos the time the move took
+   * @param legal whether the move was made
+   */
+  public void recordMove(long nanos, boolean legal) {
+    moves.record(nanos);
+    if (!legal) {
+      illegalMoves.increment();
+    }
+  }
+
+  /**
+   * Record a game started by the model.
+   *
+   * @param nanos the time starting took
+   */
+  public void recordStartGame(long nanos) {
+    startGames.record(nanos);
+  }
+
+  /**
+   * Record a rendering of the game state.
+   *
+   * @param nanos the time rendering took
+   */
+  public void recordRender(long nanos) {
+    renders.record(nanos);
+  }
+
+  /**
+   * Record the time a controller took from reading the last token of a move
+   * to writing its response.
+   *
+   * @param nanos the latency
+   */
+  public void recordMoveLatency(long nanos) {
+    moveLatency.record(nanos);
+  }
+
+  /**
+   * Get the histogram of move latencies of all controllers.
+   *
+   * @return the live histogram
+   */
+  public LatencyHistogram getMoveLatency() {
+    return moveLatency;
+  }
+
+  /**
+   * Record a game played by a controller.
+   *
+   * @param nanos the time the game took
+   * @param won whether the game was won
+   */
+  public void recordGame(long nanos, boolean won) {
+    games.record(nanos);
+    if (won) {
+      gamesWon.increment();
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return on;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    on = enabled;
+  }
+
+  @Override
+  public long getMoves() {
+    return moves.getCount();
+  }
+
+  @Override
+  public long getIllegalMoves() {
+    return illegalMoves.sum();
+  }
+
+  @Override
+  public double getIllegalMoveRatio() {
+    long n = moves.getCount();
+    return n == 0 ? 0 : (double) illegalMoves.sum() / n;
+  }
+
+  @Override
+  public double getMovesPerSecond() {
+    long elapsed = System.nanoTime() - sinceNanos;
+    return elapsed <= 0 ? 0 : moves.getCount() * 1e9 / elapsed;
+  }
+
+  @Override
+  public double getMeanMoveNanos() {
+    return moves.getMeanNanos();
+  }
+
+  @Override
+  public long getGamesStarted() {
+    return startGames.getCount();
+  }
+
+  @Override
+  public long getGamesPlayed() {
+    return games.getCount();
+  }
+
+  @Override
+  public long getGamesWon() {
+    return gamesWon.sum();
+  }
+
+  @Override
+  public double getMeanGameNanos() {
+    return games.getMeanNanos();
+  }
+
+  @Override
+  public long getRenders() {
+    return renders.getCount();
+  }
+
+  @Override
+  public double getMeanRenderNanos() {
+    return renders.getMeanNanos();
+  }
+
+  @Override
+  public long getMaxRenderNanos() {
+    return renders.getMaxNanos();
+  }
+
+  @Override
+  public long getMoveLatencyP50Nanos() {
+    return moveLatency.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getMoveLatencyP99Nanos() {
+    return moveLatency.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getMoveLatencyP999Nanos() {
+    return moveLatency.getValueAtPercentile(99.9);
+  }
+
+  @Override
+  public void reset() {
+    moves.reset();
+    illegalMoves.reset();
+    startGames.reset();
+    games.reset();
+    gamesWon.reset();
+    renders.reset();
+    moveLatency.reset();
+    sinceNanos = System.nanoTime();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("moves %d (%.1f%% illegal, %.0f/s, mean %.0f ns), "
+        + "games %d started, %d played, %d won, renders %d (mean %.0f ns)",
+        getMoves(), 100 * getIllegalMoveRatio(), getMovesPerSecond(),
+        getMeanMoveNanos(), getGamesStarted(), getGamesPlayed(), getGamesWon(),
+        getRenders(), getMeanRenderNanos());
+  }
+}
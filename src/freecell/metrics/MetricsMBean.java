@@ -0,0 +1,46 @@
+package freecell.metrics;
+
+/**
+ * The management interface of {@link Metrics}, exported through JMX.
+ */
+public interface MetricsMBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getMoves();
+
+  long getIllegalMoves();
+
+  double getIllegalMoveRatio();
+
+  double getMovesPerSecond();
+
+  double getMeanMoveNanos();
+
+  long getGamesStarted();
+
+  long getGamesPlayed();
+
+  long getGamesWon();
+
+  double getMeanGameNanos();
+
+  long getRenders();
+
+  double getMeanRenderNanos();
+
+  long getMaxRenderNanos();
+
+  long getMoveLatencyP50Nanos();
+
+  long getMoveLatencyP99Nanos();
+
+  long getMoveLatencyP999Nanos();
+
+  /**
+   * Reset every counter and timer to zero.
+   */
+  void reset();
+}
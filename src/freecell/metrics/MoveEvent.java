@@ -0,0 +1,45 @@
+package freecell.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a move tried on the model, applied or rejected.
+ */
+@Name("freecell.Move")
+@Label("Move")
+@Category("Freecell")
+@Description("A move was applied or rejected.")
+@StackTrace(false)
+public class MoveEvent extends jdk.jfr.Event {
+
+  @Label("Source")
+  private String source;
+
+  @Label("Destination")
+  private String destination;
+
+  @Label("Applied")
+  private boolean applied;
+
+  @Label("Reason")
+  @Description("Why the move was rejected.")
+  private String reason;
+
+  /**
+   * Set the move and its outcome.
+   *
+   * @param source the source pile, like "C1"
+   * @param destination the destination pile, like "F2"
+   * @param reason why the move was rejected, null if it was applied
+   */
+  public void setMove(String source, String destination, String reason) {
+    this.source = source;
+    this.destination = destination;
+    this.applied = reason == null;
+    this.reason = reason;
+  }
+}
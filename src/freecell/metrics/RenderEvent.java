@@ -0,0 +1,26 @@
+package freecell.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a rendering of the game state.
+ */
+@Name("freecell.StateRendered")
+@Label("State Rendered")
+@Category("Freecell")
+@Description("The game state was rendered as text.")
+@StackTrace(false)
+public class RenderEvent extends jdk.jfr.Event {
+
+  @Label("Length")
+  @Description("The number of characters rendered.")
+  private int length;
+
+  public void setLength(int length) {
+    this.length = length;
+  }
+}
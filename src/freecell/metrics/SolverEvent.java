@@ -0,0 +1,47 @@
+package freecell.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a solver search, lasting the whole search.
+ */
+@Name("freecell.SolverSearch")
+@Label("Solver Search")
+@Category({"Freecell", "Solver"})
+@Description("A solver searched a position.")
+@StackTrace(false)
+public class SolverEvent extends jdk.jfr.Event {
+
+  @Label("Solver")
+  private String solver;
+
+  @Label("Status")
+  private String status;
+
+  @Label("Nodes")
+  @Description("The positions expanded.")
+  private long nodes;
+
+  @Label("Solution Length")
+  private int solutionLength;
+
+  /**
+   * Set the outcome of the search.
+   *
+   * @param solver the name of the solver
+   * @param status how the search ended
+   * @param nodes the positions expanded
+   * @param solutionLength the moves of the solution, 0 if none
+   */
+  public void setResult(String solver, String status, long nodes,
+      int solutionLength) {
+    this.solver = solver;
+    this.status = status;
+    this.nodes = nodes;
+    this.solutionLength = solutionLength;
+  }
+}
@@ -0,0 +1,57 @@
+package freecell.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts timed events and sums their durations. Recording from
+ * many threads does not contend, because every total is a {@link LongAdder}.
+ */
+public final class Timer {
+
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Record one event.
+   *
+   * @param nanos the duration of the event
+   */
+  public void record(long nanos) {
+    count.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Get the average duration of an event.
+   *
+   * @return the mean in nanoseconds, 0 if nothing was recorded
+   */
+  public double getMeanNanos() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) totalNanos.sum() / n;
+  }
+
+  /**
+   * Forget all events.
+   */
+  public void reset() {
+    count.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+  }
+}
@@ -0,0 +1,87 @@
+package freecell.model;
+
+/**
+ * This class converts cards to and from small integer codes. A card code is
+ * suit ordinal * 13 + (value - 1), so every card of a deck has a distinct code
+ * between 0 and 51. Codes are used wherever cards need to be stored compactly.
+ */
+public final class CardCodes {
+
+  /**
+   * The number of distinct card codes.
+   */
+  public static final int NUM_CODES = 52;
+
+  private static final Card[] CARDS = new Card[NUM_CODES];
+
+  static {
+    for (Suit s : Suit.values()) {
+      for (int v = 1; v <= 13; v++) {
+        CARDS[s.ordinal() * 13 + v - 1] = new CardImpl(v, s);
+      }
+    }
+  }
+
+  private CardCodes() {
+  }
+
+  /**
+   * Get the code of a card.
+   *
+   * @param c a card
+   * @return an integer between 0 and 51
+   * @throws IllegalArgumentException if the card is null
+   */
+  public static int toCode(Card c) throws IllegalArgumentException {
+    if (c == null) {
+      throw new IllegalArgumentException("Card cannot be null.");
+    }
+    return c.getSuit().ordinal() * 13 + c.getValue() - 1;
+  }
+
+  /**
+   * Get the card of a code. The same card instance is returned for the same
+   * code, so callers that need their own copy should clone it.
+   *
+   * @param code an integer between 0 and 51
+   * @return the card of that code
+   * @throws IllegalArgumentException if the code is invalid
+   */
+  public static Card fromCode(int code) throws IllegalArgumentException {
+    if (code < 0 || code >= NUM_CODES) {
+      throw new IllegalArgumentException("Wrong card code: " + code);
+    }
+    return CARDS[code];
+  }
+
+  /**
+   * Get the value of the card of a code.
+   *
+   * @param code a card code
+   * @return an integer between 1 and 13
+   */
+  public static int value(int code) {
+    return code % 13 + 1;
+  }
+
+  /**
+   * Get the suit ordinal of the card of a code.
+   *
+   * @param code a card code
+   * @return the ordinal of the suit in {@link Suit}
+   */
+  public static int suit(int code) {
+    return code / 13;
+  }
+
+  /**
+   * To check whether the card of a code is red. Hearts and Diamonds are red.
+   *
+   * @param code a card code
+   * @return true if red, false if black
+   */
+  public static boolean isRed(int code) {
+    int suit = code / 13;
+    return suit == Suit.HEART.ordinal() || suit == Suit.DIAMOND.ordinal();
+  }
+}
@@ -0,0 +1,57 @@
+package freecell.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class generates numbered deals. A deal number always gives the same
+ * deck, and the decks match the classic numbered deals: dealing the deck in
+ * round robin fashion to {@link #NUM_CASCADES} cascade piles gives the same
+ * layout as the classic game with the same number.
+ */
+public class DealGenerator {
+
+  /**
+   * The number of cascade piles of the classic numbered deals.
+   */
+  public static final int NUM_CASCADES = 8;
+
+  /**
+   * The number of open piles of the classic numbered deals.
+   */
+  public static final int NUM_OPENS = 4;
+
+  private static final Suit[] SUIT_ORDER = {Suit.CLUB, Suit.DIAMOND,
+      Suit.HEART, Suit.SPADE};
+
+  /**
+   * Get the deck of a deal number.
+   *
+   * @param dealNumber a positive deal number
+   * @return a list of 52 cards in dealing order
+   * @throws IllegalArgumentException if the deal number is not positive
+   */
+  public List<Card> getDeal(int dealNumber) throws IllegalArgumentException {
+    if (dealNumber < 1) {
+      throw new IllegalArgumentException("Wrong deal number: " + dealNumber);
+    }
+    int[] order = new int[52];
+    for (int i = 0; i < 52; i++) {
+      order[i] = 51 - i;
+    }
+    long seed = dealNumber;
+    for (int i = 0; i < 51; i++) {
+      seed = (seed * 214013 + 2531011) & 0x7FFFFFFFL;
+      int j = 51 - (int) ((seed >> 16) % (52 - i));
+      int temp = order[i];
+      order[i] = order[j];
+      order[j] = temp;
+    }
+
+    List<Card> deck = new ArrayList<>();
+    for (int i = 0; i < 52; i++) {
+      deck.add(new CardImpl(order[i] / 4 + 1, SUIT_ORDER[order[i] % 4]));
+    }
+    return deck;
+  }
+}
@@ -1,8 +1,13 @@
 package freecell.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import freecell.metrics.GameStartedEvent;
+import freecell.metrics.Metrics;
+import freecell.metrics.MoveEvent;
+import freecell.metrics.RenderEvent;
 
 /**
  * The model for Freecell game, it implements functions specified in the
@@ -33,6 +38,28 @@ public class FreecellModel implements FreecellOperations<Card> {
   @Override
   public void startGame(List<Card> deck, int numCascadePiles, int numOpenPiles,
       boolean shuffle) throws IllegalArgumentException {
+    GameStartedEvent event = new GameStartedEvent();
+    if (!Metrics.isOn() && !event.isEnabled()) {
+      doStartGame(deck, numCascadePiles, numOpenPiles, shuffle);
+      return;
+    }
+    event.begin();
+    long start = System.nanoTime();
+    doStartGame(deck, numCascadePiles, numOpenPiles, shuffle);
+    if (Metrics.isOn()) {
+      Metrics.global().recordStartGame(System.nanoTime() - start);
+    }
+    if (event.shouldCommit()) {
+      event.setGame(numCascadePiles, numOpenPiles, shuffle);
+      event.commit();
+    }
+  }
+
+  /**
+   * Start a game, without metrics or events.
+   */
+  private void doStartGame(List<Card> deck, int numCascadePiles,
+      int numOpenPiles, boolean shuffle) throws IllegalArgumentException {
     Deck myDeck = new DeckImpl(deck);
 
     // Check whether the input deck is valid.
@@ -86,6 +113,44 @@ public class FreecellModel implements FreecellOperations<Card> {
   @Override
   public void move(PileType source, int pileNumber, int cardIndex,
       PileType destination, int destPileNumber) throws IllegalArgumentException {
+    MoveEvent event = new MoveEvent();
+    if (!Metrics.isOn() && !event.isEnabled()) {
+      doMove(source, pileNumber, cardIndex, destination, destPileNumber);
+      return;
+    }
+    event.begin();
+    long start = System.nanoTime();
+    String reason = "Move failed.";
+    try {
+      doMove(source, pileNumber, cardIndex, destination, destPileNumber);
+      reason = null;
+    } catch (IllegalArgumentException e) {
+      reason = e.getMessage();
+      throw e;
+    } finally {
+      if (Metrics.isOn()) {
+        Metrics.global().recordMove(System.nanoTime() - start, reason == null);
+      }
+      if (event.shouldCommit()) {
+        event.setMove(pileLabel(source, pileNumber),
+            pileLabel(destination, destPileNumber), reason);
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Helper method to name a pile like "C1" for events.
+   */
+  private static String pileLabel(PileType type, int pileNumber) {
+    return type == null ? "null" : Move.pileName(type) + (pileNumber + 1);
+  }
+
+  /**
+   * Make a move, without metrics or events.
+   */
+  private void doMove(PileType source, int pileNumber, int cardIndex,
+      PileType destination, int destPileNumber) throws IllegalArgumentException {
     if (!hasBegun) {
       throw new IllegalArgumentException("Game has not begun.");
     }
@@ -144,6 +209,27 @@ public class FreecellModel implements FreecellOperations<Card> {
 
   @Override
   public String getGameState() {
+    RenderEvent event = new RenderEvent();
+    if (!Metrics.isOn() && !event.isEnabled()) {
+      return doGetGameState();
+    }
+    event.begin();
+    long start = System.nanoTime();
+    String toReturn = doGetGameState();
+    if (Metrics.isOn()) {
+      Metrics.global().recordRender(System.nanoTime() - start);
+    }
+    if (event.shouldCommit()) {
+      event.setLength(toReturn.length());
+      event.commit();
+    }
+    return toReturn;
+  }
+
+  /**
+   * Render the game state, without metrics or events.
+   */
+  private String doGetGameState() {
     StringBuilder toReturn = new StringBuilder("");
     if (!hasBegun) {
       return toReturn.toString();
@@ -162,6 +248,174 @@ public class FreecellModel implements FreecellOperations<Card> {
     return toReturn.substring(0, toReturn.length() - 1);
   }
 
+  /**
+   * Take a snapshot of the current position. The cards are not cloned.
+   *
+   * @return an immutable snapshot that can be given to {@link #restore}
+   */
+  public FreecellSnapshot snapshot() {
+    int numPiles = foundations.size() + opens.size() + cascades.size();
+    int[] sizes = new int[numPiles];
+    Card[] cards = new Card[52];
+    int pileIndex = 0;
+    int offset = 0;
+    for (List<Pile> piles : allPiles()) {
+      for (Pile p : piles) {
+        List<Card> list = ((PileAbstract) p).pile;
+        sizes[pileIndex++] = list.size();
+        for (int i = 0; i < list.size(); i++) {
+          cards[offset++] = list.get(i);
+        }
+      }
+    }
+    return new FreecellSnapshot(cards, sizes, foundations.size(), opens.size(),
+        cascades.size(), hasBegun);
+  }
+
+  /**
+   * Reinstate the position of a snapshot. If this model has the same number
+   * of piles as the snapshot, the existing piles are refilled and nothing is
+   * allocated, otherwise the piles are rebuilt.
+   *
+   * @param snapshot a snapshot taken from any FreecellModel
+   * @throws IllegalArgumentException if the snapshot is null
+   */
+  public void restore(FreecellSnapshot snapshot) throws IllegalArgumentException {
+    if (snapshot == null) {
+      throw new IllegalArgumentException("Snapshot cannot be null.");
+    }
+    resize(foundations, snapshot.numFoundations, PileType.FOUNDATION);
+    resize(opens, snapshot.numOpens, PileType.OPEN);
+    resize(cascades, snapshot.numCascades, PileType.CASCADE);
+
+    int pileIndex = 0;
+    int offset = 0;
+    for (List<Pile> piles : allPiles()) {
+      for (Pile p : piles) {
+        List<Card> list = ((PileAbstract) p).pile;
+        int size = snapshot.sizes[pileIndex++];
+        list.clear();
+        for (int i = 0; i < size; i++) {
+          list.add(snapshot.cards[offset++]);
+        }
+      }
+    }
+    hasBegun = snapshot.hasBegun;
+  }
+
+  /**
+   * Make an independent model in the same position as this model.
+   *
+   * @return a new model
+   */
+  public FreecellModel copy() {
+    FreecellModel toReturn = new FreecellModel();
+    toReturn.restore(snapshot());
+    return toReturn;
+  }
+
+  /**
+   * Get the number of piles of the given type.
+   *
+   * @param type one of OPEN, CASCADE or FOUNDATION
+   * @return the number of piles, 0 if the game has not begun
+   * @throws IllegalArgumentException if the type is null
+   */
+  public int getNumPiles(PileType type) throws IllegalArgumentException {
+    if (type == null) {
+      throw new IllegalArgumentException("Wrong pile type: null");
+    }
+    return typeToPiles(type).size();
+  }
+
+  /**
+   * Get the number of cards in the given pile.
+   *
+   * @param type one of OPEN, CASCADE or FOUNDATION
+   * @param pileNumber the pile number of the given type, starting at 0
+   * @return the number of cards in that pile
+   * @throws IllegalArgumentException if the pile does not exist
+   */
+  public int getPileSize(PileType type, int pileNumber)
+      throws IllegalArgumentException {
+    return getPile(type, pileNumber).size();
+  }
+
+  /**
+   * Get the card at the given index of the given pile.
+   *
+   * @param type one of OPEN, CASCADE or FOUNDATION
+   * @param pileNumber the pile number of the given type, starting at 0
+   * @param cardIndex the index of the card in the pile, starting at 0
+   * @return the card at that index
+   * @throws IllegalArgumentException if the pile or the card does not exist
+   */
+  public Card getCard(PileType type, int pileNumber, int cardIndex)
+      throws IllegalArgumentException {
+    Pile p = getPile(type, pileNumber);
+    if (cardIndex < 0 || cardIndex > p.size() - 1) {
+      throw new IllegalArgumentException("Wrong card index: " + cardIndex);
+    }
+    return ((PileAbstract) p).pile.get(cardIndex);
+  }
+
+  /**
+   * Get the pile of the given type and number.
+   *
+   * @param type one of OPEN, CASCADE or FOUNDATION
+   * @param pileNumber the pile number of the given type, starting at 0
+   * @return the pile
+   * @throws IllegalArgumentException if the pile does not exist
+   */
+  private Pile getPile(PileType type, int pileNumber)
+      throws IllegalArgumentException {
+    if (type == null) {
+      throw new IllegalArgumentException("Wrong pile type: null");
+    }
+    List<Pile> piles = typeToPiles(type);
+    if (pileNumber < 0 || pileNumber > piles.size() - 1) {
+      throw new IllegalArgumentException("Wrong pile number: " + pileNumber);
+    }
+    return piles.get(pileNumber);
+  }
+
+  /**
+   * Get the lists of piles in snapshot order.
+   *
+   * @return foundations, opens and cascades
+   */
+  private List<List<Pile>> allPiles() {
+    return Arrays.asList(foundations, opens, cascades);
+  }
+
+  /**
+   * Make a list hold the given number of piles of a type, keeping the piles
+   * already there when the number is right.
+   *
+   * @param piles the list of piles
+   * @param size the number of piles wanted
+   * @param type the type of piles in the list
+   */
+  private static void resize(List<Pile> piles, int size, PileType type) {
+    if (piles.size() == size) {
+      return;
+    }
+    piles.clear();
+    for (int i = 0; i < size; i++) {
+      switch (type) {
+        case CASCADE:
+          piles.add(new Cascade());
+          break;
+        case FOUNDATION:
+          piles.add(new Foundation());
+          break;
+        default:
+          piles.add(new Open());
+          break;
+      }
+    }
+  }
+
   /**
    * Given a PileType return the list of piles of that type.
    *
@@ -0,0 +1,48 @@
+package freecell.model;
+
+/**
+ * This class represents an immutable snapshot of the position of a
+ * {@link FreecellModel}. The cards of all piles are kept in one flat array, in
+ * the order foundations, opens, cascades, with the size of every pile kept
+ * separately. Cards are shared with the model rather than cloned, since a card
+ * cannot change.
+ */
+public final class FreecellSnapshot {
+
+  final Card[] cards;
+  final int[] sizes;
+  final int numFoundations;
+  final int numOpens;
+  final int numCascades;
+  final boolean hasBegun;
+
+  /**
+   * Constructor for FreecellSnapshot, only used by the model.
+   */
+  FreecellSnapshot(Card[] cards, int[] sizes, int numFoundations,
+      int numOpens, int numCascades, boolean hasBegun) {
+    this.cards = cards;
+    this.sizes = sizes;
+    this.numFoundations = numFoundations;
+    this.numOpens = numOpens;
+    this.numCascades = numCascades;
+    this.hasBegun = hasBegun;
+  }
+
+  /**
+   * Signal whether the game had begun when this snapshot was taken.
+   *
+   * @return true if the game had begun
+   */
+  public boolean hasBegun() {
+    return hasBegun;
+  }
+
+  public int getNumOpens() {
+    return numOpens;
+  }
+
+  public int getNumCascades() {
+    return numCascades;
+  }
+}
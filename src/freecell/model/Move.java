@@ -0,0 +1,180 @@
+package freecell.model;
+
+import java.util.Objects;
+
+/**
+ * This class represents a move of the top card of one pile to another pile.
+ * The card index is not stored since only the top card of a pile can be moved.
+ * A move can be packed into two bytes: the first byte holds the source type
+ * and pile number, the second one the destination type and pile number. Each
+ * byte keeps the pile type ordinal in the two high bits and the pile number in
+ * the six low bits.
+ */
+public final class Move {
+
+  /**
+   * The largest pile number that can be packed.
+   */
+  public static final int MAX_PACKED_PILE = 63;
+
+  private static final PileType[] TYPES = PileType.values();
+
+  private final PileType source;
+  private final int sourcePile;
+  private final PileType destination;
+  private final int destPile;
+
+  /**
+   * Constructor for Move.
+   *
+   * @param source the type of the source pile
+   * @param sourcePile the source pile number, starting at 0
+   * @param destination the type of the destination pile
+   * @param destPile the destination pile number, starting at 0
+   * @throws IllegalArgumentException if a type is null or a pile number is
+   *         negative
+   */
+  public Move(PileType source, int sourcePile, PileType destination,
+      int destPile) throws IllegalArgumentException {
+    if (source == null || destination == null) {
+      throw new IllegalArgumentException("Pile type cannot be null.");
+    }
+    if (sourcePile < 0 || destPile < 0) {
+      throw new IllegalArgumentException("Pile number cannot be negative.");
+    }
+    this.source = source;
+    this.sourcePile = sourcePile;
+    this.destination = destination;
+    this.destPile = destPile;
+  }
+
+  public PileType getSource() {
+    return source;
+  }
+
+  public int getSourcePile() {
+    return sourcePile;
+  }
+
+  public PileType getDestination() {
+    return destination;
+  }
+
+  public int getDestPile() {
+    return destPile;
+  }
+
+  /**
+   * Pack this move into two bytes.
+   *
+   * @return an integer between 0 and 0xFFFF, the source byte in the high half
+   * @throws IllegalStateException if a pile number is greater than
+   *         {@link #MAX_PACKED_PILE}
+   */
+  public int pack() throws IllegalStateException {
+    return (packByte(source, sourcePile) << 8) | packByte(destination, destPile);
+  }
+
+  /**
+   * Unpack a move packed by {@link #pack()}.
+   *
+   * @param packed the packed move
+   * @return the move
+   * @throws IllegalArgumentException if the packed value is invalid
+   */
+  public static Move unpack(int packed) throws IllegalArgumentException {
+    return new Move(typeOf(packed >> 8), (packed >> 8) & MAX_PACKED_PILE,
+        typeOf(packed), packed & MAX_PACKED_PILE);
+  }
+
+  /**
+   * Pack a pile type and number into one byte.
+   *
+   * @param type the pile type
+   * @param pile the pile number
+   * @return an integer between 0 and 0xFF
+   * @throws IllegalStateException if the pile number is too large
+   */
+  static int packByte(PileType type, int pile) throws IllegalStateException {
+    if (pile > MAX_PACKED_PILE) {
+      throw new IllegalStateException("Pile number too large to pack: " + pile);
+    }
+    return (type.ordinal() << 6) | pile;
+  }
+
+  /**
+   * Get the pile type stored in the high bits of a packed byte.
+   *
+   * @param b a packed byte
+   * @return the pile type
+   * @throws IllegalArgumentException if the type bits are invalid
+   */
+  public static PileType typeOf(int b) throws IllegalArgumentException {
+    int ordinal = (b >> 6) & 3;
+    if (ordinal >= TYPES.length) {
+      throw new IllegalArgumentException("Wrong packed pile type: " + ordinal);
+    }
+    return TYPES[ordinal];
+  }
+
+  /**
+   * Apply this move to a model, moving the top card of the source pile.
+   *
+   * @param model a model with a game begun
+   * @throws IllegalArgumentException if the move is not possible
+   */
+  public void applyTo(FreecellModel model) throws IllegalArgumentException {
+    model.move(source, sourcePile, model.getPileSize(source, sourcePile) - 1,
+        destination, destPile);
+  }
+
+  /**
+   * Turn this move to a string like: "C1 -> F2". Pile numbers begin at 1 as
+   * in the controller input.
+   *
+   * @return a formatted string
+   */
+  @Override
+  public String toString() {
+    return pileName(source) + (sourcePile + 1) + " -> " + pileName(destination)
+        + (destPile + 1);
+  }
+
+  /**
+   * Get the one letter name of a pile type, as the controller reads and
+   * writes it.
+   *
+   * @param type the pile type
+   * @return "C", "F" or "O"
+   */
+  public static String pileName(PileType type) {
+    switch (type) {
+      case CASCADE:
+        return "C";
+      case FOUNDATION:
+        return "F";
+      case OPEN:
+        return "O";
+      default:
+        return "";
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof Move)) {
+      return false;
+    }
+    Move m = (Move) o;
+    return source == m.source && sourcePile == m.sourcePile
+        && destination == m.destination && destPile == m.destPile;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(source, sourcePile, destination, destPile);
+  }
+}
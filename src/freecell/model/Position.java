@@ -0,0 +1,622 @@
+package freecell.model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents an immutable position of a game of Freecell. Cards are
+ * stored as codes from {@link CardCodes}: one byte per foundation holding its
+ * top card, one byte per open pile, and one byte array per cascade from bottom
+ * to top. An empty foundation or open pile holds -1.
+ *
+ * <p>A move returns a new position that shares every pile it does not touch
+ * with this one; only the source and destination piles are copied. Positions
+ * can therefore be shared freely between threads, and the hash code is
+ * computed once.</p>
+ */
+public final class Position {
+
+  private static final byte EMPTY = -1;
+
+  private final byte[] foundations;
+  private final byte[] opens;
+  private final byte[][] cascades;
+  private int hash;
+  private volatile long canonicalHash;
+
+  /**
+   * Construct a position from its piles. The arrays are owned by the new
+   * position.
+   */
+  private Position(byte[] foundations, byte[] opens, byte[][] cascades) {
+    this.foundations = foundations;
+    this.opens = opens;
+    this.cascades = cascades;
+  }
+
+  /**
+   * Get the position of a model.
+   *
+   * @param model a model with a game begun
+   * @return the position of that model
+   * @throws IllegalArgumentException if the model is null or the game has not
+   *         begun
+   */
+  public static Position of(FreecellModel model) throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Model cannot be null.");
+    }
+    int numFoundations = model.getNumPiles(PileType.FOUNDATION);
+    if (numFoundations == 0) {
+      throw new IllegalArgumentException("Game has not begun.");
+    }
+    byte[] foundations = new byte[numFoundations];
+    for (int i = 0; i < numFoundations; i++) {
+      int size = model.getPileSize(PileType.FOUNDATION, i);
+      foundations[i] = size == 0 ? EMPTY : code(model, PileType.FOUNDATION, i,
+          size - 1);
+    }
+    byte[] opens = new byte[model.getNumPiles(PileType.OPEN)];
+    for (int i = 0; i < opens.length; i++) {
+      opens[i] = model.getPileSize(PileType.OPEN, i) == 0 ? EMPTY
+          : code(model, PileType.OPEN, i, 0);
+    }
+    byte[][] cascades = new byte[model.getNumPiles(PileType.CASCADE)][];
+    for (int i = 0; i < cascades.length; i++) {
+      cascades[i] = new byte[model.getPileSize(PileType.CASCADE, i)];
+      for (int j = 0; j < cascades[i].length; j++) {
+        cascades[i][j] = code(model, PileType.CASCADE, i, j);
+      }
+    }
+    return new Position(foundations, opens, cascades);
+  }
+
+  /**
+   * Get the won position: every card on the foundations, one suit each, and
+   * every other pile empty.
+   *
+   * @param numOpens the number of open piles
+   * @param numCascades the number of cascades
+   * @return the position
+   * @throws IllegalArgumentException if a number is not positive
+   */
+  public static Position won(int numOpens, int numCascades)
+      throws IllegalArgumentException {
+    if (numOpens < 1 || numCascades < 1) {
+      throw new IllegalArgumentException("Wrong number of piles: " + numOpens
+          + ", " + numCascades);
+    }
+    byte[] foundations = new byte[CardCodes.NUM_CODES / 13];
+    for (int i = 0; i < foundations.length; i++) {
+      foundations[i] = (byte) (i * 13 + 12);
+    }
+    byte[] opens = new byte[numOpens];
+    Arrays.fill(opens, EMPTY);
+    byte[][] cascades = new byte[numCascades][];
+    Arrays.fill(cascades, new byte[0]);
+    return new Position(foundations, opens, cascades);
+  }
+
+  /**
+   * Get a position from its piles, checking that every card is in exactly one
+   * place. The arrays are owned by the new position.
+   *
+   * @param foundations the top card of every foundation, -1 if empty
+   * @param opens the card of every open pile, -1 if empty
+   * @param cascades the cards of every cascade, bottom first
+   * @return the position
+   * @throws IllegalArgumentException if a card is missing or in two places
+   */
+  static Position of(byte[] foundations, byte[] opens, byte[][] cascades)
+      throws IllegalArgumentException {
+    boolean[] seen = new boolean[CardCodes.NUM_CODES];
+    int count = 0;
+    for (byte f : foundations) {
+      for (int c = f; c >= 0 && CardCodes.suit(c) == CardCodes.suit(f); c--) {
+        count += mark(seen, c);
+      }
+    }
+    for (byte o : opens) {
+      count += o == EMPTY ? 0 : mark(seen, o);
+    }
+    for (byte[] cascade : cascades) {
+      for (byte c : cascade) {
+        count += mark(seen, c);
+      }
+    }
+    if (count != CardCodes.NUM_CODES) {
+      throw new IllegalArgumentException("Not a valid position.");
+    }
+    return new Position(foundations, opens, cascades);
+  }
+
+  /**
+   * Helper method to mark a card as seen.
+   *
+   * @return 1
+   * @throws IllegalArgumentException if the card is not a card or was seen
+   */
+  private static int mark(boolean[] seen, int code)
+      throws IllegalArgumentException {
+    if (code < 0 || code >= seen.length || seen[code]) {
+      throw new IllegalArgumentException("Not a valid position.");
+    }
+    seen[code] = true;
+    return 1;
+  }
+
+  /**
+   * Helper method to get the code of a card of a model.
+   */
+  private static byte code(FreecellModel model, PileType type, int pile,
+      int index) {
+    return (byte) CardCodes.toCode(model.getCard(type, pile, index));
+  }
+
+  public int getNumFoundations() {
+    return foundations.length;
+  }
+
+  public int getNumOpens() {
+    return opens.length;
+  }
+
+  public int getNumCascades() {
+    return cascades.length;
+  }
+
+  /**
+   * Get the top card of a foundation.
+   *
+   * @param pile the foundation number, starting at 0
+   * @return the card code, or -1 if the foundation is empty
+   */
+  public int getFoundationTop(int pile) {
+    return foundations[pile];
+  }
+
+  /**
+   * Get the card in an open pile.
+   *
+   * @param pile the open pile number, starting at 0
+   * @return the card code, or -1 if the pile is empty
+   */
+  public int getOpenCard(int pile) {
+    return opens[pile];
+  }
+
+  /**
+   * Get the number of cards in a cascade.
+   *
+   * @param pile the cascade number, starting at 0
+   * @return the number of cards
+   */
+  public int getCascadeSize(int pile) {
+    return cascades[pile].length;
+  }
+
+  /**
+   * Get a card of a cascade.
+   *
+   * @param pile the cascade number, starting at 0
+   * @param index the card index, 0 being the bottom card
+   * @return the card code
+   */
+  public int getCascadeCard(int pile, int index) {
+    return cascades[pile][index];
+  }
+
+  /**
+   * Get the number of cards on the foundations.
+   *
+   * @return an integer between 0 and 52
+   */
+  public int getCardsOnFoundations() {
+    int count = 0;
+    for (byte f : foundations) {
+      count += f == EMPTY ? 0 : CardCodes.value(f);
+    }
+    return count;
+  }
+
+  /**
+   * Get the top card of a pile.
+   *
+   * @param type the pile type
+   * @param pile the pile number, starting at 0
+   * @return the card code, or -1 if the pile is empty
+   * @throws IllegalArgumentException if the pile does not exist
+   */
+  public int getTop(PileType type, int pile) throws IllegalArgumentException {
+    checkPile(type, pile);
+    switch (type) {
+      case FOUNDATION:
+        return foundations[pile];
+      case OPEN:
+        return opens[pile];
+      default:
+        byte[] cascade = cascades[pile];
+        return cascade.length == 0 ? EMPTY : cascade[cascade.length - 1];
+    }
+  }
+
+  /**
+   * Get the number of cards in a pile.
+   *
+   * @param type the pile type
+   * @param pile the pile number, starting at 0
+   * @return the number of cards
+   * @throws IllegalArgumentException if the pile does not exist
+   */
+  public int getPileSize(PileType type, int pile)
+      throws IllegalArgumentException {
+    checkPile(type, pile);
+    switch (type) {
+      case FOUNDATION:
+        return foundations[pile] == EMPTY ? 0 : CardCodes.value(foundations[pile]);
+      case OPEN:
+        return opens[pile] == EMPTY ? 0 : 1;
+      default:
+        return cascades[pile].length;
+    }
+  }
+
+  /**
+   * To check whether a card can be added to a pile.
+   *
+   * @param card the card code
+   * @param type the pile type
+   * @param pile the pile number, starting at 0
+   * @return true if the card can be added
+   */
+  public boolean accepts(int card, PileType type, int pile) {
+    switch (type) {
+      case FOUNDATION:
+        int top = foundations[pile];
+        if (top == EMPTY) {
+          return CardCodes.value(card) == 1;
+        }
+        return card == top + 1 && CardCodes.value(card) != 1;
+      case OPEN:
+        return opens[pile] == EMPTY;
+      default:
+        byte[] cascade = cascades[pile];
+        if (cascade.length == 0) {
+          return true;
+        }
+        int under = cascade[cascade.length - 1];
+        return CardCodes.isRed(under) != CardCodes.isRed(card)
+            && CardCodes.value(under) == CardCodes.value(card) + 1;
+    }
+  }
+
+  /**
+   * To check whether a move is legal in this position. The rules are the same
+   * as the rules of {@link FreecellModel#move}.
+   *
+   * @param m the move
+   * @return true if legal, false otherwise
+   */
+  public boolean isLegal(Move m) {
+    if (m == null || !hasPile(m.getSource(), m.getSourcePile())
+        || !hasPile(m.getDestination(), m.getDestPile())) {
+      return false;
+    }
+    if (m.getSource() == m.getDestination()
+        && m.getSourcePile() == m.getDestPile()) {
+      return false;
+    }
+    int card = getTop(m.getSource(), m.getSourcePile());
+    return card != EMPTY && accepts(card, m.getDestination(), m.getDestPile());
+  }
+
+  /**
+   * Make a move, giving the position after it. This position does not change.
+   *
+   * @param m the move
+   * @return the new position
+   * @throws IllegalArgumentException if the move is not legal
+   */
+  public Position move(Move m) throws IllegalArgumentException {
+    if (!isLegal(m)) {
+      throw new IllegalArgumentException("Illegal move.");
+    }
+    return transfer(m.getSource(), m.getSourcePile(), m.getDestination(),
+        m.getDestPile());
+  }
+
+  /**
+   * To check whether a move can be taken back: the card on top of its
+   * destination could have come from its source in a legal move. The source
+   * must be able to hold the card again, so an open pile must be empty and a
+   * foundation must have the card below it on top, while any cascade can.
+   *
+   * @param m the move
+   * @return true if there is a position this move leads from to this one
+   */
+  public boolean canTakeBack(Move m) {
+    if (m == null || !hasPile(m.getSource(), m.getSourcePile())
+        || !hasPile(m.getDestination(), m.getDestPile())
+        || (m.getSource() == m.getDestination()
+        && m.getSourcePile() == m.getDestPile())) {
+      return false;
+    }
+    int card = getTop(m.getDestination(), m.getDestPile());
+    if (card == EMPTY || (m.getSource() != PileType.CASCADE
+        && !accepts(card, m.getSource(), m.getSourcePile()))) {
+      return false;
+    }
+    if (m.getDestination() != PileType.CASCADE) {
+      return true;
+    }
+    byte[] cascade = cascades[m.getDestPile()];
+    if (cascade.length == 1) {
+      return true;
+    }
+    int under = cascade[cascade.length - 2];
+    return CardCodes.isRed(under) != CardCodes.isRed(card)
+        && CardCodes.value(under) == CardCodes.value(card) + 1;
+  }
+
+  /**
+   * Take back a move, giving the position before it: the position that the
+   * move leads from to this one. This position does not change.
+   *
+   * @param m the move
+   * @return the position before the move
+   * @throws IllegalArgumentException if the move cannot be taken back
+   */
+  public Position takeBack(Move m) throws IllegalArgumentException {
+    if (!canTakeBack(m)) {
+      throw new IllegalArgumentException("Move cannot be taken back.");
+    }
+    return transfer(m.getDestination(), m.getDestPile(), m.getSource(),
+        m.getSourcePile());
+  }
+
+  /**
+   * Move the top card of a pile to another pile without checking the rules.
+   */
+  private Position transfer(PileType from, int fromPile, PileType to,
+      int toPile) {
+    byte card = (byte) getTop(from, fromPile);
+    byte[] newFoundations = foundations;
+    byte[] newOpens = opens;
+    byte[][] newCascades = cascades;
+
+    // Take the card from the source pile.
+    switch (from) {
+      case FOUNDATION:
+        newFoundations = foundations.clone();
+        newFoundations[fromPile] = CardCodes.value(card) == 1 ? EMPTY
+            : (byte) (card - 1);
+        break;
+      case OPEN:
+        newOpens = opens.clone();
+        newOpens[fromPile] = EMPTY;
+        break;
+      default:
+        newCascades = cascades.clone();
+        byte[] source = cascades[fromPile];
+        newCascades[fromPile] = Arrays.copyOf(source, source.length - 1);
+        break;
+    }
+
+    // Put it on the destination pile.
+    switch (to) {
+      case FOUNDATION:
+        if (newFoundations == foundations) {
+          newFoundations = foundations.clone();
+        }
+        newFoundations[toPile] = card;
+        break;
+      case OPEN:
+        if (newOpens == opens) {
+          newOpens = opens.clone();
+        }
+        newOpens[toPile] = card;
+        break;
+      default:
+        if (newCascades == cascades) {
+          newCascades = cascades.clone();
+        }
+        byte[] dest = cascades[toPile];
+        byte[] grown = Arrays.copyOf(dest, dest.length + 1);
+        grown[dest.length] = card;
+        newCascades[toPile] = grown;
+        break;
+    }
+    return new Position(newFoundations, newOpens, newCascades);
+  }
+
+  /**
+   * Signal if the game is over in this position.
+   *
+   * @return true if every foundation has a king on top
+   */
+  public boolean isGameOver() {
+    for (byte f : foundations) {
+      if (f == EMPTY || CardCodes.value(f) != 13) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Make a model in this position.
+   *
+   * @return a new model
+   */
+  public FreecellModel toModel() {
+    FreecellModel model = new FreecellModel();
+    model.restore(toSnapshot());
+    return model;
+  }
+
+  /**
+   * Get a snapshot of this position that a model can restore.
+   *
+   * @return a new snapshot
+   */
+  public FreecellSnapshot toSnapshot() {
+    int[] sizes = new int[foundations.length + opens.length + cascades.length];
+    Card[] cards = new Card[52];
+    int pileIndex = 0;
+    int offset = 0;
+    for (byte f : foundations) {
+      int size = f == EMPTY ? 0 : CardCodes.value(f);
+      for (int i = 0; i < size; i++) {
+        cards[offset++] = CardCodes.fromCode(f - size + 1 + i);
+      }
+      sizes[pileIndex++] = size;
+    }
+    for (byte o : opens) {
+      if (o != EMPTY) {
+        cards[offset++] = CardCodes.fromCode(o);
+      }
+      sizes[pileIndex++] = o == EMPTY ? 0 : 1;
+    }
+    for (byte[] cascade : cascades) {
+      for (byte c : cascade) {
+        cards[offset++] = CardCodes.fromCode(c);
+      }
+      sizes[pileIndex++] = cascade.length;
+    }
+    return new FreecellSnapshot(cards, sizes, foundations.length, opens.length,
+        cascades.length, true);
+  }
+
+  /**
+   * To check whether a pile exists in this position.
+   */
+  private boolean hasPile(PileType type, int pile) {
+    if (type == null || pile < 0) {
+      return false;
+    }
+    switch (type) {
+      case FOUNDATION:
+        return pile < foundations.length;
+      case OPEN:
+        return pile < opens.length;
+      default:
+        return pile < cascades.length;
+    }
+  }
+
+  /**
+   * Throw if a pile does not exist in this position.
+   */
+  private void checkPile(PileType type, int pile) throws IllegalArgumentException {
+    if (!hasPile(type, pile)) {
+      throw new IllegalArgumentException("Wrong pile: " + type + " " + pile);
+    }
+  }
+
+  /**
+   * Two positions are equal if every pile holds the same cards.
+   *
+   * @param o another position
+   * @return true if equal else false
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof Position)) {
+      return false;
+    }
+    Position p = (Position) o;
+    if (hashCode() != p.hashCode() || !Arrays.equals(foundations, p.foundations)
+        || !Arrays.equals(opens, p.opens)
+        || cascades.length != p.cascades.length) {
+      return false;
+    }
+    for (int i = 0; i < cascades.length; i++) {
+      if (cascades[i] != p.cascades[i] && !Arrays.equals(cascades[i],
+          p.cascades[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the hashcode of this position, computed once.
+   *
+   * @return hash value of the position
+   */
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0) {
+      h = 31 * Arrays.hashCode(foundations) + Arrays.hashCode(opens);
+      for (byte[] cascade : cascades) {
+        h = 31 * h + Arrays.hashCode(cascade);
+      }
+      if (h == 0) {
+        h = 1;
+      }
+      hash = h;
+    }
+    return h;
+  }
+
+  /**
+   * Get a 64 bit hash that does not depend on the order of the piles of each
+   * type. Positions that only differ by swapping two cascades, two open piles
+   * or two foundations have the same canonical hash, so searches can treat
+   * them as one position. The hash is computed once.
+   *
+   * @return the canonical hash, never 0
+   */
+  public long canonicalHash() {
+    long h = canonicalHash;
+    if (h == 0) {
+      for (byte f : foundations) {
+        h += mix(0x100 + f);
+      }
+      for (byte o : opens) {
+        h += mix(0x200 + o);
+      }
+      for (byte[] cascade : cascades) {
+        long c = 0x300;
+        for (byte b : cascade) {
+          c = c * 0x100000001B3L + b + 1;
+        }
+        h += mix(c);
+      }
+      if (h == 0) {
+        h = 1;
+      }
+      canonicalHash = h;
+    }
+    return h;
+  }
+
+  /**
+   * Scramble the bits of a value, the finalizer of the 64 bit MurmurHash3.
+   *
+   * @param v a value
+   * @return the scrambled value
+   */
+  private static long mix(long v) {
+    v ^= v >>> 33;
+    v *= 0xFF51AFD7ED558CCDL;
+    v ^= v >>> 33;
+    v *= 0xC4CEB93FE53494E7L;
+    v ^= v >>> 33;
+    return v;
+  }
+
+  /**
+   * Turn this position to a string in the format of
+   * {@link FreecellModel#getGameState()}.
+   *
+   * @return a formatted string
+   */
+  @Override
+  public String toString() {
+    return toModel().getGameState();
+  }
+}
@@ -0,0 +1,335 @@
+package freecell.model;
+
+import java.util.Arrays;
+
+/**
+ * This class packs positions into a few dozen bytes and back. Every value is a
+ * 6-bit symbol, written from the high bits of each byte down:
+ * <ol>
+ *   <li>the number of open piles and the number of cascades;</li>
+ *   <li>the top card of each of the 4 foundations;</li>
+ *   <li>the card of each open pile;</li>
+ *   <li>the cards of each cascade from the bottom, with a 0 between
+ *   cascades.</li>
+ * </ol>
+ * A card is its code from {@link CardCodes} plus 1, and 0 stands for an empty
+ * pile. The cascades end when all 52 cards are placed, so the last cascade
+ * needs no separator. A deal of 8 cascades and 4 open piles takes 52 bytes,
+ * and the encoding gets shorter as cards go to the foundations.
+ *
+ * <p>The canonical encoding lists the piles of each type in a fixed order, so
+ * positions that only differ by the order of their piles, the ones with the
+ * same {@link Position#canonicalHash()}, have the same bytes. Canonical
+ * encodings can be sorted and compared with {@link #compare} to find
+ * duplicates.</p>
+ */
+public final class PositionCodec {
+
+  /**
+   * The most bytes a position can take: 63 open piles and 63 cascades.
+   */
+  public static final int MAX_BYTES = (2 + 4 + 63 + 52 + 62) * 6 / 8 + 1;
+
+  private static final int NUM_FOUNDATIONS = 4;
+  private static final int MAX_PILES = 63;
+
+  /**
+   * There is no codec to make.
+   */
+  private PositionCodec() {
+  }
+
+  /**
+   * Encode a position.
+   *
+   * @param p the position
+   * @return a new array of the encoding
+   * @throws IllegalArgumentException if the position cannot be encoded
+   */
+  public static byte[] encode(Position p) throws IllegalArgumentException {
+    byte[] buffer = new byte[MAX_BYTES];
+    int length = encode(p, buffer, 0);
+    byte[] toReturn = new byte[length];
+    System.arraycopy(buffer, 0, toReturn, 0, length);
+    return toReturn;
+  }
+
+  /**
+   * Encode a position into a buffer.
+   *
+   * @param p the position
+   * @param buffer the buffer, with at least {@link #MAX_BYTES} bytes from the
+   *        offset
+   * @param offset where to start writing
+   * @return the number of bytes written
+   * @throws IllegalArgumentException if the position has not 4 foundations,
+   *         or more than 63 open piles or cascades
+   */
+  public static int encode(Position p, byte[] buffer, int offset)
+      throws IllegalArgumentException {
+    return encode(p, buffer, offset, false);
+  }
+
+  /**
+   * Encode a position into a buffer with its piles of each type in a fixed
+   * order: foundations and open piles by card, empty ones first, and cascades
+   * by their cards from the bottom. Decoding gives the position with its piles
+   * in that order.
+   *
+   * @param p the position
+   * @param buffer the buffer, with at least {@link #MAX_BYTES} bytes from the
+   *        offset
+   * @param offset where to start writing
+   * @return the number of bytes written
+   * @throws IllegalArgumentException if the position has not 4 foundations,
+   *         or more than 63 open piles or cascades
+   */
+  public static int encodeCanonical(Position p, byte[] buffer, int offset)
+      throws IllegalArgumentException {
+    return encode(p, buffer, offset, true);
+  }
+
+  /**
+   * Compare two encodings as unsigned bytes, a shorter one first if it is the
+   * start of the other.
+   *
+   * @param a the first buffer
+   * @param aOffset where the first encoding starts
+   * @param aLength the length of the first encoding
+   * @param b the second buffer
+   * @param bOffset where the second encoding starts
+   * @param bLength the length of the second encoding
+   * @return a negative number, zero or a positive number as the first
+   *         encoding is before, the same as or after the second
+   */
+  public static int compare(byte[] a, int aOffset, int aLength, byte[] b,
+      int bOffset, int bLength) {
+    int n = Math.min(aLength, bLength);
+    for (int i = 0; i < n; i++) {
+      int d = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+      if (d != 0) {
+        return d;
+      }
+    }
+    return aLength - bLength;
+  }
+
+  /**
+   * Helper method to encode a position, its piles in order or sorted.
+   */
+  private static int encode(Position p, byte[] buffer, int offset,
+      boolean canonical) throws IllegalArgumentException {
+    if (p.getNumFoundations() != NUM_FOUNDATIONS
+        || p.getNumOpens() > MAX_PILES || p.getNumCascades() > MAX_PILES) {
+      throw new IllegalArgumentException("Position cannot be encoded.");
+    }
+    BitWriter out = new BitWriter(buffer, offset);
+    out.write(p.getNumOpens());
+    out.write(p.getNumCascades());
+    int[] symbols = canonical ? new int[Math.max(NUM_FOUNDATIONS,
+        p.getNumOpens())] : null;
+    for (int i = 0; i < NUM_FOUNDATIONS; i++) {
+      write(out, symbols, i, p.getFoundationTop(i) + 1);
+    }
+    writeSorted(out, symbols, NUM_FOUNDATIONS);
+    int placed = p.getCardsOnFoundations();
+    for (int i = 0; i < p.getNumOpens(); i++) {
+      write(out, symbols, i, p.getOpenCard(i) + 1);
+      placed += p.getOpenCard(i) < 0 ? 0 : 1;
+    }
+    writeSorted(out, symbols, p.getNumOpens());
+    int[] order = canonical ? cascadeOrder(p) : null;
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      if (i > 0 && placed < CardCodes.NUM_CODES) {
+        out.write(0);
+      }
+      int pile = order == null ? i : order[i];
+      for (int j = 0; j < p.getCascadeSize(pile); j++) {
+        out.write(p.getCascadeCard(pile, j) + 1);
+        placed++;
+      }
+    }
+    return out.finish() - offset;
+  }
+
+  /**
+   * Helper method to write a symbol now, or keep it to sort if there are
+   * symbols to sort.
+   */
+  private static void write(BitWriter out, int[] symbols, int index,
+      int symbol) {
+    if (symbols == null) {
+      out.write(symbol);
+    } else {
+      symbols[index] = symbol;
+    }
+  }
+
+  /**
+   * Helper method to sort and write the symbols kept, if any.
+   */
+  private static void writeSorted(BitWriter out, int[] symbols, int count) {
+    if (symbols != null) {
+      Arrays.sort(symbols, 0, count);
+      for (int i = 0; i < count; i++) {
+        out.write(symbols[i]);
+      }
+    }
+  }
+
+  /**
+   * Helper method to get the cascades sorted by their cards from the bottom,
+   * a shorter cascade first if it is the bottom of the other.
+   */
+  private static int[] cascadeOrder(Position p) {
+    int[] order = new int[p.getNumCascades()];
+    for (int i = 0; i < order.length; i++) {
+      int j = i;
+      while (j > 0 && compareCascades(p, order[j - 1], i) > 0) {
+        order[j] = order[j - 1];
+        j--;
+      }
+      order[j] = i;
+    }
+    return order;
+  }
+
+  /**
+   * Helper method to compare two cascades by their cards from the bottom.
+   */
+  private static int compareCascades(Position p, int a, int b) {
+    int n = Math.min(p.getCascadeSize(a), p.getCascadeSize(b));
+    for (int i = 0; i < n; i++) {
+      int d = p.getCascadeCard(a, i) - p.getCascadeCard(b, i);
+      if (d != 0) {
+        return d;
+      }
+    }
+    return p.getCascadeSize(a) - p.getCascadeSize(b);
+  }
+
+  /**
+   * Decode a position.
+   *
+   * @param buffer the buffer holding an encoding
+   * @param offset where the encoding starts
+   * @param length the number of bytes of the encoding
+   * @return the position
+   * @throws IllegalArgumentException if the bytes are not a position
+   */
+  public static Position decode(byte[] buffer, int offset, int length)
+      throws IllegalArgumentException {
+    BitReader in = new BitReader(buffer, offset, length);
+    int numOpens = in.read();
+    int numCascades = in.read();
+    if (numOpens < 1 || numCascades < 1) {
+      throw new IllegalArgumentException("Not a valid position.");
+    }
+    byte[] foundations = new byte[NUM_FOUNDATIONS];
+    int placed = 0;
+    for (int i = 0; i < NUM_FOUNDATIONS; i++) {
+      foundations[i] = card(in.read());
+      placed += foundations[i] < 0 ? 0 : CardCodes.value(foundations[i]);
+    }
+    byte[] opens = new byte[numOpens];
+    for (int i = 0; i < numOpens; i++) {
+      opens[i] = card(in.read());
+      placed += opens[i] < 0 ? 0 : 1;
+    }
+    byte[][] cascades = new byte[numCascades][];
+    byte[] pile = new byte[CardCodes.NUM_CODES];
+    for (int i = 0; i < numCascades; i++) {
+      int size = 0;
+      while (placed < CardCodes.NUM_CODES) {
+        int symbol = in.read();
+        if (symbol == 0) {
+          break;
+        }
+        pile[size++] = card(symbol);
+        placed++;
+      }
+      cascades[i] = new byte[size];
+      System.arraycopy(pile, 0, cascades[i], 0, size);
+    }
+    return Position.of(foundations, opens, cascades);
+  }
+
+  /**
+   * Helper method to turn a symbol into a card code.
+   */
+  private static byte card(int symbol) throws IllegalArgumentException {
+    if (symbol > CardCodes.NUM_CODES) {
+      throw new IllegalArgumentException("Not a valid position.");
+    }
+    return (byte) (symbol - 1);
+  }
+
+  /**
+   * Writes 6-bit symbols into a byte array.
+   */
+  private static final class BitWriter {
+    private final byte[] buffer;
+    private int position;
+    private int bits;
+    private int pending;
+
+    BitWriter(byte[] buffer, int offset) {
+      this.buffer = buffer;
+      this.position = offset;
+    }
+
+    void write(int symbol) {
+      pending = pending << 6 | symbol;
+      bits += 6;
+      if (bits >= 8) {
+        bits -= 8;
+        buffer[position++] = (byte) (pending >>> bits);
+        pending &= (1 << bits) - 1;
+      }
+    }
+
+    /**
+     * Write the last bits, padded with zeros.
+     *
+     * @return the position after the last byte
+     */
+    int finish() {
+      if (bits > 0) {
+        buffer[position++] = (byte) (pending << (8 - bits));
+        bits = 0;
+      }
+      return position;
+    }
+  }
+
+  /**
+   * Reads 6-bit symbols from a byte array.
+   */
+  private static final class BitReader {
+    private final byte[] buffer;
+    private final int end;
+    private int position;
+    private int bits;
+    private int pending;
+
+    BitReader(byte[] buffer, int offset, int length) {
+      this.buffer = buffer;
+      this.position = offset;
+      this.end = offset + length;
+    }
+
+    int read() throws IllegalArgumentException {
+      if (bits < 6) {
+        if (position >= end) {
+          throw new IllegalArgumentException("Not a valid position.");
+        }
+        pending = pending << 8 | (buffer[position++] & 0xFF);
+        bits += 8;
+      }
+      bits -= 6;
+      int symbol = pending >>> bits;
+      pending &= (1 << bits) - 1;
+      return symbol;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package freecell.rating;
+
+import java.nio.ByteBuffer;
+
+import freecell.solver.SolveResult;
+
+/**
+ * This class represents the difficulty rating of one numbered deal: the effort
+ * of the solver, the length of its solution and the win rate of random
+ * playouts, combined into a score from 0 (easiest) to 1000 (hardest).
+ *
+ * <p>The score weighs the solver effort, as the decimal logarithm of the nodes
+ * over 6, by 0.4; the solution length over 200 moves by 0.2; and the playout
+ * hardness, one minus the decimal logarithm of 1 + 1000 times the win rate
+ * over 3, by 0.4. Each part is capped at 1. A deal the solver did not solve
+ * scores 1000.</p>
+ */
+public final class DealRating {
+
+  /**
+   * The number of bytes of a rating in an index file.
+   */
+  public static final int BYTES = 16;
+
+  private final int dealNumber;
+  private final SolveResult.Status status;
+  private final int nodes;
+  private final int solutionLength;
+  private final int winRatePpm;
+  private final int score;
+
+  /**
+   * Constructor for DealRating.
+   *
+   * @param dealNumber the deal number
+   * @param status how the solver search ended
+   * @param nodes the positions the solver expanded
+   * @param solutionLength the number of moves of the solution, 0 if not
+   *        solved
+   * @param winRate the fraction of playouts that won
+   */
+  public DealRating(int dealNumber, SolveResult.Status status, long nodes,
+      int solutionLength, double winRate) {
+    this(dealNumber, status, (int) Math.min(nodes, Integer.MAX_VALUE),
+        solutionLength, (int) Math.round(winRate * 1_000_000), -1);
+  }
+
+  /**
+   * Constructor with the win rate in parts per million and the score, the
+   * score computed if it is negative.
+   */
+  private DealRating(int dealNumber, SolveResult.Status status, int nodes,
+      int solutionLength, int winRatePpm, int score) {
+    this.dealNumber = dealNumber;
+    this.status = status;
+    this.nodes = nodes;
+    this.solutionLength = solutionLength;
+    this.winRatePpm = winRatePpm;
+    this.score = score >= 0 ? score : score(status, nodes, solutionLength,
+        winRatePpm / 1e6);
+  }
+
+  /**
+   * Helper method to compute the score.
+   */
+  private static int score(SolveResult.Status status, int nodes,
+      int solutionLength, double winRate) {
+    if (status != SolveResult.Status.SOLVED) {
+      return 1000;
+    }
+    double effort = Math.min(1, Math.log10(Math.max(1, nodes)) / 6);
+    double length = Math.min(1, solutionLength / 200.0);
+    double hardness = 1 - Math.min(1, Math.log10(1 + 1000 * winRate) / 3);
+    return (int) Math.round(1000 * (0.4 * effort + 0.2 * length
+        + 0.4 * hardness));
+  }
+
+  public int getDealNumber() {
+    return dealNumber;
+  }
+
+  public SolveResult.Status getStatus() {
+    return status;
+  }
+
+  public int getNodes() {
+    return nodes;
+  }
+
+  public int getSolutionLength() {
+    return solutionLength;
+  }
+
+  /**
+   * Get the fraction of playouts that won.
+   *
+   * @return the win rate
+   */
+  public double getWinRate() {
+    return winRatePpm / 1e6;
+  }
+
+  /**
+   * Get the difficulty score.
+   *
+   * @return the score from 0 to 1000
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Write this rating at the current position of a buffer, in
+   * {@link #BYTES} bytes.
+   *
+   * @param out the buffer
+   */
+  void writeTo(ByteBuffer out) {
+    out.putInt(nodes);
+    out.putInt(winRatePpm);
+    out.putShort((short) Math.min(solutionLength, Short.MAX_VALUE));
+    out.putShort((short) score);
+    out.put((byte) status.ordinal());
+    out.put((byte) 0);
+    out.putShort((short) 0);
+  }
+
+  /**
+   * Read a rating written by {@link #writeTo(ByteBuffer)}.
+   *
+   * @param dealNumber the deal number of the rating
+   * @param in the buffer
+   * @param offset the offset of the rating in the buffer
+   * @return the rating
+   */
+  static DealRating readFrom(int dealNumber, ByteBuffer in, int offset) {
+    return new DealRating(dealNumber,
+        SolveResult.Status.values()[in.get(offset + 12)], in.getInt(offset),
+        in.getShort(offset + 8), in.getInt(offset + 4),
+        in.getShort(offset + 10));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("deal %d: score %d, %s, %d nodes, %d moves, "
+        + "win rate %.4f", dealNumber, score, status, nodes, solutionLength,
+        getWinRate());
+  }
+}
@@ -0,0 +1,111 @@
+package freecell.rating;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class looks up deal ratings in an index file written by
+ * {@link RatingPipeline}. The file is memory mapped and holds a rating of
+ * {@link DealRating#BYTES} bytes for every deal of a range of deal numbers,
+ * sorted by deal number, so a lookup reads one rating at a computed offset.
+ *
+ * <p>The file starts with a header of 16 bytes: the magic number, the first
+ * deal number, the number of deals and 4 bytes of padding.</p>
+ */
+public class RatingIndex {
+
+  /**
+   * The magic number at the start of an index file.
+   */
+  public static final int MAGIC = 0x46434449;
+
+  static final int HEADER_BYTES = 16;
+
+  private final ByteBuffer map;
+  private final int firstDeal;
+  private final int numDeals;
+
+  /**
+   * Construct an index over a mapped file.
+   */
+  private RatingIndex(ByteBuffer map, int firstDeal, int numDeals) {
+    this.map = map;
+    this.firstDeal = firstDeal;
+    this.numDeals = numDeals;
+  }
+
+  /**
+   * Load an index file by memory mapping it.
+   *
+   * @param file the index file
+   * @return the index
+   * @throws IOException if reading fails or the file is not an index
+   */
+  public static RatingIndex load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+        throw new IOException("Not a rating index: " + file);
+      }
+      int firstDeal = map.getInt(4);
+      int numDeals = map.getInt(8);
+      if (map.capacity() != HEADER_BYTES + (long) numDeals * DealRating.BYTES) {
+        throw new IOException("Wrong rating index size: " + file);
+      }
+      return new RatingIndex(map, firstDeal, numDeals);
+    }
+  }
+
+  public int getFirstDeal() {
+    return firstDeal;
+  }
+
+  public int getNumDeals() {
+    return numDeals;
+  }
+
+  /**
+   * To check whether a deal is in this index.
+   *
+   * @param dealNumber the deal number
+   * @return true if the index has a rating for the deal
+   */
+  public boolean contains(int dealNumber) {
+    return dealNumber >= firstDeal && dealNumber - firstDeal < numDeals;
+  }
+
+  /**
+   * Get the rating of a deal.
+   *
+   * @param dealNumber the deal number
+   * @return the rating
+   * @throws IllegalArgumentException if the deal is not in this index
+   */
+  public DealRating get(int dealNumber) throws IllegalArgumentException {
+    if (!contains(dealNumber)) {
+      throw new IllegalArgumentException("Deal not in index: " + dealNumber);
+    }
+    return DealRating.readFrom(dealNumber, map, HEADER_BYTES
+        + (dealNumber - firstDeal) * DealRating.BYTES);
+  }
+
+  /**
+   * Get the difficulty score of a deal without building a rating.
+   *
+   * @param dealNumber the deal number
+   * @return the score from 0 to 1000
+   * @throws IllegalArgumentException if the deal is not in this index
+   */
+  public int getScore(int dealNumber) throws IllegalArgumentException {
+    if (!contains(dealNumber)) {
+      throw new IllegalArgumentException("Deal not in index: " + dealNumber);
+    }
+    return map.getShort(HEADER_BYTES + (dealNumber - firstDeal)
+        * DealRating.BYTES + 10);
+  }
+}
@@ -0,0 +1,209 @@
+package freecell.rating;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.PlayoutEngine;
+import freecell.solver.PlayoutStats;
+import freecell.solver.SolveResult;
+import freecell.solver.Solver;
+
+/**
+ * This class rates a range of numbered deals and writes a
+ * {@link RatingIndex} file. The calling thread submits chunks of deal numbers
+ * to a fork join pool, whose threads deal and rate every deal of a chunk,
+ * with at most a few chunks in flight, so memory does not grow with the
+ * number of deals. The calling thread writes finished chunks in order of
+ * deal number.
+ *
+ * <p>Every deal is solved once and played out a number of times, with the
+ * deal number as the playout seed, so the same settings give the same index.
+ * Playouts run in the same pool as the ratings.</p>
+ */
+public class RatingPipeline {
+
+  private static final int LEAF_SIZE = 4;
+
+  private final ForkJoinPool pool;
+  private final Solver solver;
+  private final PlayoutEngine playouts;
+  private final int playoutsPerDeal;
+  private final int chunkSize;
+
+  /**
+   * Construct a pipeline using the common pool, the default solver, 1000
+   * playouts per deal and chunks of 256 deals.
+   */
+  public RatingPipeline() {
+    this(ForkJoinPool.commonPool(), new BestFirstSolver(), 1000, 256);
+  }
+
+  /**
+   * Constructor for RatingPipeline.
+   *
+   * @param pool the pool to rate deals in
+   * @param solver the solver measuring effort and solution length
+   * @param playoutsPerDeal the number of playouts of every deal
+   * @param chunkSize the number of deals in a chunk submitted to the pool
+   *        and written at once
+   * @throws IllegalArgumentException if the pool or solver is null, or a
+   *         number is wrong
+   */
+  public RatingPipeline(ForkJoinPool pool, Solver solver, int playoutsPerDeal,
+      int chunkSize) throws IllegalArgumentException {
+    if (pool == null || solver == null) {
+      throw new IllegalArgumentException("Pool and solver cannot be null.");
+    }
+    if (playoutsPerDeal < 0 || chunkSize < 1) {
+      throw new IllegalArgumentException("Wrong playouts or chunk size.");
+    }
+    this.pool = pool;
+    this.solver = solver;
+    this.playouts = new PlayoutEngine(pool, 1000, true);
+    this.playoutsPerDeal = playoutsPerDeal;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Rate a single deal on the current thread.
+   *
+   * @param dealNumber the deal number
+   * @return the rating
+   * @throws IllegalArgumentException if the deal number is not positive
+   */
+  public DealRating rate(int dealNumber) throws IllegalArgumentException {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(dealNumber),
+        DealGenerator.NUM_CASCADES, DealGenerator.NUM_OPENS, false);
+    Position p = Position.of(model);
+    SolveResult result = solver.solve(p);
+    PlayoutStats stats = playouts.run(p, playoutsPerDeal, dealNumber);
+    return new DealRating(dealNumber, result.getStatus(), result.getNodes(),
+        result.getMoves().size(), stats.getWinRate());
+  }
+
+  /**
+   * Rate a range of deals and write their index to a stream.
+   *
+   * @param firstDeal the first deal number
+   * @param numDeals the number of deals
+   * @param out the stream to write the index to
+   * @throws IOException if writing fails
+   * @throws IllegalArgumentException if the range is wrong
+   */
+  public void rate(int firstDeal, int numDeals, OutputStream out)
+      throws IOException, IllegalArgumentException {
+    if (firstDeal < 1 || numDeals < 0
+        || (long) firstDeal + numDeals - 1 > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Wrong range of deals.");
+    }
+    ByteBuffer header = ByteBuffer.allocate(RatingIndex.HEADER_BYTES);
+    header.putInt(RatingIndex.MAGIC).putInt(firstDeal).putInt(numDeals);
+    out.write(header.array());
+
+    Deque<ForkJoinTask<Void>> inFlight = new ArrayDeque<>();
+    Deque<DealRating[]> chunks = new ArrayDeque<>();
+    int maxInFlight = 2 * pool.getParallelism();
+    for (int start = 0; start < numDeals; start += chunkSize) {
+      DealRating[] chunk = new DealRating[Math.min(chunkSize,
+          numDeals - start)];
+      inFlight.addLast(pool.submit(new RateTask(firstDeal + start, chunk, 0,
+          chunk.length)));
+      chunks.addLast(chunk);
+      while (inFlight.size() > maxInFlight) {
+        inFlight.removeFirst().join();
+        write(chunks.removeFirst(), out);
+      }
+    }
+    while (!inFlight.isEmpty()) {
+      inFlight.removeFirst().join();
+      write(chunks.removeFirst(), out);
+    }
+    out.flush();
+  }
+
+  /**
+   * Helper method to write a chunk of ratings.
+   */
+  private static void write(DealRating[] chunk, OutputStream out)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(chunk.length * DealRating.BYTES);
+    for (DealRating rating : chunk) {
+      rating.writeTo(buffer);
+    }
+    out.write(buffer.array());
+  }
+
+  /**
+   * A task rating a range of a chunk, split in halves down to
+   * {@link #LEAF_SIZE} deals.
+   */
+  private class RateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int baseDeal;
+    private final DealRating[] chunk;
+    private final int from;
+    private final int to;
+
+    RateTask(int baseDeal, DealRating[] chunk, int from, int to) {
+      this.baseDeal = baseDeal;
+      this.chunk = chunk;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_SIZE) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new RateTask(baseDeal, chunk, from, mid),
+            new RateTask(baseDeal, chunk, mid, to));
+        return;
+      }
+      for (int i = from; i < to; i++) {
+        chunk[i] = rate(baseDeal + i);
+      }
+    }
+  }
+
+  /**
+   * Rate a range of deals into an index file and print how long it took.
+   *
+   * @param args the first deal number, the number of deals, the index file
+   *        and optionally the playouts per deal (default 1000)
+   * @throws IOException if writing fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println("Usage: RatingPipeline FIRST COUNT INDEX "
+          + "[PLAYOUTS]");
+      System.exit(2);
+    }
+    int firstDeal = Integer.parseInt(args[0]);
+    int numDeals = Integer.parseInt(args[1]);
+    int playoutsPerDeal = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+    RatingPipeline pipeline = new RatingPipeline(ForkJoinPool.commonPool(),
+        new BestFirstSolver(), playoutsPerDeal, 256);
+    long start = System.nanoTime();
+    try (OutputStream out = new BufferedOutputStream(
+        new FileOutputStream(args[2]), 1 << 16)) {
+      pipeline.rate(firstDeal, numDeals, out);
+    }
+    System.out.println(String.format("%d deals rated in %.1f s", numDeals,
+        (System.nanoTime() - start) / 1e9));
+  }
+}
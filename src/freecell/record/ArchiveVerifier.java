@@ -0,0 +1,200 @@
+package freecell.record;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import freecell.model.FreecellModel;
+
+/**
+ * This class verifies archives of game records. A record passes if all of its
+ * moves are legal and the game is over after the last move exactly when the
+ * record claims it was won. Records are read in chunks on the calling thread
+ * and each chunk is replayed in a fork join pool, with at most a few chunks in
+ * memory at once.
+ */
+public class ArchiveVerifier {
+
+  private static final int LEAF_SIZE = 64;
+
+  private final ForkJoinPool pool;
+  private final int chunkSize;
+  private final ThreadLocal<ReplayEngine> engines;
+
+  /**
+   * Construct a verifier using the common pool and chunks of 4096 records.
+   */
+  public ArchiveVerifier() {
+    this(ForkJoinPool.commonPool(), 4096);
+  }
+
+  /**
+   * Constructor for ArchiveVerifier.
+   *
+   * @param pool the pool to replay records in
+   * @param chunkSize the number of records read before they are handed to the
+   *        pool
+   * @throws IllegalArgumentException if the pool is null or the chunk size is
+   *         not positive
+   */
+  public ArchiveVerifier(ForkJoinPool pool, int chunkSize)
+      throws IllegalArgumentException {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null.");
+    }
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Wrong chunk size: " + chunkSize);
+    }
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+    this.engines = ThreadLocal.withInitial(ReplayEngine::new);
+  }
+
+  /**
+   * Verify every record of a stream until its end.
+   *
+   * @param in a stream of records written by
+   *        {@link GameRecord#writeTo(java.io.DataOutput)}
+   * @return the report of the verification
+   * @throws IOException if reading fails, or the stream holds something other
+   *         than records or ends within a record
+   */
+  public VerificationReport verify(InputStream in) throws IOException {
+    long start = System.nanoTime();
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in,
+        1 << 16));
+    Totals totals = new Totals();
+    Deque<ForkJoinTask<Void>> inFlight = new ArrayDeque<>();
+    int maxInFlight = 2 * pool.getParallelism();
+    long index = 0;
+    boolean end = false;
+
+    while (!end) {
+      List<GameRecord> chunk = new ArrayList<>(chunkSize);
+      while (chunk.size() < chunkSize) {
+        try {
+          chunk.add(GameRecord.readFrom(data));
+        } catch (EOFException e) {
+          end = true;
+          break;
+        }
+      }
+      if (!chunk.isEmpty()) {
+        inFlight.addLast(pool.submit(new VerifyTask(chunk, index, 0,
+            chunk.size(), totals)));
+        index += chunk.size();
+      }
+      while (inFlight.size() > maxInFlight) {
+        inFlight.removeFirst().join();
+      }
+    }
+    while (!inFlight.isEmpty()) {
+      inFlight.removeFirst().join();
+    }
+    return new VerificationReport(totals.records.sum(), totals.moves.sum(),
+        new ArrayList<>(totals.failures), System.nanoTime() - start);
+  }
+
+  /**
+   * Verify a single record on the current thread.
+   *
+   * @param record the record
+   * @return null if the record passes, otherwise the reason it failed
+   */
+  public String check(GameRecord record) {
+    FreecellModel model;
+    try {
+      model = engines.get().replay(record);
+    } catch (IllegalArgumentException e) {
+      return e.getMessage();
+    }
+    if (model.isGameOver() != record.isWon()) {
+      return record.isWon() ? "Claims a win but the game is not over."
+          : "Claims no win but the game is over.";
+    }
+    return null;
+  }
+
+  /**
+   * The counters shared by the tasks of one verification.
+   */
+  private static class Totals {
+    private final LongAdder records = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final ConcurrentLinkedQueue<VerificationReport.Failure> failures =
+        new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * A task replaying a range of a chunk, split in halves down to
+   * {@link #LEAF_SIZE} records.
+   */
+  private class VerifyTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<GameRecord> chunk;
+    private final long baseIndex;
+    private final int from;
+    private final int to;
+    private final Totals totals;
+
+    VerifyTask(List<GameRecord> chunk, long baseIndex, int from, int to,
+        Totals totals) {
+      this.chunk = chunk;
+      this.baseIndex = baseIndex;
+      this.from = from;
+      this.to = to;
+      this.totals = totals;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_SIZE) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new VerifyTask(chunk, baseIndex, from, mid, totals),
+            new VerifyTask(chunk, baseIndex, mid, to, totals));
+        return;
+      }
+      long moves = 0;
+      for (int i = from; i < to; i++) {
+        GameRecord record = chunk.get(i);
+        String reason = check(record);
+        if (reason != null) {
+          totals.failures.add(new VerificationReport.Failure(baseIndex + i,
+              reason));
+        }
+        moves += record.getNumMoves();
+      }
+      totals.records.add(to - from);
+      totals.moves.add(moves);
+    }
+  }
+
+  /**
+   * Verify the record files given as arguments and print a report for each.
+   *
+   * @param args paths of record files
+   * @throws IOException if a file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    ArchiveVerifier verifier = new ArchiveVerifier();
+    for (String path : args) {
+      try (InputStream in = new FileInputStream(path)) {
+        System.out.println(path + ": " + verifier.verify(in));
+      }
+    }
+  }
+}
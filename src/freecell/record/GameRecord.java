@@ -0,0 +1,323 @@
+package freecell.record;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.Card;
+import freecell.model.CardCodes;
+import freecell.model.DealGenerator;
+import freecell.model.DeckImpl;
+import freecell.model.Move;
+
+/**
+ * This class represents the record of one played game in a compact binary
+ * form. A record is written as:
+ * <pre>
+ * magic      4 bytes  "FCR1"
+ * flags      1 byte   bit 0: layout follows, bit 1: the game was won
+ * deal       4 bytes  the deal number, or 52 bytes of card codes if bit 0 set
+ * cascades   1 byte   number of cascade piles
+ * opens      1 byte   number of open piles
+ * moveCount  4 bytes  number of moves, at most {@link #MAX_MOVES}
+ * moves      2 bytes per move, packed as in {@link Move#pack()}
+ * </pre>
+ * All integers are big endian.
+ */
+public class GameRecord {
+
+  /**
+   * The magic number at the start of every record.
+   */
+  public static final int MAGIC = 0x46435231;
+
+  /**
+   * The most moves a record can hold.
+   */
+  public static final int MAX_MOVES = 1 << 20;
+
+  private static final int FLAG_LAYOUT = 1;
+  private static final int FLAG_WON = 2;
+
+  private final int dealNumber;
+  private final byte[] layout;
+  private final int numCascades;
+  private final int numOpens;
+  private final byte[] moves;
+  private final boolean won;
+
+  /**
+   * Construct a record of a numbered deal.
+   *
+   * @param dealNumber a positive deal number, see {@link DealGenerator}
+   * @param numCascades number of cascade piles
+   * @param numOpens number of open piles
+   * @param moves the moves played in order
+   * @param won whether the moves end the game
+   * @throws IllegalArgumentException if an argument is invalid
+   */
+  public GameRecord(int dealNumber, int numCascades, int numOpens,
+      List<Move> moves, boolean won) throws IllegalArgumentException {
+    if (dealNumber < 1) {
+      throw new IllegalArgumentException("Wrong deal number: " + dealNumber);
+    }
+    this.dealNumber = dealNumber;
+    this.layout = null;
+    this.numCascades = checkCount(numCascades);
+    this.numOpens = checkCount(numOpens);
+    this.moves = packMoves(moves);
+    this.won = won;
+  }
+
+  /**
+   * Construct a record of a game dealt from the given deck without shuffling.
+   *
+   * @param deck the deck as dealt
+   * @param numCascades number of cascade piles
+   * @param numOpens number of open piles
+   * @param moves the moves played in order
+   * @param won whether the moves end the game
+   * @throws IllegalArgumentException if an argument is invalid
+   */
+  public GameRecord(List<Card> deck, int numCascades, int numOpens,
+      List<Move> moves, boolean won) throws IllegalArgumentException {
+    if (deck == null || !new DeckImpl(deck).isValidDeck()) {
+      throw new IllegalArgumentException("Not a valid deck");
+    }
+    this.dealNumber = 0;
+    this.layout = new byte[52];
+    for (int i = 0; i < 52; i++) {
+      layout[i] = (byte) CardCodes.toCode(deck.get(i));
+    }
+    this.numCascades = checkCount(numCascades);
+    this.numOpens = checkCount(numOpens);
+    this.moves = packMoves(moves);
+    this.won = won;
+  }
+
+  /**
+   * Construct a record from its decoded fields.
+   */
+  private GameRecord(int dealNumber, byte[] layout, int numCascades,
+      int numOpens, byte[] moves, boolean won) {
+    this.dealNumber = dealNumber;
+    this.layout = layout;
+    this.numCascades = numCascades;
+    this.numOpens = numOpens;
+    this.moves = moves;
+    this.won = won;
+  }
+
+  /**
+   * Get the deal number of this record.
+   *
+   * @return the deal number, or 0 if the record stores a layout
+   */
+  public int getDealNumber() {
+    return dealNumber;
+  }
+
+  /**
+   * Get the deck of this record, in dealing order.
+   *
+   * @return a new list of 52 cards
+   */
+  public List<Card> getDeck() {
+    if (layout == null) {
+      return new DealGenerator().getDeal(dealNumber);
+    }
+    List<Card> deck = new ArrayList<>();
+    for (byte b : layout) {
+      deck.add(CardCodes.fromCode(b).clone());
+    }
+    return deck;
+  }
+
+  public int getNumCascades() {
+    return numCascades;
+  }
+
+  public int getNumOpens() {
+    return numOpens;
+  }
+
+  /**
+   * Signal whether the game of this record was won.
+   *
+   * @return true if the moves end the game, false otherwise
+   */
+  public boolean isWon() {
+    return won;
+  }
+
+  /**
+   * Get the number of moves in this record.
+   *
+   * @return the number of moves
+   */
+  public int getNumMoves() {
+    return moves.length / 2;
+  }
+
+  /**
+   * Get the ith move of this record.
+   *
+   * @param index the move index, starting at 0
+   * @return the move
+   * @throws IllegalArgumentException if the index is invalid
+   */
+  public Move getMove(int index) throws IllegalArgumentException {
+    if (index < 0 || index >= getNumMoves()) {
+      throw new IllegalArgumentException("Wrong move index: " + index);
+    }
+    return Move.unpack(((moves[2 * index] & 0xFF) << 8)
+        | (moves[2 * index + 1] & 0xFF));
+  }
+
+  /**
+   * Get the moves of this record.
+   *
+   * @return a new list of moves in order
+   */
+  public List<Move> getMoves() {
+    List<Move> toReturn = new ArrayList<>();
+    for (int i = 0; i < getNumMoves(); i++) {
+      toReturn.add(getMove(i));
+    }
+    return toReturn;
+  }
+
+  /**
+   * Get the packed moves without copying them. The array must not be changed.
+   *
+   * @return two bytes per move
+   */
+  byte[] packedMoves() {
+    return moves;
+  }
+
+  /**
+   * Get the number of bytes this record takes when written.
+   *
+   * @return the number of bytes
+   */
+  public int getEncodedSize() {
+    return 4 + 1 + (layout == null ? 4 : 52) + 1 + 1 + 4 + moves.length;
+  }
+
+  /**
+   * Write this record.
+   *
+   * @param out the output to write to
+   * @throws IOException if writing fails
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeByte((layout == null ? 0 : FLAG_LAYOUT) | (won ? FLAG_WON : 0));
+    if (layout == null) {
+      out.writeInt(dealNumber);
+    } else {
+      out.write(layout);
+    }
+    out.writeByte(numCascades);
+    out.writeByte(numOpens);
+    out.writeInt(moves.length / 2);
+    out.write(moves);
+  }
+
+  /**
+   * Read a record written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in the input to read from
+   * @return the record
+   * @throws EOFException if the input ends before the first byte of a record
+   * @throws IOException if reading fails, the input is not a record or it
+   *         ends within a record
+   */
+  public static GameRecord readFrom(DataInput in) throws IOException {
+    int first = in.readUnsignedByte();
+    try {
+      return readRest(first, in);
+    } catch (EOFException e) {
+      throw new IOException("Truncated game record.", e);
+    }
+  }
+
+  /**
+   * Read a record after its first byte.
+   */
+  private static GameRecord readRest(int first, DataInput in)
+      throws IOException {
+    int magic = first << 24 | in.readUnsignedByte() << 16
+        | in.readUnsignedShort();
+    if (magic != MAGIC) {
+      throw new IOException("Not a game record: " + Integer.toHexString(magic));
+    }
+    int flags = in.readUnsignedByte();
+    int dealNumber = 0;
+    byte[] layout = null;
+    if ((flags & FLAG_LAYOUT) == 0) {
+      dealNumber = in.readInt();
+    } else {
+      layout = new byte[52];
+      in.readFully(layout);
+    }
+    int numCascades = in.readUnsignedByte();
+    int numOpens = in.readUnsignedByte();
+    int numMoves = in.readInt();
+    if (numMoves < 0 || numMoves > MAX_MOVES) {
+      throw new IOException("Wrong move count: " + numMoves);
+    }
+    byte[] moves = new byte[2 * numMoves];
+    in.readFully(moves);
+    return new GameRecord(dealNumber, layout, numCascades, numOpens, moves,
+        (flags & FLAG_WON) != 0);
+  }
+
+  /**
+   * Check that a pile count fits in one byte.
+   *
+   * @param count the pile count
+   * @return the count
+   * @throws IllegalArgumentException if the count does not fit
+   */
+  private static int checkCount(int count) throws IllegalArgumentException {
+    if (count < 0 || count > 0xFF) {
+      throw new IllegalArgumentException("Wrong pile count: " + count);
+    }
+    return count;
+  }
+
+  /**
+   * Pack a list of moves into two bytes each.
+   *
+   * @param moves the moves
+   * @return the packed moves
+   * @throws IllegalArgumentException if the list is null, longer than
+   *         {@link #MAX_MOVES} or a move cannot be packed
+   */
+  private static byte[] packMoves(List<Move> moves)
+      throws IllegalArgumentException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Moves cannot be null.");
+    }
+    if (moves.size() > MAX_MOVES) {
+      throw new IllegalArgumentException("Too many moves: " + moves.size());
+    }
+    byte[] packed = new byte[2 * moves.size()];
+    for (int i = 0; i < moves.size(); i++) {
+      int p;
+      try {
+        p = moves.get(i).pack();
+      } catch (IllegalStateException e) {
+        throw new IllegalArgumentException(e.getMessage());
+      }
+      packed[2 * i] = (byte) (p >> 8);
+      packed[2 * i + 1] = (byte) p;
+    }
+    return packed;
+  }
+}
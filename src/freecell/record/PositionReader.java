@@ -0,0 +1,100 @@
+package freecell.record;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import freecell.model.Position;
+import freecell.model.PositionCodec;
+
+/**
+ * This class reads a stream of positions written by {@link PositionWriter}.
+ * A reader is not safe for use by several threads.
+ */
+public class PositionReader implements Closeable {
+
+  private final DataInputStream in;
+  private final byte[] buffer = new byte[PositionCodec.MAX_BYTES];
+  private long count;
+
+  /**
+   * Constructor for PositionReader. Reads the magic number at once.
+   *
+   * @param in where to read, buffered by the reader
+   * @throws IllegalArgumentException if the input is null
+   * @throws IOException if reading fails or the input is not a stream of
+   *         positions
+   */
+  public PositionReader(InputStream in)
+      throws IllegalArgumentException, IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("Input cannot be null.");
+    }
+    this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    int magic = this.in.readInt();
+    if (magic != PositionWriter.MAGIC) {
+      throw new IOException("Not a position stream: "
+          + Integer.toHexString(magic));
+    }
+  }
+
+  /**
+   * Read the next position.
+   *
+   * @return the position, or null at the end of the stream
+   * @throws IOException if reading fails or the stream holds a bad position
+   */
+  public Position read() throws IOException {
+    int length = readEncoded(buffer);
+    if (length < 0) {
+      return null;
+    }
+    try {
+      return PositionCodec.decode(buffer, 0, length);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Bad position " + (count - 1), e);
+    }
+  }
+
+  /**
+   * Read the encoding of the next position without decoding it.
+   *
+   * @param encoding where to put the encoding, at least
+   *        {@link PositionCodec#MAX_BYTES} long
+   * @return the length of the encoding, or -1 at the end of the stream
+   * @throws IOException if reading fails or the stream is truncated
+   */
+  public int readEncoded(byte[] encoding) throws IOException {
+    int length = in.read();
+    if (length < 0) {
+      return -1;
+    }
+    if (length < 1 || length > PositionCodec.MAX_BYTES) {
+      throw new IOException("Wrong position length: " + length);
+    }
+    try {
+      in.readFully(encoding, 0, length);
+    } catch (EOFException e) {
+      throw new IOException("Truncated position " + count, e);
+    }
+    count++;
+    return length;
+  }
+
+  /**
+   * Get the number of positions read.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
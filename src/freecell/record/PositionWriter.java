@@ -0,0 +1,105 @@
+package freecell.record;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import freecell.model.Position;
+import freecell.model.PositionCodec;
+
+/**
+ * This class writes a stream of positions encoded by {@link PositionCodec}.
+ * The stream starts with {@link #MAGIC}, then every position is one byte of
+ * length followed by its encoding, so a deal takes 53 bytes. Nothing is
+ * allocated per position. A writer is not safe for use by several threads.
+ */
+public class PositionWriter implements Closeable {
+
+  /**
+   * The first four bytes of a stream of positions, "FCP1".
+   */
+  public static final int MAGIC = 0x46435031;
+
+  private final DataOutputStream out;
+  private final byte[] buffer = new byte[PositionCodec.MAX_BYTES];
+  private long count;
+
+  /**
+   * Constructor for PositionWriter. Writes the magic number at once.
+   *
+   * @param out where to write, buffered by the writer
+   * @throws IllegalArgumentException if the output is null
+   * @throws IOException if writing fails
+   */
+  public PositionWriter(OutputStream out)
+      throws IllegalArgumentException, IOException {
+    if (out == null) {
+      throw new IllegalArgumentException("Output cannot be null.");
+    }
+    this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    this.out.writeInt(MAGIC);
+  }
+
+  /**
+   * Write a position.
+   *
+   * @param p the position
+   * @throws IllegalArgumentException if the position is null or cannot be
+   *         encoded
+   * @throws IOException if writing fails
+   */
+  public void write(Position p) throws IllegalArgumentException, IOException {
+    if (p == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    int length = PositionCodec.encode(p, buffer, 0);
+    out.writeByte(length);
+    out.write(buffer, 0, length);
+    count++;
+  }
+
+  /**
+   * Write a position already encoded by {@link PositionCodec}.
+   *
+   * @param encoding the buffer holding the encoding
+   * @param offset where the encoding starts
+   * @param length the number of bytes of the encoding
+   * @throws IllegalArgumentException if the length is more than
+   *         {@link PositionCodec#MAX_BYTES}
+   * @throws IOException if writing fails
+   */
+  public void writeEncoded(byte[] encoding, int offset, int length)
+      throws IllegalArgumentException, IOException {
+    if (length < 1 || length > PositionCodec.MAX_BYTES) {
+      throw new IllegalArgumentException("Wrong length: " + length);
+    }
+    out.writeByte(length);
+    out.write(encoding, offset, length);
+    count++;
+  }
+
+  /**
+   * Get the number of positions written.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Write out the buffered positions.
+   *
+   * @throws IOException if writing fails
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
@@ -0,0 +1,110 @@
+package freecell.record;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+
+/**
+ * This class re-applies game records to a model. One model is reused for all
+ * the records replayed by an engine, so an engine must not be shared between
+ * threads. The moves are decoded straight from the packed bytes of a record.
+ */
+public class ReplayEngine {
+
+  private final FreecellModel model;
+  private long gamesReplayed;
+  private long movesReplayed;
+
+  /**
+   * Constructor for ReplayEngine.
+   */
+  public ReplayEngine() {
+    this.model = new FreecellModel();
+  }
+
+  /**
+   * Deal the game of a record and apply all of its moves.
+   *
+   * @param record the record to replay
+   * @return the model in the position after the last move, it is reused by the
+   *         next call to this method
+   * @throws IllegalArgumentException if the record is null, the game cannot
+   *         start, or a move is illegal
+   */
+  public FreecellModel replay(GameRecord record)
+      throws IllegalArgumentException {
+    if (record == null) {
+      throw new IllegalArgumentException("Record cannot be null.");
+    }
+    model.startGame(record.getDeck(), record.getNumCascades(),
+        record.getNumOpens(), false);
+
+    byte[] moves = record.packedMoves();
+    for (int i = 0; i < moves.length; i += 2) {
+      PileType source = Move.typeOf(moves[i]);
+      int sourcePile = moves[i] & Move.MAX_PACKED_PILE;
+      PileType destination = Move.typeOf(moves[i + 1]);
+      int destPile = moves[i + 1] & Move.MAX_PACKED_PILE;
+      try {
+        model.move(source, sourcePile, model.getPileSize(source, sourcePile) - 1,
+            destination, destPile);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Move " + (i / 2 + 1) + " failed: "
+            + e.getMessage());
+      }
+    }
+    gamesReplayed++;
+    movesReplayed += moves.length / 2;
+    return model;
+  }
+
+  /**
+   * Replay every record of a stream until its end.
+   *
+   * @param in a stream of records written by
+   *        {@link GameRecord#writeTo(java.io.DataOutput)}
+   * @return the number of records replayed
+   * @throws IOException if reading fails, or the stream holds something
+   *         other than records or ends within a record
+   * @throws IllegalArgumentException if a record cannot be replayed
+   */
+  public long replayAll(InputStream in) throws IOException,
+      IllegalArgumentException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    long count = 0;
+    while (true) {
+      GameRecord record;
+      try {
+        record = GameRecord.readFrom(data);
+      } catch (EOFException e) {
+        return count;
+      }
+      replay(record);
+      count++;
+    }
+  }
+
+  /**
+   * Get the number of records replayed successfully by this engine.
+   *
+   * @return the number of records
+   */
+  public long getGamesReplayed() {
+    return gamesReplayed;
+  }
+
+  /**
+   * Get the number of moves replayed by this engine in successful records.
+   *
+   * @return the number of moves
+   */
+  public long getMovesReplayed() {
+    return movesReplayed;
+  }
+}
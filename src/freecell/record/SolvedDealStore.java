@@ -0,0 +1,229 @@
+package freecell.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.Move;
+import freecell.solver.SolveResult;
+
+/**
+ * This class answers whether a numbered deal can be solved and with which
+ * moves, from a store written by {@link SolvedDealWriter}. A store is a
+ * directory of two files:
+ * <pre>
+ * solutions.dat  magic "FCSD", then records appended in any order:
+ *                deal 4 bytes, moveCount 2 bytes, moves 2 bytes each packed
+ *                as in {@link Move#pack()}
+ * solutions.idx  magic "FCSX", first deal 4 bytes, number of deals 4 bytes,
+ *                cascades 2 bytes, open piles 2 bytes, then 8 bytes for every
+ *                deal of the range: the offset of its record shifted left by
+ *                2 with the status in the low bits, 0 if not stored
+ * </pre>
+ * The index is memory mapped, so a lookup reads one entry at a computed
+ * offset and then only the record it points to. Entries written by a writer
+ * in the same process show up at once. All integers are big endian.
+ */
+public class SolvedDealStore implements Closeable {
+
+  /**
+   * The first four bytes of a data file, "FCSD".
+   */
+  public static final int DATA_MAGIC = 0x46435344;
+
+  /**
+   * The first four bytes of an index file, "FCSX".
+   */
+  public static final int INDEX_MAGIC = 0x46435358;
+
+  static final String DATA_FILE = "solutions.dat";
+  static final String INDEX_FILE = "solutions.idx";
+  static final int INDEX_HEADER_BYTES = 16;
+  static final int ENTRY_BYTES = 8;
+  static final int RECORD_HEADER_BYTES = 6;
+  static final int SOLVED = 1;
+  static final int NO_SOLUTION = 2;
+
+  private final FileChannel data;
+  private final ByteBuffer index;
+  private final int firstDeal;
+  private final int numDeals;
+  private final int numCascades;
+  private final int numOpens;
+
+  /**
+   * Construct a store over an open data file and a mapped index.
+   */
+  private SolvedDealStore(FileChannel data, ByteBuffer index) {
+    this.data = data;
+    this.index = index;
+    this.firstDeal = index.getInt(4);
+    this.numDeals = index.getInt(8);
+    this.numCascades = index.getShort(12);
+    this.numOpens = index.getShort(14);
+  }
+
+  /**
+   * Open a store for reading.
+   *
+   * @param directory the directory of the store
+   * @return the store
+   * @throws IOException if reading fails or the files are not a store
+   */
+  public static SolvedDealStore open(Path directory) throws IOException {
+    ByteBuffer index = mapIndex(directory.resolve(INDEX_FILE),
+        FileChannel.MapMode.READ_ONLY);
+    FileChannel data = FileChannel.open(directory.resolve(DATA_FILE),
+        StandardOpenOption.READ);
+    try {
+      checkData(data, directory);
+      return new SolvedDealStore(data, index);
+    } catch (IOException e) {
+      data.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Map an index file and check its header and size.
+   */
+  static MappedByteBuffer mapIndex(Path file, FileChannel.MapMode mode)
+      throws IOException {
+    StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+        ? new StandardOpenOption[] {StandardOpenOption.READ}
+        : new StandardOpenOption[] {StandardOpenOption.READ,
+            StandardOpenOption.WRITE};
+    try (FileChannel channel = FileChannel.open(file, options)) {
+      MappedByteBuffer map = channel.map(mode, 0, channel.size());
+      if (map.capacity() < INDEX_HEADER_BYTES
+          || map.getInt(0) != INDEX_MAGIC) {
+        throw new IOException("Not a solved deal index: " + file);
+      }
+      if (map.capacity() != INDEX_HEADER_BYTES
+          + (long) map.getInt(8) * ENTRY_BYTES) {
+        throw new IOException("Wrong solved deal index size: " + file);
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Check the magic number of a data file.
+   */
+  static void checkData(FileChannel data, Path directory) throws IOException {
+    ByteBuffer magic = ByteBuffer.allocate(4);
+    if (data.read(magic, 0) != 4 || magic.getInt(0) != DATA_MAGIC) {
+      throw new IOException("Not a solved deal store: " + directory);
+    }
+  }
+
+  public int getFirstDeal() {
+    return firstDeal;
+  }
+
+  public int getNumDeals() {
+    return numDeals;
+  }
+
+  public int getNumCascades() {
+    return numCascades;
+  }
+
+  public int getNumOpens() {
+    return numOpens;
+  }
+
+  /**
+   * To check whether a deal is in the range of this store.
+   *
+   * @param dealNumber the deal number
+   * @return true if the index has an entry for the deal
+   */
+  public boolean contains(int dealNumber) {
+    return dealNumber >= firstDeal && dealNumber - firstDeal < numDeals;
+  }
+
+  /**
+   * Get whether a deal can be solved.
+   *
+   * @param dealNumber the deal number
+   * @return {@link SolveResult.Status#SOLVED} or
+   *         {@link SolveResult.Status#NO_SOLUTION}, or null if the deal is not
+   *         stored yet
+   * @throws IllegalArgumentException if the deal is not in the range
+   */
+  public SolveResult.Status getStatus(int dealNumber)
+      throws IllegalArgumentException {
+    switch ((int) entry(dealNumber) & 3) {
+      case SOLVED:
+        return SolveResult.Status.SOLVED;
+      case NO_SOLUTION:
+        return SolveResult.Status.NO_SOLUTION;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Get the stored solution of a deal, reading only its record.
+   *
+   * @param dealNumber the deal number
+   * @return the moves, or null if the deal is not stored as solved
+   * @throws IllegalArgumentException if the deal is not in the range
+   * @throws IOException if reading fails or the record does not match
+   */
+  public List<Move> getSolution(int dealNumber)
+      throws IllegalArgumentException, IOException {
+    long entry = entry(dealNumber);
+    if ((entry & 3) != SOLVED) {
+      return null;
+    }
+    long offset = entry >>> 2;
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+    readFully(header, offset);
+    if (header.getInt(0) != dealNumber) {
+      throw new IOException("Record does not match deal: " + dealNumber);
+    }
+    int numMoves = header.getShort(4) & 0xFFFF;
+    ByteBuffer packed = ByteBuffer.allocate(2 * numMoves);
+    readFully(packed, offset + RECORD_HEADER_BYTES);
+    List<Move> moves = new ArrayList<>(numMoves);
+    for (int i = 0; i < numMoves; i++) {
+      moves.add(Move.unpack(packed.getShort(2 * i) & 0xFFFF));
+    }
+    return moves;
+  }
+
+  /**
+   * Helper method to read the index entry of a deal.
+   */
+  private long entry(int dealNumber) throws IllegalArgumentException {
+    if (!contains(dealNumber)) {
+      throw new IllegalArgumentException("Deal not in store: " + dealNumber);
+    }
+    return index.getLong(INDEX_HEADER_BYTES
+        + (dealNumber - firstDeal) * ENTRY_BYTES);
+  }
+
+  /**
+   * Helper method to fill a buffer from the data file.
+   */
+  private void readFully(ByteBuffer buffer, long offset) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (data.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("Record past the end of the data file.");
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+}
@@ -0,0 +1,78 @@
+package freecell.record;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.SolveResult;
+
+/**
+ * This class measures writing solutions to a {@link SolvedDealStore} from
+ * every core and looking them up.
+ */
+public class SolvedDealStoreBenchmark {
+
+  /**
+   * Solve a range of deals on every core into a new store, then time random
+   * lookups of their solutions.
+   *
+   * @param args the directory of the store, and optionally the number of
+   *        deals (default 200) and lookups (default 100000)
+   * @throws IOException if the store cannot be written or read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: SolvedDealStoreBenchmark DIRECTORY [DEALS] "
+          + "[LOOKUPS]");
+      System.exit(2);
+    }
+    Path directory = Paths.get(args[0]);
+    int numDeals = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    int numLookups = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+    Files.createDirectories(directory);
+
+    long begin = System.nanoTime();
+    AtomicInteger solved = new AtomicInteger();
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 1,
+        numDeals, 8, 4)) {
+      IntStream.rangeClosed(1, numDeals).parallel().forEach(deal -> {
+        FreecellModel model = new FreecellModel();
+        model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+        SolveResult result = new BestFirstSolver().solve(Position.of(model));
+        if (result.getStatus() != SolveResult.Status.GAVE_UP) {
+          try {
+            writer.put(deal, result);
+            solved.incrementAndGet();
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      });
+    }
+    System.out.printf("%d of %d deals stored in %.1f s%n", solved.get(),
+        numDeals, (System.nanoTime() - begin) / 1e9);
+
+    try (SolvedDealStore store = SolvedDealStore.open(directory)) {
+      Random random = new Random(7);
+      long moves = 0;
+      begin = System.nanoTime();
+      for (int i = 0; i < numLookups; i++) {
+        List<Move> solution = store.getSolution(1 + random.nextInt(numDeals));
+        moves += solution == null ? 0 : solution.size();
+      }
+      System.out.printf("%d lookups of %d moves in %d ms, %.2f us each%n",
+          numLookups, moves, (System.nanoTime() - begin) / 1_000_000,
+          (System.nanoTime() - begin) / 1e3 / numLookups);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package freecell.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import freecell.model.Move;
+import freecell.solver.SolveResult;
+
+/**
+ * This class appends solutions of numbered deals to a store read by
+ * {@link SolvedDealStore}, creating it if the directory has none. It is safe
+ * for use by several threads: each record gets its own range of the data file
+ * from an atomic end offset and is written there with a positional write, and
+ * only then is the index entry of its deal set, so an entry never points at
+ * a record that is not written yet. Storing a deal again appends a new record
+ * and moves its entry; old records stay in the data file. Only one writer may
+ * have a store open at a time; it holds a lock on the data file until it is
+ * closed.
+ */
+public class SolvedDealWriter implements Closeable {
+
+  private final FileChannel data;
+  private final MappedByteBuffer index;
+  private final AtomicLong end;
+  private final int firstDeal;
+  private final int numDeals;
+
+  /**
+   * Open a store for writing, creating it if it does not exist.
+   *
+   * @param directory the directory of the store, which must exist
+   * @param firstDeal the first deal number of a new store
+   * @param numDeals the number of deals of a new store
+   * @param numCascades the number of cascades the deals are solved with
+   * @param numOpens the number of open piles the deals are solved with
+   * @throws IllegalArgumentException if the range or a number of piles is
+   *         wrong, or the store exists with another range or piles
+   * @throws IOException if the files cannot be read or written, or another
+   *         writer has the store open
+   */
+  public SolvedDealWriter(Path directory, int firstDeal, int numDeals,
+      int numCascades, int numOpens)
+      throws IllegalArgumentException, IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Directory cannot be null.");
+    }
+    if (firstDeal < 1 || numDeals < 1
+        || (long) firstDeal + numDeals - 1 > Integer.MAX_VALUE
+        || numDeals > (Integer.MAX_VALUE - SolvedDealStore.INDEX_HEADER_BYTES)
+        / SolvedDealStore.ENTRY_BYTES) {
+      throw new IllegalArgumentException("Wrong range of deals.");
+    }
+    if (numCascades < 1 || numCascades > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Wrong number of cascades: "
+          + numCascades);
+    }
+    if (numOpens < 1 || numOpens > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Wrong number of opens: " + numOpens);
+    }
+    Path indexFile = directory.resolve(SolvedDealStore.INDEX_FILE);
+    Path dataFile = directory.resolve(SolvedDealStore.DATA_FILE);
+    if (!Files.exists(indexFile)) {
+      create(indexFile, dataFile, firstDeal, numDeals, numCascades, numOpens);
+    }
+    this.index = SolvedDealStore.mapIndex(indexFile,
+        FileChannel.MapMode.READ_WRITE);
+    if (index.getInt(4) != firstDeal || index.getInt(8) != numDeals
+        || index.getShort(12) != numCascades || index.getShort(14) != numOpens) {
+      throw new IllegalArgumentException("Store exists with other deals or "
+          + "piles: " + directory);
+    }
+    this.data = FileChannel.open(dataFile, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (data.tryLock() == null) {
+        throw new IOException("Store is open for writing: " + directory);
+      }
+      SolvedDealStore.checkData(data, directory);
+    } catch (OverlappingFileLockException e) {
+      data.close();
+      throw new IOException("Store is open for writing: " + directory, e);
+    } catch (IOException e) {
+      data.close();
+      throw e;
+    }
+    this.end = new AtomicLong(data.size());
+    this.firstDeal = firstDeal;
+    this.numDeals = numDeals;
+  }
+
+  /**
+   * Helper method to create the files of an empty store.
+   */
+  private static void create(Path indexFile, Path dataFile, int firstDeal,
+      int numDeals, int numCascades, int numOpens) throws IOException {
+    try (FileChannel channel = FileChannel.open(dataFile,
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      ByteBuffer magic = ByteBuffer.allocate(4);
+      magic.putInt(0, SolvedDealStore.DATA_MAGIC);
+      channel.write(magic);
+    }
+    try (FileChannel channel = FileChannel.open(indexFile,
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(
+          SolvedDealStore.INDEX_HEADER_BYTES);
+      header.putInt(SolvedDealStore.INDEX_MAGIC).putInt(firstDeal)
+          .putInt(numDeals).putShort((short) numCascades)
+          .putShort((short) numOpens).flip();
+      channel.write(header);
+      channel.write(ByteBuffer.allocate(1), SolvedDealStore.INDEX_HEADER_BYTES
+          + (long) numDeals * SolvedDealStore.ENTRY_BYTES - 1);
+    }
+  }
+
+  /**
+   * Store the result of solving a deal.
+   *
+   * @param dealNumber the deal number
+   * @param result a result that is solved or has no solution
+   * @throws IllegalArgumentException if the deal is not in the range of the
+   *         store, the result is null or gave up, or a move cannot be packed
+   * @throws IOException if writing fails
+   */
+  public void put(int dealNumber, SolveResult result)
+      throws IllegalArgumentException, IOException {
+    if (dealNumber < firstDeal || dealNumber - firstDeal >= numDeals) {
+      throw new IllegalArgumentException("Deal not in store: " + dealNumber);
+    }
+    if (result == null || result.getStatus() == SolveResult.Status.GAVE_UP) {
+      throw new IllegalArgumentException("Only settled results can be "
+          + "stored.");
+    }
+    long entry = SolvedDealStore.NO_SOLUTION;
+    if (result.isSolved()) {
+      List<Move> moves = result.getMoves();
+      if (moves.size() > 0xFFFF) {
+        throw new IllegalArgumentException("Too many moves: " + moves.size());
+      }
+      ByteBuffer record = ByteBuffer.allocate(
+          SolvedDealStore.RECORD_HEADER_BYTES + 2 * moves.size());
+      record.putInt(dealNumber).putShort((short) moves.size());
+      for (Move m : moves) {
+        try {
+          record.putShort((short) m.pack());
+        } catch (IllegalStateException e) {
+          throw new IllegalArgumentException(e.getMessage());
+        }
+      }
+      record.flip();
+      long offset = end.getAndAdd(record.remaining());
+      while (record.hasRemaining()) {
+        data.write(record, offset + record.position());
+      }
+      entry = offset << 2 | SolvedDealStore.SOLVED;
+    }
+    index.putLong(SolvedDealStore.INDEX_HEADER_BYTES
+        + (dealNumber - firstDeal) * SolvedDealStore.ENTRY_BYTES, entry);
+  }
+
+  /**
+   * Force the records and index written so far to the disk.
+   *
+   * @throws IOException if writing fails
+   */
+  public void flush() throws IOException {
+    data.force(false);
+    index.force();
+  }
+
+  /**
+   * Flush and close the store.
+   *
+   * @throws IOException if writing fails
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      data.close();
+    }
+  }
+}
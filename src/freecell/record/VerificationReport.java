@@ -0,0 +1,123 @@
+package freecell.record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents the result of verifying an archive of game records.
+ */
+public class VerificationReport {
+
+  private final long records;
+  private final long moves;
+  private final List<Failure> failures;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for VerificationReport.
+   *
+   * @param records number of records checked
+   * @param moves number of moves in the records checked
+   * @param failures the failed records, in any order
+   * @param elapsedNanos the time the verification took
+   */
+  public VerificationReport(long records, long moves, List<Failure> failures,
+      long elapsedNanos) {
+    this.records = records;
+    this.moves = moves;
+    this.failures = new ArrayList<>(failures);
+    Collections.sort(this.failures);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  public long getMoves() {
+    return moves;
+  }
+
+  /**
+   * Get the failed records ordered by their index in the archive.
+   *
+   * @return an unmodifiable list of failures
+   */
+  public List<Failure> getFailures() {
+    return Collections.unmodifiableList(failures);
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Get the number of moves replayed per second.
+   *
+   * @return moves per second, 0 if no time elapsed
+   */
+  public double getMovesPerSecond() {
+    return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * Get the number of records checked per second.
+   *
+   * @return records per second, 0 if no time elapsed
+   */
+  public double getRecordsPerSecond() {
+    return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder toReturn = new StringBuilder();
+    toReturn.append(String.format("Records: %d, moves: %d, failures: %d, "
+            + "time: %.3f s, %.0f records/s, %.0f moves/s", records, moves,
+        failures.size(), elapsedNanos / 1e9, getRecordsPerSecond(),
+        getMovesPerSecond()));
+    for (Failure f : failures) {
+      toReturn.append("\n").append(f);
+    }
+    return toReturn.toString();
+  }
+
+  /**
+   * This class represents a record that failed verification.
+   */
+  public static class Failure implements Comparable<Failure> {
+
+    private final long index;
+    private final String reason;
+
+    /**
+     * Constructor for Failure.
+     *
+     * @param index the index of the record in the archive, starting at 0
+     * @param reason why the record failed
+     */
+    public Failure(long index, String reason) {
+      this.index = index;
+      this.reason = reason;
+    }
+
+    public long getIndex() {
+      return index;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+
+    @Override
+    public int compareTo(Failure other) {
+      return Long.compare(index, other.index);
+    }
+
+    @Override
+    public String toString() {
+      return "Record " + index + ": " + reason;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package freecell.solver;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+import freecell.metrics.SolverEvent;
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * A single threaded weighted A* solver. Nodes are expanded in order of depth
+ * plus weight times the heuristic estimate; lower weights give shorter
+ * solutions, larger weights find solutions faster. Solutions are not
+ * guaranteed shortest, even with a weight of 1 and an admissible heuristic:
+ * a position is marked visited when it is generated, so a cheaper path found
+ * later is dropped, and safe moves to foundations are made without
+ * considering alternatives.
+ * Optionally, children that {@link DeadEndDetector#isBlocked(Position)}
+ * proves lost are not queued.
+ */
+public class BestFirstSolver implements Solver {
+
+  private final Heuristic heuristic;
+  private final int weight;
+  private final long maxNodes;
+  private final Supplier<VisitedSet> visited;
+  private final MoveGenerator generator;
+  private final DeadEndDetector deadEnds;
+
+  /**
+   * Construct a solver with the blocker heuristic, a weight of 3 and a limit
+   * of one million nodes.
+   */
+  public BestFirstSolver() {
+    this(new BlockerHeuristic(), 3, 1_000_000);
+  }
+
+  /**
+   * Construct a solver remembering visited positions exactly.
+   *
+   * @param heuristic the estimate of moves left
+   * @param weight the weight of the estimate, at least 1
+   * @param maxNodes the number of expanded nodes to give up after
+   * @throws IllegalArgumentException if the heuristic is null or a number is
+   *         not positive
+   */
+  public BestFirstSolver(Heuristic heuristic, int weight, long maxNodes)
+      throws IllegalArgumentException {
+    this(heuristic, weight, maxNodes, ExactVisitedSet::new);
+  }
+
+  /**
+   * Constructor for BestFirstSolver. With an inexact visited set a search
+   * that runs out of positions gives up rather than reporting no solution.
+   *
+   * @param heuristic the estimate of moves left
+   * @param weight the weight of the estimate, at least 1
+   * @param maxNodes the number of expanded nodes to give up after
+   * @param visited makes the visited set of each search
+   * @throws IllegalArgumentException if the heuristic or visited sets are
+   *         null or a number is not positive
+   */
+  public BestFirstSolver(Heuristic heuristic, int weight, long maxNodes,
+      Supplier<VisitedSet> visited) throws IllegalArgumentException {
+    this(heuristic, weight, maxNodes, visited, false);
+  }
+
+  /**
+   * Construct a solver that can prune children proven lost.
+   *
+   * @param heuristic the estimate of moves left
+   * @param weight the weight of the estimate, at least 1
+   * @param maxNodes the number of expanded nodes to give up after
+   * @param visited makes the visited set of each search
+   * @param pruneDeadEnds whether to skip children that cannot move at all
+   * @throws IllegalArgumentException if the heuristic or visited sets are
+   *         null or a number is not positive
+   */
+  public BestFirstSolver(Heuristic heuristic, int weight, long maxNodes,
+      Supplier<VisitedSet> visited, boolean pruneDeadEnds)
+      throws IllegalArgumentException {
+    if (heuristic == null || visited == null) {
+      throw new IllegalArgumentException("Heuristic and visited sets cannot "
+          + "be null.");
+    }
+    if (weight < 1 || maxNodes < 1) {
+      throw new IllegalArgumentException("Weight and node limit must be "
+          + "positive.");
+    }
+    this.heuristic = heuristic;
+    this.weight = weight;
+    this.maxNodes = maxNodes;
+    this.visited = visited;
+    this.generator = new MoveGenerator();
+    this.deadEnds = pruneDeadEnds ? new DeadEndDetector() : null;
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    SolverEvent event = new SolverEvent();
+    event.begin();
+    SolveResult result = search(start);
+    if (event.shouldCommit()) {
+      event.setResult(getName(), result.getStatus().name(), result.getNodes(),
+          result.getMoves().size());
+      event.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Search a position, without events.
+   */
+  private SolveResult search(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    PriorityQueue<SearchNode> open = new PriorityQueue<>(
+        (a, b) -> Integer.compare(a.priority, b.priority));
+    VisitedSet seen = visited.get();
+    open.add(new SearchNode(start, null, null, 0));
+    seen.add(start.canonicalHash());
+    long nodes = 0;
+
+    while (!open.isEmpty()) {
+      SearchNode node = open.poll();
+      if (node.position.isGameOver()) {
+        return new SolveResult(SolveResult.Status.SOLVED, node.path(), nodes,
+            System.nanoTime() - begin);
+      }
+      if (nodes >= maxNodes || Thread.currentThread().isInterrupted()) {
+        return new SolveResult(SolveResult.Status.GAVE_UP, null, nodes,
+            System.nanoTime() - begin);
+      }
+      nodes++;
+
+      Move safe = generator.safeMove(node.position);
+      List<Move> moves = safe == null ? generator.moves(node.position)
+          : Collections.singletonList(safe);
+      for (Move m : moves) {
+        Position child = node.position.move(m);
+        if (seen.add(child.canonicalHash())
+            && (deadEnds == null || !deadEnds.isBlocked(child))) {
+          open.add(new SearchNode(child, node, m, node.depth + 1
+              + weight * heuristic.estimate(child)));
+        }
+      }
+    }
+    return new SolveResult(seen.isExact() ? SolveResult.Status.NO_SOLUTION
+        : SolveResult.Status.GAVE_UP, null, nodes, System.nanoTime() - begin);
+  }
+
+  @Override
+  public String getName() {
+    return "best-first(w=" + weight + (deadEnds == null ? "" : ",pruned")
+        + ")";
+  }
+}
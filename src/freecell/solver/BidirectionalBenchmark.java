@@ -0,0 +1,75 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * This class compares the nodes {@link BidirectionalSolver} expands with
+ * and without its backward search, near the ends of the numbered deals.
+ */
+public class BidirectionalBenchmark {
+
+  /**
+   * Compare the nodes expanded by forward and bidirectional search from
+   * positions a number of moves before the end of a known solution of each
+   * deal. Whole deals are too deep for breadth first search either way.
+   *
+   * @param args the number of deals (default 10), the numbers of moves
+   *        before the end (default 6,10,14), and the node limit (default
+   *        2000000)
+   */
+  public static void main(String[] args) {
+    if (args.length > 3) {
+      System.err.println("Usage: BidirectionalBenchmark [DEALS] [DEPTHS] "
+          + "[NODES]");
+      System.exit(2);
+    }
+    int numDeals = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    String[] depths = (args.length > 1 ? args[1] : "6,10,14").split(",");
+    long maxNodes = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000;
+
+    List<List<Move>> solutions = new ArrayList<>();
+    List<Position> starts = new ArrayList<>();
+    for (int deal = 1; deal <= numDeals; deal++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+      Position p = Position.of(model);
+      starts.add(p);
+      solutions.add(new BestFirstSolver().solve(p).getMoves());
+    }
+
+    System.out.printf("%6s %-18s %8s %12s %10s %10s%n", "depth", "solver",
+        "solved", "nodes", "length", "ms");
+    for (String d : depths) {
+      int depth = Integer.parseInt(d.trim());
+      for (Solver solver : new Solver[] {new BidirectionalSolver(maxNodes,
+          false), new BidirectionalSolver(maxNodes)}) {
+        int solved = 0;
+        long nodes = 0;
+        long length = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < numDeals; i++) {
+          List<Move> moves = solutions.get(i);
+          Position p = starts.get(i);
+          for (Move m : moves.subList(0, Math.max(0, moves.size() - depth))) {
+            p = p.move(m);
+          }
+          SolveResult result = solver.solve(p);
+          nodes += result.getNodes();
+          if (result.isSolved()) {
+            solved++;
+            length += result.getMoves().size();
+          }
+        }
+        System.out.printf("%6d %-18s %8d %12d %10.1f %10d%n", depth,
+            solver.getName(), solved, nodes, (double) length / Math.max(1,
+            solved), (System.nanoTime() - begin) / 1_000_000);
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freecell.metrics.SolverEvent;
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * A breadth first solver that searches forwards from the start and backwards
+ * from the won position, which is the same for every deal, until the two
+ * searches meet. Each step expands a whole layer of the side with the smaller
+ * layer. Forward moves come from {@link MoveGenerator} and backward moves from
+ * {@link ReverseMoveGenerator}, which mirrors it, and positions are matched by
+ * {@link Position#canonicalHash()}.
+ *
+ * <p>A breadth first search to depth {@code d} sees about {@code b^d}
+ * positions; two searches that meet in the middle see about
+ * {@code 2 b^(d/2)}. Either search running out of positions proves there is
+ * no solution.</p>
+ */
+public class BidirectionalSolver implements Solver {
+
+  private final long maxNodes;
+  private final boolean backward;
+  private final MoveGenerator generator;
+  private final ReverseMoveGenerator reverse;
+
+  /**
+   * Constructor for BidirectionalSolver.
+   *
+   * @param maxNodes the number of expanded nodes to give up after
+   * @throws IllegalArgumentException if the node limit is not positive
+   */
+  public BidirectionalSolver(long maxNodes) throws IllegalArgumentException {
+    this(maxNodes, true);
+  }
+
+  /**
+   * Constructor for BidirectionalSolver that can search forwards only, to
+   * measure the benefit of the backward search.
+   */
+  BidirectionalSolver(long maxNodes, boolean backward)
+      throws IllegalArgumentException {
+    if (maxNodes < 1) {
+      throw new IllegalArgumentException("Node limit must be positive.");
+    }
+    this.maxNodes = maxNodes;
+    this.backward = backward;
+    this.generator = new MoveGenerator();
+    this.reverse = new ReverseMoveGenerator();
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    SolverEvent event = new SolverEvent();
+    event.begin();
+    SolveResult result = search(start);
+    if (event.shouldCommit()) {
+      event.setResult(getName(), result.getStatus().name(), result.getNodes(),
+          result.getMoves().size());
+      event.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Search a position, without events.
+   */
+  private SolveResult search(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    Position goal = Position.won(start.getNumOpens(), start.getNumCascades());
+    Side forwards = new Side(start);
+    Side backwards = new Side(backward ? goal : null);
+    long nodes = 0;
+
+    while (true) {
+      Node meeting = forwards.seen.get(goal.canonicalHash());
+      if (meeting != null) {
+        return new SolveResult(SolveResult.Status.SOLVED,
+            meeting.path(), nodes, System.nanoTime() - begin);
+      }
+      boolean forward = !backward
+          || forwards.layer.size() <= backwards.layer.size();
+      Side side = forward ? forwards : backwards;
+      Side other = forward ? backwards : forwards;
+      if (side.layer.isEmpty()) {
+        return new SolveResult(SolveResult.Status.NO_SOLUTION, null, nodes,
+            System.nanoTime() - begin);
+      }
+      List<Node> next = new ArrayList<>();
+      for (Node node : side.layer) {
+        if (nodes >= maxNodes || Thread.currentThread().isInterrupted()) {
+          return new SolveResult(SolveResult.Status.GAVE_UP, null, nodes,
+              System.nanoTime() - begin);
+        }
+        nodes++;
+        for (Move m : forward ? generator.moves(node.position)
+            : reverse.moves(node.position)) {
+          Position child = forward ? node.position.move(m)
+              : node.position.takeBack(m);
+          long hash = child.canonicalHash();
+          if (side.seen.containsKey(hash)) {
+            continue;
+          }
+          Node added = new Node(child, node, m);
+          side.seen.put(hash, added);
+          next.add(added);
+          Node match = other.seen.get(hash);
+          if (match != null) {
+            Node front = forward ? added : match;
+            Node back = forward ? match : added;
+            return new SolveResult(SolveResult.Status.SOLVED,
+                join(front, back), nodes, System.nanoTime() - begin);
+          }
+        }
+      }
+      side.layer = next;
+    }
+  }
+
+  /**
+   * Helper method to join the path to a forward node with the path from a
+   * backward node with the same canonical hash to the won position. The piles
+   * of the backward positions may be in another order than the forward ones,
+   * so each backward move is matched by a forward move from the real
+   * position.
+   */
+  private List<Move> join(Node front, Node back) {
+    List<Move> moves = new ArrayList<>(front.path());
+    Position p = front.position;
+    for (Node n = back; n.parent != null; n = n.parent) {
+      long target = n.parent.position.canonicalHash();
+      Move found = null;
+      for (Move m : generator.moves(p)) {
+        if (p.move(m).canonicalHash() == target) {
+          found = m;
+          break;
+        }
+      }
+      if (found == null) {
+        throw new IllegalStateException("Searches do not join.");
+      }
+      moves.add(found);
+      p = p.move(found);
+    }
+    return moves;
+  }
+
+  @Override
+  public String getName() {
+    return backward ? "bidirectional-bfs" : "forward-bfs";
+  }
+
+  /**
+   * The positions seen by a search in one direction and its last layer.
+   */
+  private static class Side {
+    private final Map<Long, Node> seen = new HashMap<>();
+    private List<Node> layer = new ArrayList<>();
+
+    /**
+     * Start a side from a position, or leave it empty if null.
+     */
+    Side(Position root) {
+      if (root != null) {
+        Node node = new Node(root, null, null);
+        seen.put(root.canonicalHash(), node);
+        layer.add(node);
+      }
+    }
+  }
+
+  /**
+   * A position reached by a search with the move between it and its parent:
+   * from the parent to it forwards, from it to the parent backwards.
+   */
+  private static class Node {
+    private final Position position;
+    private final Node parent;
+    private final Move move;
+
+    Node(Position position, Node parent, Move move) {
+      this.position = position;
+      this.parent = parent;
+      this.move = move;
+    }
+
+    /**
+     * Get the moves from the root to this node of a forward search.
+     */
+    List<Move> path() {
+      List<Move> moves = new ArrayList<>();
+      for (Node n = this; n.parent != null; n = n.parent) {
+        moves.add(n.move);
+      }
+      Collections.reverse(moves);
+      return moves;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package freecell.solver;
+
+import java.util.Arrays;
+
+import freecell.model.CardCodes;
+import freecell.model.Position;
+
+/**
+ * An admissible heuristic counting one move for every card not on a foundation
+ * and one more for every cascade card that lies above a lower card of its own
+ * suit. Such a card has to leave its cascade before the lower card can reach
+ * the foundation, so it cannot go to the foundation in one move.
+ */
+public class BlockerHeuristic implements Heuristic {
+
+  @Override
+  public int estimate(Position p) {
+    int estimate = 52 - p.getCardsOnFoundations();
+    int[] lowest = new int[4];
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      Arrays.fill(lowest, 14);
+      for (int j = 0; j < p.getCascadeSize(i); j++) {
+        int card = p.getCascadeCard(i, j);
+        int suit = CardCodes.suit(card);
+        int value = CardCodes.value(card);
+        if (lowest[suit] < value) {
+          estimate++;
+        } else {
+          lowest[suit] = value;
+        }
+      }
+    }
+    return estimate;
+  }
+}
@@ -0,0 +1,142 @@
+package freecell.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A visited set of fixed size, a blocked Bloom filter. The filter is split
+ * into blocks of 512 bits, one cache line of 8 words. A hash picks one block
+ * and sets one bit in each of its 8 words, so adding or checking a hash reads
+ * a single cache line. Bits are set by compare and swap, so the set is safe
+ * for use by several threads without locks.
+ *
+ * <p>A hash whose 8 bits were all set by other hashes is wrongly taken as
+ * visited. With {@code b} bits per hash added the chance of that is about
+ * {@code (1 - e^(-8/b))^8}: 2.6% at 1 byte per hash and 0.06% at 2, against
+ * the {@value ExactVisitedSet#BYTES_PER_HASH} bytes per hash of an exact
+ * set.</p>
+ */
+public class BloomVisitedSet implements VisitedSet {
+
+  private static final int BLOCK_BYTES = 64;
+  private static final int WORDS_PER_BLOCK = 8;
+
+  private final AtomicLongArray bits;
+  private final long numBlocks;
+  private final LongAdder size = new LongAdder();
+
+  /**
+   * Constructor for BloomVisitedSet.
+   *
+   * @param memoryBytes the memory to use, rounded down to a block of 64 bytes
+   * @throws IllegalArgumentException if the memory is less than one block or
+   *         more than an array can hold
+   */
+  public BloomVisitedSet(long memoryBytes) throws IllegalArgumentException {
+    long blocks = memoryBytes / BLOCK_BYTES;
+    if (blocks < 1 || blocks * WORDS_PER_BLOCK > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Wrong memory: " + memoryBytes);
+    }
+    this.numBlocks = blocks;
+    this.bits = new AtomicLongArray((int) (blocks * WORDS_PER_BLOCK));
+  }
+
+  @Override
+  public boolean add(long hash) {
+    long h = mix(hash);
+    int base = block(h);
+    h = spread(h);
+    boolean added = false;
+    for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+      long bit = 1L << (h >>> (6 * i));
+      int index = base + i;
+      long word = bits.get(index);
+      while ((word & bit) == 0) {
+        if (bits.compareAndSet(index, word, word | bit)) {
+          added = true;
+          break;
+        }
+        word = bits.get(index);
+      }
+    }
+    if (added) {
+      size.increment();
+    }
+    return added;
+  }
+
+  @Override
+  public boolean contains(long hash) {
+    long h = mix(hash);
+    int base = block(h);
+    h = spread(h);
+    for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+      if ((bits.get(base + i) & 1L << (h >>> (6 * i))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public long size() {
+    return size.sum();
+  }
+
+  @Override
+  public long getMemoryBytes() {
+    return numBlocks * BLOCK_BYTES;
+  }
+
+  @Override
+  public boolean isExact() {
+    return false;
+  }
+
+  /**
+   * Get the chance that a hash not added is taken as visited, estimated from
+   * the number of hashes added so far.
+   *
+   * @return the false positive rate
+   */
+  public double getFalsePositiveRate() {
+    double bitsPerHash = (double) getMemoryBytes() * 8 / Math.max(1, size());
+    return Math.pow(1 - Math.exp(-WORDS_PER_BLOCK / bitsPerHash),
+        WORDS_PER_BLOCK);
+  }
+
+  /**
+   * Helper method to get the first word of the block of a mixed hash, from
+   * its high 30 bits.
+   */
+  private int block(long h) {
+    return (int) ((h >>> 34) * numBlocks >>> 30) * WORDS_PER_BLOCK;
+  }
+
+  /**
+   * Helper method to get the bits within a block from a mixed hash. The high
+   * bits of the product depend on the low bits of the hash, which do not choose
+   * the block.
+   */
+  private static long spread(long h) {
+    return (h * 0x9E3779B97F4A7C15L) >>> 16;
+  }
+
+  /**
+   * Scramble the bits of a hash, the finalizer of the 64 bit MurmurHash3.
+   */
+  private static long mix(long v) {
+    v ^= v >>> 33;
+    v *= 0xFF51AFD7ED558CCDL;
+    v ^= v >>> 33;
+    v *= 0xC4CEB93FE53494E7L;
+    v ^= v >>> 33;
+    return v;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("bloom(%d KB, %d hashes, fpp %.4f%%)",
+        getMemoryBytes() >> 10, size(), 100 * getFalsePositiveRate());
+  }
+}
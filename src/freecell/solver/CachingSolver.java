@@ -0,0 +1,78 @@
+package freecell.solver;
+
+import freecell.model.Position;
+
+/**
+ * A solver that answers from a {@link PositionCache} of earlier results and
+ * asks another solver only on a miss. Only results that settle a position,
+ * solved or no solution, are cached; a solver that gave up may do better with
+ * another try. A cached answer reports no nodes and the time of the lookup.
+ * Wrapping a {@link CoalescingSolver} also shares the misses that arrive
+ * together.
+ */
+public class CachingSolver implements Solver {
+
+  private final Solver solver;
+  private final PositionCache<SolveResult> cache;
+
+  /**
+   * Construct a solver with its own cache.
+   *
+   * @param solver the solver to ask on a miss
+   * @param capacity the most results to cache
+   * @throws IllegalArgumentException if the solver is null or the capacity is
+   *         less than 2
+   */
+  public CachingSolver(Solver solver, int capacity)
+      throws IllegalArgumentException {
+    this(solver, new PositionCache<>(capacity));
+  }
+
+  /**
+   * Construct a solver with a cache that may be shared.
+   *
+   * @param solver the solver to ask on a miss
+   * @param cache the cache of results
+   * @throws IllegalArgumentException if an argument is null
+   */
+  public CachingSolver(Solver solver, PositionCache<SolveResult> cache)
+      throws IllegalArgumentException {
+    if (solver == null || cache == null) {
+      throw new IllegalArgumentException("Solver and cache cannot be null.");
+    }
+    this.solver = solver;
+    this.cache = cache;
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    SolveResult cached = cache.get(start);
+    if (cached != null) {
+      return new SolveResult(cached.getStatus(), cached.getMoves(), 0,
+          System.nanoTime() - begin);
+    }
+    SolveResult result = solver.solve(start);
+    if (result.getStatus() != SolveResult.Status.GAVE_UP) {
+      cache.put(start, result);
+    }
+    return result;
+  }
+
+  /**
+   * Get the cache of this solver, with its hit rate.
+   *
+   * @return the cache
+   */
+  public PositionCache<SolveResult> getCache() {
+    return cache;
+  }
+
+  @Override
+  public String getName() {
+    return "caching(" + solver.getName() + ")";
+  }
+}
@@ -0,0 +1,70 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class measures how many searches {@link CoalescingSolver} saves on
+ * bursts of identical requests.
+ */
+public class CoalescingBenchmark {
+
+  /**
+   * Send bursts of identical requests from many threads, as when many players
+   * of a tournament ask about the same deal, with and without coalescing.
+   *
+   * @param args the number of threads (default 32) and deals (default 10)
+   * @throws Exception if a request fails
+   */
+  public static void main(String[] args) throws Exception {
+    int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+    int numDeals = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      for (boolean coalesce : new boolean[] {false, true}) {
+        LongAdder searches = new LongAdder();
+        Solver counted = new Solver() {
+          private final Solver inner = new BestFirstSolver();
+
+          @Override
+          public SolveResult solve(Position start) {
+            searches.increment();
+            return inner.solve(start);
+          }
+
+          @Override
+          public String getName() {
+            return inner.getName();
+          }
+        };
+        Solver solver = coalesce ? new CoalescingSolver(counted) : counted;
+        long begin = System.nanoTime();
+        for (int deal = 1; deal <= numDeals; deal++) {
+          FreecellModel model = new FreecellModel();
+          model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+          Position p = Position.of(model);
+          List<Future<SolveResult>> burst = new ArrayList<>();
+          for (int i = 0; i < numThreads; i++) {
+            burst.add(executor.submit(() -> solver.solve(p)));
+          }
+          for (Future<SolveResult> f : burst) {
+            f.get();
+          }
+        }
+        System.out.printf("%-28s %6d requests %6d searches %8d ms%n",
+            solver.getName(), numThreads * numDeals, searches.sum(),
+            (System.nanoTime() - begin) / 1_000_000);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package freecell.solver;
+
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * A hint engine that makes concurrent hints for the same position share one
+ * search, through a {@link SingleFlight} keyed by the position. Only
+ * {@link #hint(Position)} is shared, since every caller of it has the same
+ * budget; a hint with its own deadline runs its own search. A caller
+ * interrupted while waiting for a shared hint gets no hint.
+ */
+public class CoalescingHintEngine extends HintEngine {
+
+  private final SingleFlight<Position, Move> flight = new SingleFlight<>();
+
+  /**
+   * Construct an engine with the blocker heuristic and the default budget.
+   */
+  public CoalescingHintEngine() {
+    super();
+  }
+
+  /**
+   * Construct an engine that probes an endgame tablebase.
+   *
+   * @param heuristic the estimate of moves left
+   * @param budgetNanos the time budget of {@link #hint(Position)}
+   * @param tablebase the tablebase, or null for none
+   * @throws IllegalArgumentException if the heuristic is null or the budget is
+   *         not positive
+   */
+  public CoalescingHintEngine(Heuristic heuristic, long budgetNanos,
+      EndgameTablebase tablebase) throws IllegalArgumentException {
+    super(heuristic, budgetNanos, tablebase);
+  }
+
+  @Override
+  public Move hint(Position p) throws IllegalArgumentException {
+    if (p == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    try {
+      return flight.run(p, () -> super.hint(p));
+    } catch (IllegalStateException e) {
+      if (!Thread.currentThread().isInterrupted()) {
+        throw e;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Get the calls and sharing of this engine.
+   *
+   * @return the single flight
+   */
+  public SingleFlight<Position, Move> getFlight() {
+    return flight;
+  }
+}
@@ -0,0 +1,63 @@
+package freecell.solver;
+
+import freecell.model.Position;
+
+/**
+ * A solver that makes concurrent requests to solve the same position share
+ * one search of another solver, through a {@link SingleFlight} keyed by the
+ * position. Positions are matched exactly, not by canonical hash, since a
+ * solution names piles by number. The search runs on the thread of the first
+ * request, so interrupting that thread makes every request sharing it give
+ * up; interrupting a request that waits for it makes only that request give
+ * up.
+ */
+public class CoalescingSolver implements Solver {
+
+  private final Solver solver;
+  private final SingleFlight<Position, SolveResult> flight =
+      new SingleFlight<>();
+
+  /**
+   * Constructor for CoalescingSolver.
+   *
+   * @param solver the solver to share
+   * @throws IllegalArgumentException if the solver is null
+   */
+  public CoalescingSolver(Solver solver) throws IllegalArgumentException {
+    if (solver == null) {
+      throw new IllegalArgumentException("Solver cannot be null.");
+    }
+    this.solver = solver;
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    try {
+      return flight.run(start, () -> solver.solve(start));
+    } catch (IllegalStateException e) {
+      if (!Thread.currentThread().isInterrupted()) {
+        throw e;
+      }
+      return new SolveResult(SolveResult.Status.GAVE_UP, null, 0,
+          System.nanoTime() - begin);
+    }
+  }
+
+  /**
+   * Get the calls and sharing of this solver.
+   *
+   * @return the single flight
+   */
+  public SingleFlight<Position, SolveResult> getFlight() {
+    return flight;
+  }
+
+  @Override
+  public String getName() {
+    return "coalescing(" + solver.getName() + ")";
+  }
+}
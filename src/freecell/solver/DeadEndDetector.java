@@ -0,0 +1,245 @@
+package freecell.solver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+
+/**
+ * This class detects positions from which the game can never be won, and play
+ * that makes no progress. Lost positions are found with two checks:
+ * <ul>
+ * <li>{@link #isBlocked(Position)} looks only at the top cards: with no free
+ * space left, every card the foundations need next is buried under other
+ * cards and no top card fits on another. It allocates nothing, so solvers
+ * can run it on every child they generate.</li>
+ * <li>{@link #isLost(Position)} searches every position reachable from a
+ * position without finding a win, bounded by a node budget; a position whose
+ * search runs out of budget is not reported as lost.</li>
+ * </ul>
+ * Both consider all legal moves, including moves off foundations, so a
+ * position reported lost really is lost.
+ *
+ * <p>Positions with an empty open pile or an empty cascade almost never are
+ * dead ends, so {@link #isTight(Position)} tells callers when a proof is worth
+ * trying.</p>
+ *
+ * <p>Play that goes round in circles is found by a {@link LoopCheck}, which
+ * follows the positions of one game and reports a position that repeats one
+ * of the last moves made since a card last went to a foundation.</p>
+ */
+public class DeadEndDetector {
+
+  private final int nodeBudget;
+  private final int loopWindow;
+  private final MoveGenerator generator;
+
+  /**
+   * Construct a detector with a budget of 2000 positions and a loop window
+   * of 64 moves.
+   */
+  public DeadEndDetector() {
+    this(2000);
+  }
+
+  /**
+   * Construct a detector with a loop window of 64 moves.
+   *
+   * @param nodeBudget the number of positions a proof may search
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public DeadEndDetector(int nodeBudget) throws IllegalArgumentException {
+    this(nodeBudget, 64);
+  }
+
+  /**
+   * Constructor for DeadEndDetector.
+   *
+   * @param nodeBudget the number of positions a proof may search
+   * @param loopWindow the number of moves a {@link LoopCheck} looks back
+   * @throws IllegalArgumentException if the budget or window is not positive
+   */
+  public DeadEndDetector(int nodeBudget, int loopWindow)
+      throws IllegalArgumentException {
+    if (nodeBudget < 1 || loopWindow < 1) {
+      throw new IllegalArgumentException("Budget and window must be "
+          + "positive.");
+    }
+    this.nodeBudget = nodeBudget;
+    this.loopWindow = loopWindow;
+    this.generator = new MoveGenerator(true);
+  }
+
+  /**
+   * Start following the positions of a new game.
+   *
+   * @return a loop check with the window of this detector
+   */
+  public LoopCheck loopCheck() {
+    return new LoopCheck(loopWindow);
+  }
+
+  /**
+   * To check statically whether a position is lost because nothing can ever
+   * move again: there is no free space, no top card of a cascade or open pile
+   * can go to a foundation, so the cards the foundations need are buried, and
+   * no top card of any pile fits on the top card of another cascade. Only the
+   * top cards are read and nothing is allocated.
+   *
+   * @param p a position
+   * @return true if the game is not over and nothing can move
+   */
+  public boolean isBlocked(Position p) {
+    if (p.isGameOver() || !isTight(p)) {
+      return false;
+    }
+    for (int i = 0; i < p.getNumOpens(); i++) {
+      if (fits(p, p.getOpenCard(i), -1, true)) {
+        return false;
+      }
+    }
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      if (fits(p, p.getCascadeCard(i, p.getCascadeSize(i) - 1), i, true)) {
+        return false;
+      }
+    }
+    for (int i = 0; i < p.getNumFoundations(); i++) {
+      int top = p.getFoundationTop(i);
+      if (top >= 0 && fits(p, top, -1, false)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper method to check whether a card can go on another cascade than its
+   * own or, if asked, to a foundation.
+   */
+  private static boolean fits(Position p, int card, int cascade,
+      boolean toFoundation) {
+    if (toFoundation) {
+      for (int i = 0; i < p.getNumFoundations(); i++) {
+        if (p.accepts(card, PileType.FOUNDATION, i)) {
+          return true;
+        }
+      }
+    }
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      if (i != cascade && p.accepts(card, PileType.CASCADE, i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * To check whether a position has no empty open pile and no empty cascade.
+   *
+   * @param p a position
+   * @return true if there is no free space
+   */
+  public boolean isTight(Position p) {
+    for (int i = 0; i < p.getNumOpens(); i++) {
+      if (p.getOpenCard(i) < 0) {
+        return false;
+      }
+    }
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      if (p.getCascadeSize(i) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * To check whether a position is proven lost within the node budget.
+   *
+   * @param p a position
+   * @return true if no win is reachable, false if a win may be reachable
+   * @throws IllegalArgumentException if the position is null
+   */
+  public boolean isLost(Position p) throws IllegalArgumentException {
+    if (p == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    if (isBlocked(p)) {
+      return true;
+    }
+    Set<Long> seen = new HashSet<>();
+    Deque<Position> stack = new ArrayDeque<>();
+    seen.add(p.canonicalHash());
+    stack.push(p);
+    while (!stack.isEmpty()) {
+      Position current = stack.pop();
+      if (current.isGameOver()) {
+        return false;
+      }
+      for (Move m : generator.moves(current)) {
+        Position child = current.move(m);
+        if (seen.add(child.canonicalHash())) {
+          if (seen.size() > nodeBudget) {
+            return false;
+          }
+          stack.push(child);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * This class follows the positions of one game and reports play that makes
+   * no progress: coming back to a position reached within the last moves,
+   * with no card put on a foundation since. Positions are compared by
+   * {@link Position#canonicalHash()}, so positions that only differ by the
+   * order of their piles count as the same position. The last hashes are kept
+   * in a ring of the window size, and forgotten when the foundations grow.
+   */
+  public static class LoopCheck {
+    private final long[] recent;
+    private int next;
+    private int size;
+    private int onFoundations = -1;
+
+    /**
+     * Construct a check looking back a number of moves.
+     */
+    LoopCheck(int window) {
+      this.recent = new long[window];
+    }
+
+    /**
+     * Record the next position of the game.
+     *
+     * @param p the start position, or the position after a move
+     * @return true if the position repeats one of the window with no card put
+     *         on a foundation since
+     * @throws IllegalArgumentException if the position is null
+     */
+    public boolean visit(Position p) throws IllegalArgumentException {
+      if (p == null) {
+        throw new IllegalArgumentException("Position cannot be null.");
+      }
+      if (p.getCardsOnFoundations() > onFoundations) {
+        onFoundations = p.getCardsOnFoundations();
+        next = 0;
+        size = 0;
+      }
+      long h = p.canonicalHash();
+      boolean repeated = false;
+      for (int i = 0; i < size && !repeated; i++) {
+        repeated = recent[i] == h;
+      }
+      recent[next] = h;
+      next = (next + 1) % recent.length;
+      size = Math.min(size + 1, recent.length);
+      return repeated;
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package freecell.solver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.CardCodes;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+
+/**
+ * This class holds the exact number of moves to win from every winnable
+ * position with at most a given number of cards off the foundations, for one
+ * number of open piles and cascades. It is built by retrograde analysis: a
+ * breadth first search backwards from the won position with
+ * {@link ReverseMoveGenerator}, never taking back a move that would leave more
+ * cards off the foundations. Moves of {@link MoveGenerator} never take a card
+ * off a foundation, so every position on the way to a win from a covered
+ * position is covered too, and the depth at which the search first reaches a
+ * position is its exact distance to win. A covered position the search never
+ * reaches cannot be won with those moves; it may still be won by taking cards
+ * back off the foundations, which {@link MoveGenerator} does not do by default.
+ *
+ * <p>Distances are stored in an open addressing hash table of longs keyed by
+ * {@link Position#canonicalHash()}: the high 56 bits of the hash with the
+ * distance plus one in the low byte, 0 for an empty slot. The table is half
+ * full at most, so a lookup reads one or two slots. The file is the header
+ * followed by the table, and is memory mapped when loaded.</p>
+ */
+public class EndgameTablebase {
+
+  /**
+   * The first four bytes of a tablebase file, "FCEB".
+   */
+  public static final int MAGIC = 0x46434542;
+
+  /**
+   * The distance of a covered position that cannot be won with moves of
+   * {@link MoveGenerator}, which never take a card off a foundation. It does
+   * not prove that the position cannot be won at all.
+   */
+  public static final int UNWINNABLE = -1;
+
+  /**
+   * The distance of a position the tablebase does not cover.
+   */
+  public static final int UNKNOWN = -2;
+
+  private static final int HEADER_BYTES = 32;
+  private static final int MAX_DISTANCE = 254;
+  private static final long KEY_MASK = ~0xFFL;
+
+  private final int numOpens;
+  private final int numCascades;
+  private final int maxCards;
+  private final int size;
+  private final LongBuffer table;
+  private final int shift;
+  private final MoveGenerator generator = new MoveGenerator();
+
+  /**
+   * Construct a tablebase over a table.
+   */
+  private EndgameTablebase(int numOpens, int numCascades, int maxCards,
+      int size, LongBuffer table) {
+    this.numOpens = numOpens;
+    this.numCascades = numCascades;
+    this.maxCards = maxCards;
+    this.size = size;
+    this.table = table;
+    this.shift = 64 - Integer.numberOfTrailingZeros(table.capacity());
+  }
+
+  /**
+   * Build a tablebase in memory.
+   *
+   * @param numOpens the number of open piles
+   * @param numCascades the number of cascades
+   * @param maxCards the most cards off the foundations of a covered position
+   * @return the tablebase
+   * @throws IllegalArgumentException if a number is out of range
+   */
+  public static EndgameTablebase build(int numOpens, int numCascades,
+      int maxCards) throws IllegalArgumentException {
+    if (maxCards < 1 || maxCards > CardCodes.NUM_CODES) {
+      throw new IllegalArgumentException("Wrong number of cards: " + maxCards);
+    }
+    Position goal = Position.won(numOpens, numCascades);
+    ReverseMoveGenerator reverse = new ReverseMoveGenerator();
+    Table distances = new Table();
+    distances.put(goal.canonicalHash(), 0);
+    List<Position> layer = new ArrayList<>();
+    layer.add(goal);
+    for (int depth = 1; !layer.isEmpty(); depth++) {
+      if (depth > MAX_DISTANCE) {
+        throw new IllegalArgumentException("Too many cards: " + maxCards);
+      }
+      List<Position> next = new ArrayList<>();
+      for (Position p : layer) {
+        int off = CardCodes.NUM_CODES - p.getCardsOnFoundations();
+        for (Move m : reverse.moves(p)) {
+          if (off == maxCards && m.getDestination() == PileType.FOUNDATION) {
+            continue;
+          }
+          Position before = p.takeBack(m);
+          if (distances.put(before.canonicalHash(), depth)) {
+            next.add(before);
+          }
+        }
+      }
+      layer = next;
+    }
+    return new EndgameTablebase(numOpens, numCascades, maxCards,
+        distances.size, LongBuffer.wrap(distances.slots));
+  }
+
+  /**
+   * Load a tablebase from a file by mapping it in memory.
+   *
+   * @param file the file written by {@link #write(Path)}
+   * @return the tablebase
+   * @throws IOException if reading fails or the file is not a tablebase
+   */
+  public static EndgameTablebase load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+        throw new IOException("Not a tablebase: " + file);
+      }
+      int numOpens = map.getInt(4);
+      int numCascades = map.getInt(8);
+      int maxCards = map.getInt(12);
+      int size = map.getInt(16);
+      int capacity = map.getInt(20);
+      if (Integer.bitCount(capacity) != 1
+          || map.capacity() != HEADER_BYTES + 8L * capacity) {
+        throw new IOException("Wrong tablebase size: " + file);
+      }
+      map.position(HEADER_BYTES);
+      return new EndgameTablebase(numOpens, numCascades, maxCards, size,
+          map.slice().asLongBuffer());
+    }
+  }
+
+  /**
+   * Write this tablebase to a file.
+   *
+   * @param file the file
+   * @throws IOException if writing fails
+   */
+  public void write(Path file) throws IOException {
+    try (OutputStream stream = new FileOutputStream(file.toFile());
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(stream, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(numOpens);
+      out.writeInt(numCascades);
+      out.writeInt(maxCards);
+      out.writeInt(size);
+      out.writeInt(table.capacity());
+      out.writeLong(0);
+      for (int i = 0; i < table.capacity(); i++) {
+        out.writeLong(table.get(i));
+      }
+    }
+  }
+
+  public int getNumOpens() {
+    return numOpens;
+  }
+
+  public int getNumCascades() {
+    return numCascades;
+  }
+
+  public int getMaxCards() {
+    return maxCards;
+  }
+
+  /**
+   * Get the number of winnable positions in this tablebase.
+   *
+   * @return the number of positions
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * To check whether this tablebase covers a position: it has the same piles
+   * and at most {@link #getMaxCards()} cards off the foundations.
+   *
+   * @param p a position
+   * @return true if covered
+   */
+  public boolean covers(Position p) {
+    return p.getNumOpens() == numOpens && p.getNumCascades() == numCascades
+        && CardCodes.NUM_CODES - p.getCardsOnFoundations() <= maxCards;
+  }
+
+  /**
+   * Get the number of moves to win from a position.
+   *
+   * @param p a position
+   * @return the fewest moves, {@link #UNWINNABLE} if the position is covered
+   *         but not reachable from the won position, or {@link #UNKNOWN} if it
+   *         is not covered
+   */
+  public int distance(Position p) {
+    if (!covers(p)) {
+      return UNKNOWN;
+    }
+    long key = p.canonicalHash() & KEY_MASK;
+    int mask = table.capacity() - 1;
+    for (int i = index(key, shift); ; i = (i + 1) & mask) {
+      long slot = table.get(i);
+      if (slot == 0) {
+        return UNWINNABLE;
+      }
+      if ((slot & KEY_MASK) == key) {
+        return (int) (slot & 0xFF) - 1;
+      }
+    }
+  }
+
+  /**
+   * Get a move that brings a covered position one move closer to a win.
+   *
+   * @param p a position
+   * @return the move, or null if the position is won, is not covered, is
+   *         {@link #UNWINNABLE}, or has no move one closer, which a collision
+   *         of hashes can cause; a caller then falls back to search
+   */
+  public Move bestMove(Position p) {
+    int d = distance(p);
+    if (d <= 0) {
+      return null;
+    }
+    for (Move m : generator.moves(p)) {
+      if (distance(p.move(m)) == d - 1) {
+        return m;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get a shortest solution from a covered position.
+   *
+   * @param p a position
+   * @return the moves, or null if the position is {@link #UNWINNABLE}, is
+   *         not covered, or has a distance no move agrees with
+   */
+  public List<Move> solution(Position p) {
+    if (distance(p) < 0) {
+      return null;
+    }
+    List<Move> moves = new ArrayList<>();
+    for (Move m = bestMove(p); m != null; m = bestMove(p)) {
+      moves.add(m);
+      p = p.move(m);
+    }
+    return p.isGameOver() ? moves : null;
+  }
+
+  /**
+   * Helper method to get the home slot of a key, from its high bits.
+   */
+  private static int index(long key, int shift) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /**
+   * The growable table used while building.
+   */
+  private static class Table {
+    private long[] slots = new long[1 << 12];
+    private int shift = 64 - 12;
+    private int size;
+
+    /**
+     * Add a distance for a hash unless the hash has one.
+     *
+     * @return true if added
+     */
+    boolean put(long hash, int distance) {
+      long key = hash & KEY_MASK;
+      int mask = slots.length - 1;
+      for (int i = index(key, shift); ; i = (i + 1) & mask) {
+        if (slots[i] == 0) {
+          slots[i] = key | (distance + 1);
+          if (++size * 2 > slots.length) {
+            grow();
+          }
+          return true;
+        }
+        if ((slots[i] & KEY_MASK) == key) {
+          return false;
+        }
+      }
+    }
+
+    /**
+     * Double the table.
+     */
+    private void grow() {
+      long[] old = slots;
+      slots = new long[old.length * 2];
+      shift--;
+      int mask = slots.length - 1;
+      for (long slot : old) {
+        if (slot != 0) {
+          int i = index(slot & KEY_MASK, shift);
+          while (slots[i] != 0) {
+            i = (i + 1) & mask;
+          }
+          slots[i] = slot;
+        }
+      }
+    }
+  }
+}
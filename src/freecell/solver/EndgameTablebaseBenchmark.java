@@ -0,0 +1,35 @@
+package freecell.solver;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * This class times building an {@link EndgameTablebase} and writes it to a
+ * file.
+ */
+public class EndgameTablebaseBenchmark {
+
+  /**
+   * Build a tablebase and write it to a file.
+   *
+   * @param args the file to write, and optionally the most cards off the
+   *        foundations (default 5), open piles (default 4) and cascades
+   *        (default 8)
+   * @throws IOException if writing fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: EndgameTablebaseBenchmark FILE [CARDS] [OPENS] "
+          + "[CASCADES]");
+      System.exit(2);
+    }
+    int maxCards = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    int numOpens = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+    int numCascades = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+    long start = System.nanoTime();
+    EndgameTablebase tablebase = EndgameTablebase.build(numOpens, numCascades, maxCards);
+    tablebase.write(Paths.get(args[0]));
+    System.out.println(String.format("%d positions written in %.1f s",
+        tablebase.size(), (System.nanoTime() - start) / 1e9));
+  }
+}
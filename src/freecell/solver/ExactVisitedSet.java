@@ -0,0 +1,43 @@
+package freecell.solver;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A visited set that remembers every hash, in a concurrent hash set. It takes
+ * about {@value #BYTES_PER_HASH} bytes per hash and grows without bound.
+ */
+public class ExactVisitedSet implements VisitedSet {
+
+  /**
+   * The estimated bytes per hash: a map node, a boxed long and a table slot.
+   */
+  public static final int BYTES_PER_HASH = 64;
+
+  private final Set<Long> hashes = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public boolean add(long hash) {
+    return hashes.add(hash);
+  }
+
+  @Override
+  public boolean contains(long hash) {
+    return hashes.contains(hash);
+  }
+
+  @Override
+  public long size() {
+    return hashes.size();
+  }
+
+  @Override
+  public long getMemoryBytes() {
+    return size() * BYTES_PER_HASH;
+  }
+
+  @Override
+  public boolean isExact() {
+    return true;
+  }
+}
@@ -0,0 +1,44 @@
+package freecell.solver;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class measures how fast {@link ExternalBfsSolver} exhausts the
+ * state spaces of numbered deals.
+ */
+public class ExternalBfsBenchmark {
+
+  /**
+   * Classify deals by exhausting their state spaces on disk.
+   *
+   * @param args the directory for the files (default the temporary
+   *        directory), the first deal (default 1), the number of deals
+   *        (default 5), cascades (default 8), open piles (default 4), and the
+   *        position limit (default 10000000)
+   */
+  public static void main(String[] args) {
+    Path directory = Paths.get(args.length > 0 ? args[0]
+        : System.getProperty("java.io.tmpdir"));
+    int first = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    int numDeals = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    int numCascades = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+    int numOpens = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+    long maxPositions = args.length > 5 ? Long.parseLong(args[5]) : 10_000_000;
+
+    Solver solver = new ExternalBfsSolver(directory, 1 << 20, maxPositions);
+    for (int deal = first; deal < first + numDeals; deal++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(deal), numCascades,
+          numOpens, false);
+      SolveResult result = solver.solve(Position.of(model));
+      System.out.printf("deal %d: %s, %d moves, %d positions, %.0f/s%n", deal,
+          result.getStatus(), result.getMoves().size(), result.getNodes(),
+          result.getNodes() * 1e9 / Math.max(1, result.getElapsedNanos()));
+    }
+  }
+}
@@ -0,0 +1,415 @@
+package freecell.solver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+import freecell.metrics.SolverEvent;
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.model.PositionCodec;
+import freecell.record.PositionReader;
+import freecell.record.PositionWriter;
+
+/**
+ * A breadth first solver that keeps its positions on disk, to exhaust state
+ * spaces far larger than memory. Positions are stored by their canonical
+ * encoding from {@link PositionCodec}, so positions that only differ by the
+ * order of their piles are one position.
+ *
+ * <p>Each layer of the search is a file of sorted encodings, and one more file
+ * holds every position seen so far, also sorted. Expanding a layer writes its
+ * children in sorted runs of a bounded number of positions; the runs are then
+ * merged with each other and with the seen file in one pass, which writes the
+ * next layer and the new seen file. Duplicates are dropped as they meet in the
+ * merge. Every file is read and written sequentially.</p>
+ *
+ * <p>A search that runs out of positions proves there is no solution. When a
+ * search reaches a won position, the layers are scanned backwards to find its
+ * ancestors, and the moves between them are found from the start position, so
+ * a solution is a shortest one for the moves of {@link MoveGenerator}. The
+ * files are deleted when the search ends.</p>
+ */
+public class ExternalBfsSolver implements Solver {
+
+  private static final Comparator<byte[]> ORDER = (a, b) ->
+      PositionCodec.compare(a, 0, a.length, b, 0, b.length);
+
+  private final Path directory;
+  private final int runSize;
+  private final long maxPositions;
+  private final MoveGenerator generator;
+
+  /**
+   * Constructor for ExternalBfsSolver.
+   *
+   * @param directory where to make the directory of the files of each search
+   * @param runSize the number of positions to sort in memory at once
+   * @param maxPositions the number of distinct positions to give up after
+   * @throws IllegalArgumentException if the directory is null or a number is
+   *         not positive
+   */
+  public ExternalBfsSolver(Path directory, int runSize, long maxPositions)
+      throws IllegalArgumentException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Directory cannot be null.");
+    }
+    if (runSize < 1 || maxPositions < 1) {
+      throw new IllegalArgumentException("Run size and position limit must "
+          + "be positive.");
+    }
+    this.directory = directory;
+    this.runSize = runSize;
+    this.maxPositions = maxPositions;
+    this.generator = new MoveGenerator();
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    SolverEvent event = new SolverEvent();
+    event.begin();
+    SolveResult result = search(start);
+    if (event.shouldCommit()) {
+      event.setResult(getName(), result.getStatus().name(), result.getNodes(),
+          result.getMoves().size());
+      event.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Search a position, without events.
+   *
+   * @throws IllegalStateException if the files cannot be read or written
+   */
+  private SolveResult search(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    if (start.isGameOver()) {
+      return new SolveResult(SolveResult.Status.SOLVED,
+          Collections.<Move>emptyList(), 0, 0);
+    }
+    Path work = null;
+    try {
+      Files.createDirectories(directory);
+      work = Files.createTempDirectory(directory, "bfs");
+      Search search = new Search(work);
+      SolveResult.Status status = search.run(start);
+      List<Move> moves = status == SolveResult.Status.SOLVED
+          ? search.solution(start) : null;
+      return new SolveResult(status, moves, search.expanded,
+          System.nanoTime() - begin);
+    } catch (IOException e) {
+      throw new IllegalStateException("Search failed.", e);
+    } finally {
+      if (work != null) {
+        delete(work);
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "external-bfs";
+  }
+
+  /**
+   * Helper method to delete the files of a search, ignoring failures.
+   */
+  private static void delete(Path work) {
+    try (Stream<Path> files = Files.list(work)) {
+      files.forEach(f -> f.toFile().delete());
+    } catch (IOException e) {
+      // left for the caller to clean up
+    }
+    work.toFile().delete();
+  }
+
+  /**
+   * The state and files of one search.
+   */
+  private class Search {
+
+    private final Path work;
+    private final byte[] buffer = new byte[PositionCodec.MAX_BYTES];
+    private int numLayers;
+    private long expanded;
+    private long seen;
+    private byte[] goal;
+
+    Search(Path work) {
+      this.work = work;
+    }
+
+    /**
+     * Search layer by layer until a layer holds a won position, a layer is
+     * empty, or the limit is reached.
+     */
+    SolveResult.Status run(Position start) throws IOException {
+      try (PositionWriter layer = writer(layerFile(0));
+          PositionWriter all = writer(seenFile(0))) {
+        int length = PositionCodec.encodeCanonical(start, buffer, 0);
+        layer.writeEncoded(buffer, 0, length);
+        all.writeEncoded(buffer, 0, length);
+      }
+      seen = 1;
+      numLayers = 1;
+      for (int depth = 0; ; depth++) {
+        if (Thread.currentThread().isInterrupted() || seen > maxPositions) {
+          return SolveResult.Status.GAVE_UP;
+        }
+        List<Path> runs = expand(depth);
+        if (goal != null) {
+          deleteAll(runs);
+          return SolveResult.Status.SOLVED;
+        }
+        long size = merge(runs, depth);
+        deleteAll(runs);
+        Files.delete(seenFile(depth));
+        if (size == 0) {
+          return SolveResult.Status.NO_SOLUTION;
+        }
+        numLayers++;
+        seen += size;
+      }
+    }
+
+    /**
+     * Write the children of the positions of a layer in sorted runs. Stops
+     * early when a child is won.
+     */
+    private List<Path> expand(int depth) throws IOException {
+      List<Path> runs = new ArrayList<>();
+      List<byte[]> run = new ArrayList<>();
+      try (PositionReader layer = reader(layerFile(depth))) {
+        for (Position p = layer.read(); p != null; p = layer.read()) {
+          expanded++;
+          for (Move m : children(p)) {
+            Position child = p.move(m);
+            byte[] encoding = encode(child);
+            if (child.isGameOver()) {
+              goal = encoding;
+              return runs;
+            }
+            run.add(encoding);
+            if (run.size() == runSize) {
+              runs.add(writeRun(run, runs.size()));
+              run.clear();
+            }
+          }
+        }
+      }
+      if (!run.isEmpty()) {
+        runs.add(writeRun(run, runs.size()));
+      }
+      return runs;
+    }
+
+    /**
+     * Sort a run, drop its duplicates and write it.
+     */
+    private Path writeRun(List<byte[]> run, int number) throws IOException {
+      Collections.sort(run, ORDER);
+      Path file = work.resolve(String.format("run-%05d.fcp", number));
+      try (PositionWriter out = writer(file)) {
+        byte[] previous = null;
+        for (byte[] encoding : run) {
+          if (previous == null || ORDER.compare(previous, encoding) != 0) {
+            out.writeEncoded(encoding, 0, encoding.length);
+          }
+          previous = encoding;
+        }
+      }
+      return file;
+    }
+
+    /**
+     * Merge the runs of a layer with the positions seen so far, writing the
+     * positions not seen as the next layer and all of them as the new seen
+     * file.
+     *
+     * @return the size of the next layer
+     */
+    private long merge(List<Path> runs, int depth) throws IOException {
+      PriorityQueue<Cursor> heap = new PriorityQueue<>();
+      List<Cursor> cursors = new ArrayList<>();
+      try (Cursor old = new Cursor(seenFile(depth));
+          PositionWriter next = writer(layerFile(depth + 1));
+          PositionWriter all = writer(seenFile(depth + 1))) {
+        for (Path run : runs) {
+          Cursor c = new Cursor(run);
+          cursors.add(c);
+          if (c.advance()) {
+            heap.add(c);
+          }
+        }
+        boolean hasOld = old.advance();
+        byte[] last = new byte[PositionCodec.MAX_BYTES];
+        int lastLength = 0;
+        while (!heap.isEmpty()) {
+          Cursor c = heap.poll();
+          if (c.compare(last, lastLength) != 0) {
+            lastLength = c.length;
+            System.arraycopy(c.encoding, 0, last, 0, lastLength);
+            while (hasOld && old.compareTo(c) < 0) {
+              all.writeEncoded(old.encoding, 0, old.length);
+              hasOld = old.advance();
+            }
+            if (!hasOld || old.compareTo(c) != 0) {
+              next.writeEncoded(last, 0, lastLength);
+              all.writeEncoded(last, 0, lastLength);
+            }
+          }
+          if (c.advance()) {
+            heap.add(c);
+          }
+        }
+        while (hasOld) {
+          all.writeEncoded(old.encoding, 0, old.length);
+          hasOld = old.advance();
+        }
+        return next.getCount();
+      } finally {
+        for (Cursor c : cursors) {
+          c.close();
+        }
+      }
+    }
+
+    /**
+     * Find the moves from the start to the won position, by finding the
+     * ancestor of each position in the layer before it.
+     */
+    List<Move> solution(Position start) throws IOException {
+      int depth = numLayers;
+      byte[][] chain = new byte[depth + 1][];
+      chain[depth] = goal;
+      for (int d = depth - 1; d >= 0; d--) {
+        chain[d] = parent(d, chain[d + 1]);
+      }
+      List<Move> moves = new ArrayList<>();
+      Position p = start;
+      for (int d = 1; d <= depth; d++) {
+        Move found = null;
+        for (Move m : generator.moves(p)) {
+          if (Arrays.equals(encode(p.move(m)), chain[d])) {
+            found = m;
+            break;
+          }
+        }
+        if (found == null) {
+          throw new IllegalStateException("Lost the path at depth " + d);
+        }
+        moves.add(found);
+        p = p.move(found);
+      }
+      return moves;
+    }
+
+    /**
+     * Find a position of a layer with a child of the given encoding.
+     */
+    private byte[] parent(int depth, byte[] child) throws IOException {
+      try (PositionReader layer = reader(layerFile(depth))) {
+        for (Position p = layer.read(); p != null; p = layer.read()) {
+          for (Move m : children(p)) {
+            if (Arrays.equals(encode(p.move(m)), child)) {
+              return encode(p);
+            }
+          }
+        }
+      }
+      throw new IllegalStateException("No parent at depth " + depth);
+    }
+
+    private Path layerFile(int depth) {
+      return work.resolve(String.format("layer-%04d.fcp", depth));
+    }
+
+    private Path seenFile(int depth) {
+      return work.resolve(String.format("seen-%04d.fcp", depth));
+    }
+  }
+
+  /**
+   * Helper method to get the moves searched from a position: the safe move if
+   * there is one, else all moves worth searching.
+   */
+  private List<Move> children(Position p) {
+    Move safe = generator.safeMove(p);
+    return safe == null ? generator.moves(p) : Collections.singletonList(safe);
+  }
+
+  /**
+   * Helper method to get the canonical encoding of a position.
+   */
+  private static byte[] encode(Position p) {
+    byte[] buffer = new byte[PositionCodec.MAX_BYTES];
+    return Arrays.copyOf(buffer, PositionCodec.encodeCanonical(p, buffer, 0));
+  }
+
+  private static PositionWriter writer(Path file) throws IOException {
+    OutputStream out = Files.newOutputStream(file);
+    return new PositionWriter(out);
+  }
+
+  private static PositionReader reader(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    return new PositionReader(in);
+  }
+
+  private static void deleteAll(List<Path> files) throws IOException {
+    for (Path f : files) {
+      Files.delete(f);
+    }
+  }
+
+  /**
+   * The next encoding of a sorted file.
+   */
+  private static class Cursor implements Comparable<Cursor>, AutoCloseable {
+
+    private final PositionReader reader;
+    private final byte[] encoding = new byte[PositionCodec.MAX_BYTES];
+    private int length;
+
+    Cursor(Path file) throws IOException {
+      this.reader = reader(file);
+    }
+
+    /**
+     * Read the next encoding.
+     *
+     * @return false at the end of the file
+     */
+    boolean advance() throws IOException {
+      length = reader.readEncoded(encoding);
+      return length >= 0;
+    }
+
+    int compare(byte[] other, int otherLength) {
+      return PositionCodec.compare(encoding, 0, length, other, 0, otherLength);
+    }
+
+    @Override
+    public int compareTo(Cursor o) {
+      return compare(o.encoding, o.length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package freecell.solver;
+
+/**
+ * This class estimates how often keys were seen recently, in a count-min
+ * sketch of 4-bit counters packed 16 to a long, one long per key it is sized
+ * for. A key has one counter in each of 4 places and its estimate is the
+ * smallest of them, so collisions can only raise it. After a sample of ten
+ * increments per counted key every counter is halved, so old popularity
+ * fades.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = {0x97CB3127L, 0xB0C8F2D9L,
+      0xC2B2AE35L, 0xE6546B64L};
+  private static final long HALF_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+
+  private final long[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Construct a sketch sized for a number of keys.
+   *
+   * @param numKeys the number of keys to tell apart, at least 1
+   */
+  FrequencySketch(int numKeys) {
+    this.table = new long[Integer.highestOneBit(Math.max(8, numKeys - 1) << 1)];
+    this.mask = table.length - 1;
+    this.sampleSize = 10 * Math.max(1, numKeys);
+  }
+
+  /**
+   * Get the estimated count of a key.
+   *
+   * @param hash a well spread hash of the key
+   * @return the estimate, at most 15
+   */
+  int frequency(long hash) {
+    int min = MAX_COUNT;
+    for (int i = 0; i < SEEDS.length; i++) {
+      long h = mix(hash, i);
+      int shift = shift(h);
+      min = Math.min(min, (int) (table[index(h)] >>> shift) & MAX_COUNT);
+    }
+    return min;
+  }
+
+  /**
+   * Count a key once more.
+   *
+   * @param hash a well spread hash of the key
+   */
+  void increment(long hash) {
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      long h = mix(hash, i);
+      int index = index(h);
+      int shift = shift(h);
+      if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & HALF_MASK;
+      }
+      additions /= 2;
+    }
+  }
+
+  /**
+   * Helper method to get the hash of one of the 4 places of a key.
+   */
+  private static long mix(long hash, int i) {
+    long h = (hash + SEEDS[i]) * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 29);
+  }
+
+  private int index(long h) {
+    return (int) (h >>> 32) & mask;
+  }
+
+  private static int shift(long h) {
+    return ((int) h & 15) << 2;
+  }
+}
@@ -0,0 +1,19 @@
+package freecell.solver;
+
+import freecell.model.Position;
+
+/**
+ * The interface for an estimate of the number of moves left to win from a
+ * position. A heuristic is admissible if it never estimates more moves than
+ * are really needed.
+ */
+public interface Heuristic {
+
+  /**
+   * Estimate the number of moves left to win.
+   *
+   * @param p a position
+   * @return a non negative estimate, 0 if the game is over
+   */
+  int estimate(Position p);
+}
@@ -0,0 +1,187 @@
+package freecell.solver;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * This class suggests a move within a time budget. The suggestion is improved
+ * as long as time allows and the best one found is returned when the deadline
+ * hits:
+ * <ul>
+ * <li>If an {@link EndgameTablebase} covers the position and it can be won, the
+ * tablebase move is returned at once.</li>
+ * <li>A safe move to a foundation is returned at once.</li>
+ * <li>Otherwise the move leading to the child with the best estimate is the
+ * first suggestion.</li>
+ * <li>Then a weighted A* search runs until the deadline, and the suggestion
+ * becomes the first move towards the best position it has reached, or the
+ * first move of a solution as soon as one is found, or of the path to a
+ * position the tablebase knows can be won.</li>
+ * </ul>
+ */
+public class HintEngine {
+
+  /**
+   * The default time budget of a hint, 50 ms.
+   */
+  public static final long DEFAULT_BUDGET_NANOS = 50_000_000L;
+
+  private static final int CLOCK_CHECK_INTERVAL = 32;
+
+  private final Heuristic heuristic;
+  private final long budgetNanos;
+  private final EndgameTablebase tablebase;
+  private final MoveGenerator generator;
+
+  /**
+   * Construct an engine with the blocker heuristic and the default budget.
+   */
+  public HintEngine() {
+    this(new BlockerHeuristic(), DEFAULT_BUDGET_NANOS);
+  }
+
+  /**
+   * Constructor for HintEngine.
+   *
+   * @param heuristic the estimate of moves left
+   * @param budgetNanos the time budget of {@link #hint(Position)}
+   * @throws IllegalArgumentException if the heuristic is null or the budget is
+   *         not positive
+   */
+  public HintEngine(Heuristic heuristic, long budgetNanos)
+      throws IllegalArgumentException {
+    this(heuristic, budgetNanos, null);
+  }
+
+  /**
+   * Construct an engine that probes an endgame tablebase.
+   *
+   * @param heuristic the estimate of moves left
+   * @param budgetNanos the time budget of {@link #hint(Position)}
+   * @param tablebase the tablebase, or null for none
+   * @throws IllegalArgumentException if the heuristic is null or the budget is
+   *         not positive
+   */
+  public HintEngine(Heuristic heuristic, long budgetNanos,
+      EndgameTablebase tablebase) throws IllegalArgumentException {
+    if (heuristic == null) {
+      throw new IllegalArgumentException("Heuristic cannot be null.");
+    }
+    if (budgetNanos <= 0) {
+      throw new IllegalArgumentException("Budget must be positive.");
+    }
+    this.heuristic = heuristic;
+    this.budgetNanos = budgetNanos;
+    this.tablebase = tablebase;
+    this.generator = new MoveGenerator();
+  }
+
+  /**
+   * Suggest a move within the time budget of this engine.
+   *
+   * @param p the current position
+   * @return a legal move, or null if there is nothing worth moving
+   * @throws IllegalArgumentException if the position is null
+   */
+  public Move hint(Position p) throws IllegalArgumentException {
+    return hint(p, System.nanoTime() + budgetNanos);
+  }
+
+  /**
+   * Suggest a move before a deadline.
+   *
+   * @param p the current position
+   * @param deadlineNanos the deadline in {@link System#nanoTime()} time
+   * @return a legal move, or null if there is nothing worth moving
+   * @throws IllegalArgumentException if the position is null
+   */
+  public Move hint(Position p, long deadlineNanos)
+      throws IllegalArgumentException {
+    if (p == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    if (p.isGameOver()) {
+      return null;
+    }
+    Move exact = tablebase == null ? null : tablebase.bestMove(p);
+    if (exact != null) {
+      return exact;
+    }
+    Move safe = generator.safeMove(p);
+    if (safe != null) {
+      return safe;
+    }
+    List<Move> moves = generator.moves(p);
+    if (moves.isEmpty()) {
+      return null;
+    }
+
+    PriorityQueue<SearchNode> open = new PriorityQueue<>(
+        (a, b) -> Integer.compare(a.priority, b.priority));
+    Set<Long> seen = new HashSet<>();
+    seen.add(p.canonicalHash());
+    SearchNode root = new SearchNode(p, null, null, 0);
+
+    // The first suggestion: the child with the best estimate.
+    Move best = null;
+    int bestEstimate = Integer.MAX_VALUE;
+    for (Move m : moves) {
+      Position child = p.move(m);
+      int estimate = heuristic.estimate(child);
+      if (estimate < bestEstimate) {
+        bestEstimate = estimate;
+        best = m;
+      }
+      if (seen.add(child.canonicalHash())) {
+        open.add(new SearchNode(child, root, m, 1 + 2 * estimate));
+      }
+    }
+
+    // Improve it until the deadline.
+    int expanded = 0;
+    while (!open.isEmpty()) {
+      if (++expanded % CLOCK_CHECK_INTERVAL == 0
+          && System.nanoTime() - deadlineNanos >= 0) {
+        break;
+      }
+      SearchNode node = open.poll();
+      if (node.position.isGameOver() || (tablebase != null
+          && tablebase.distance(node.position) >= 0)) {
+        return firstMove(node);
+      }
+      int estimate = (node.priority - node.depth) / 2;
+      if (estimate < bestEstimate) {
+        bestEstimate = estimate;
+        best = firstMove(node);
+      }
+      Move nodeSafe = generator.safeMove(node.position);
+      List<Move> children = nodeSafe == null ? generator.moves(node.position)
+          : Collections.singletonList(nodeSafe);
+      for (Move m : children) {
+        Position child = node.position.move(m);
+        if (seen.add(child.canonicalHash())) {
+          open.add(new SearchNode(child, node, m, node.depth + 1
+              + 2 * heuristic.estimate(child)));
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Get the first move on the path to a node.
+   */
+  private static Move firstMove(SearchNode node) {
+    SearchNode n = node;
+    while (n.parent.parent != null) {
+      n = n.parent;
+    }
+    return n.move;
+  }
+}
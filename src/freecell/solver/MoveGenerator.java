@@ -0,0 +1,201 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.CardCodes;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+
+/**
+ * This class generates the moves worth searching from a position. Moves that
+ * only differ by which empty pile they fill are generated once, moves between
+ * open piles are skipped, and a lone card is never moved to an empty cascade.
+ * Moves to foundations come first. Moves off foundations are only generated
+ * when asked for.
+ */
+public class MoveGenerator {
+
+  private final boolean fromFoundations;
+
+  /**
+   * Construct a generator that does not move cards off foundations.
+   */
+  public MoveGenerator() {
+    this(false);
+  }
+
+  /**
+   * Constructor for MoveGenerator.
+   *
+   * @param fromFoundations whether to move cards off foundations
+   */
+  public MoveGenerator(boolean fromFoundations) {
+    this.fromFoundations = fromFoundations;
+  }
+
+  /**
+   * Get the moves worth searching from a position. Every move is legal.
+   *
+   * @param p a position
+   * @return a new list of moves, moves to foundations first
+   */
+  public List<Move> moves(Position p) {
+    List<Move> toReturn = new ArrayList<>();
+    int firstEmptyOpen = -1;
+    for (int i = 0; i < p.getNumOpens(); i++) {
+      if (p.getOpenCard(i) < 0) {
+        firstEmptyOpen = i;
+        break;
+      }
+    }
+    int firstEmptyCascade = -1;
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      if (p.getCascadeSize(i) == 0) {
+        firstEmptyCascade = i;
+        break;
+      }
+    }
+
+    // Moves to foundations.
+    for (PileType type : PileType.values()) {
+      if (type == PileType.FOUNDATION) {
+        continue;
+      }
+      for (int i = 0; i < count(p, type); i++) {
+        int card = p.getTop(type, i);
+        if (card < 0) {
+          continue;
+        }
+        int f = foundationFor(p, card);
+        if (f >= 0) {
+          toReturn.add(new Move(type, i, PileType.FOUNDATION, f));
+        }
+      }
+    }
+
+    // Moves from cascades, opens and optionally foundations to cascades and
+    // opens.
+    for (PileType type : PileType.values()) {
+      if (type == PileType.FOUNDATION && !fromFoundations) {
+        continue;
+      }
+      for (int i = 0; i < count(p, type); i++) {
+        int card = p.getTop(type, i);
+        if (card < 0) {
+          continue;
+        }
+        for (int j = 0; j < p.getNumCascades(); j++) {
+          if (type == PileType.CASCADE && i == j) {
+            continue;
+          }
+          if (p.getCascadeSize(j) == 0) {
+            if (j == firstEmptyCascade
+                && !(type == PileType.CASCADE && p.getCascadeSize(i) == 1)) {
+              toReturn.add(new Move(type, i, PileType.CASCADE, j));
+            }
+          } else if (p.accepts(card, PileType.CASCADE, j)) {
+            toReturn.add(new Move(type, i, PileType.CASCADE, j));
+          }
+        }
+        if (type != PileType.OPEN && firstEmptyOpen >= 0) {
+          toReturn.add(new Move(type, i, PileType.OPEN, firstEmptyOpen));
+        }
+      }
+    }
+    return toReturn;
+  }
+
+  /**
+   * Find a move to a foundation that can never hurt: the card is an ace or a
+   * two, or both cards of the other colour that could be put on it are
+   * already on foundations.
+   *
+   * @param p a position
+   * @return the safe move, or null if there is none
+   */
+  public Move safeMove(Position p) {
+    for (PileType type : PileType.values()) {
+      if (type == PileType.FOUNDATION) {
+        continue;
+      }
+      for (int i = 0; i < count(p, type); i++) {
+        int card = p.getTop(type, i);
+        if (card < 0) {
+          continue;
+        }
+        int f = foundationFor(p, card);
+        if (f >= 0 && isSafe(p, card)) {
+          return new Move(type, i, PileType.FOUNDATION, f);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the foundation that accepts a card.
+   *
+   * @param p a position
+   * @param card a card code
+   * @return the foundation number, or -1 if none accepts the card
+   */
+  public static int foundationFor(Position p, int card) {
+    for (int f = 0; f < p.getNumFoundations(); f++) {
+      if (p.accepts(card, PileType.FOUNDATION, f)) {
+        return f;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the value on top of the foundation of every suit.
+   *
+   * @param p a position
+   * @return the top value of each suit by suit ordinal, 0 if none
+   */
+  public static int[] foundationValues(Position p) {
+    int[] values = new int[4];
+    for (int f = 0; f < p.getNumFoundations(); f++) {
+      int top = p.getFoundationTop(f);
+      if (top >= 0) {
+        values[CardCodes.suit(top)] = CardCodes.value(top);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * To check whether moving a card to a foundation can never hurt.
+   */
+  private static boolean isSafe(Position p, int card) {
+    int value = CardCodes.value(card);
+    if (value <= 2) {
+      return true;
+    }
+    int[] values = foundationValues(p);
+    boolean red = CardCodes.isRed(card);
+    for (int s = 0; s < 4; s++) {
+      if (CardCodes.isRed(s * 13) != red && values[s] < value - 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the number of piles of a type.
+   */
+  private static int count(Position p, PileType type) {
+    switch (type) {
+      case FOUNDATION:
+        return p.getNumFoundations();
+      case OPEN:
+        return p.getNumOpens();
+      default:
+        return p.getNumCascades();
+    }
+  }
+}
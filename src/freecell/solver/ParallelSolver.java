@@ -0,0 +1,260 @@
+package freecell.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import freecell.metrics.SolverEvent;
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * A depth first solver that splits the search tree across a work stealing
+ * pool. Each task searches its subtree depth first, children in order of the
+ * heuristic estimate. While the worker running a task has few queued tasks,
+ * the siblings of the child it descends into are forked as new tasks, so idle
+ * workers can steal them. All tasks share one {@link VisitedSet} of visited
+ * positions, keyed by {@link Position#canonicalHash()}, and stop as soon as one
+ * of them finds a solution. Optionally, children that
+ * {@link DeadEndDetector#isBlocked(Position)} proves lost are not searched.
+ *
+ * <p>With a pool of one thread this is the single threaded version of the same
+ * search, which {@link SolverBenchmark} uses to measure the speedup.</p>
+ */
+public class ParallelSolver implements Solver {
+
+  private static final int SPLIT_THRESHOLD = 2;
+  private static final int COUNT_BATCH = 64;
+
+  private final ForkJoinPool pool;
+  private final Heuristic heuristic;
+  private final long maxNodes;
+  private final Supplier<VisitedSet> visited;
+  private final MoveGenerator generator;
+  private final DeadEndDetector deadEnds;
+
+  /**
+   * Construct a solver using the common pool, the blocker heuristic and a
+   * limit of one million nodes.
+   */
+  public ParallelSolver() {
+    this(ForkJoinPool.commonPool(), new BlockerHeuristic(), 1_000_000);
+  }
+
+  /**
+   * Construct a solver remembering visited positions exactly.
+   *
+   * @param pool the pool to search in
+   * @param heuristic the estimate used to order children
+   * @param maxNodes the number of expanded nodes to give up after
+   * @throws IllegalArgumentException if the pool or heuristic is null or the
+   *         node limit is not positive
+   */
+  public ParallelSolver(ForkJoinPool pool, Heuristic heuristic, long maxNodes)
+      throws IllegalArgumentException {
+    this(pool, heuristic, maxNodes, ExactVisitedSet::new);
+  }
+
+  /**
+   * Constructor for ParallelSolver. With an inexact visited set a search that
+   * runs out of positions gives up rather than reporting no solution.
+   *
+   * @param pool the pool to search in
+   * @param heuristic the estimate used to order children
+   * @param maxNodes the number of expanded nodes to give up after
+   * @param visited makes the visited set of each search
+   * @throws IllegalArgumentException if the pool, heuristic or visited sets
+   *         are null or the node limit is not positive
+   */
+  public ParallelSolver(ForkJoinPool pool, Heuristic heuristic, long maxNodes,
+      Supplier<VisitedSet> visited) throws IllegalArgumentException {
+    this(pool, heuristic, maxNodes, visited, false);
+  }
+
+  /**
+   * Construct a solver that can prune children proven lost.
+   *
+   * @param pool the pool to search in
+   * @param heuristic the estimate used to order children
+   * @param maxNodes the number of expanded nodes to give up after
+   * @param visited makes the visited set of each search
+   * @param pruneDeadEnds whether to skip children that cannot move at all
+   * @throws IllegalArgumentException if the pool, heuristic or visited sets
+   *         are null or the node limit is not positive
+   */
+  public ParallelSolver(ForkJoinPool pool, Heuristic heuristic, long maxNodes,
+      Supplier<VisitedSet> visited, boolean pruneDeadEnds)
+      throws IllegalArgumentException {
+    if (pool == null || heuristic == null || visited == null) {
+      throw new IllegalArgumentException("Pool, heuristic and visited sets "
+          + "cannot be null.");
+    }
+    if (maxNodes < 1) {
+      throw new IllegalArgumentException("Node limit must be positive.");
+    }
+    this.pool = pool;
+    this.heuristic = heuristic;
+    this.maxNodes = maxNodes;
+    this.visited = visited;
+    this.generator = new MoveGenerator();
+    this.deadEnds = pruneDeadEnds ? new DeadEndDetector() : null;
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    SolverEvent event = new SolverEvent();
+    event.begin();
+    SolveResult result = search(start);
+    if (event.shouldCommit()) {
+      event.setResult(getName(), result.getStatus().name(), result.getNodes(),
+          result.getMoves().size());
+      event.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Search a position, without events.
+   */
+  private SolveResult search(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    Search search = new Search(visited.get());
+    search.visited.add(start.canonicalHash());
+    ForkJoinTask<Void> root = pool.submit(new DfsTask(null,
+        new SearchNode(start, null, null, 0), search));
+    try {
+      root.get();
+    } catch (InterruptedException e) {
+      search.stop = true;
+      search.gaveUp = true;
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Search failed.", e.getCause());
+    }
+
+    long elapsed = System.nanoTime() - begin;
+    SearchNode solution = search.solution.get();
+    if (solution != null) {
+      return new SolveResult(SolveResult.Status.SOLVED, solution.path(),
+          search.nodes.get(), elapsed);
+    }
+    return new SolveResult(search.gaveUp || !search.visited.isExact()
+        ? SolveResult.Status.GAVE_UP : SolveResult.Status.NO_SOLUTION, null,
+        search.nodes.get(), elapsed);
+  }
+
+  @Override
+  public String getName() {
+    return "parallel-dfs(" + pool.getParallelism()
+        + (deadEnds == null ? "" : ",pruned") + ")";
+  }
+
+  /**
+   * The state shared by all tasks of one search.
+   */
+  private static class Search {
+    private final VisitedSet visited;
+    private final AtomicReference<SearchNode> solution = new AtomicReference<>();
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean stop;
+    private volatile boolean gaveUp;
+
+    Search(VisitedSet visited) {
+      this.visited = visited;
+    }
+  }
+
+  /**
+   * A task searching the subtree of a node depth first.
+   */
+  private class DfsTask extends CountedCompleter<Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SearchNode node;
+    private final Search search;
+
+    DfsTask(CountedCompleter<?> parent, SearchNode node, Search search) {
+      super(parent);
+      this.node = node;
+      this.search = search;
+    }
+
+    @Override
+    public void compute() {
+      Deque<SearchNode> stack = new ArrayDeque<>();
+      stack.push(node);
+      int uncounted = 0;
+      while (!stack.isEmpty() && !search.stop) {
+        SearchNode n = stack.pop();
+        if (n.position.isGameOver()) {
+          search.solution.compareAndSet(null, n);
+          search.stop = true;
+          break;
+        }
+        if (++uncounted == COUNT_BATCH) {
+          uncounted = 0;
+          if (search.nodes.addAndGet(COUNT_BATCH) >= maxNodes) {
+            search.gaveUp = true;
+            search.stop = true;
+            break;
+          }
+        }
+
+        List<SearchNode> children = expand(n);
+        for (int i = children.size() - 1; i >= 0; i--) {
+          if (i > 0 && getSurplusQueuedTaskCount() < SPLIT_THRESHOLD) {
+            addToPendingCount(1);
+            new DfsTask(this, children.get(i), search).fork();
+          } else {
+            stack.push(children.get(i));
+          }
+        }
+      }
+      search.nodes.addAndGet(uncounted);
+      tryComplete();
+    }
+
+    /**
+     * Get the unvisited children of a node, best estimate first.
+     */
+    private List<SearchNode> expand(SearchNode n) {
+      Move safe = generator.safeMove(n.position);
+      List<SearchNode> children = new ArrayList<>();
+      if (safe != null) {
+        Position child = n.position.move(safe);
+        if (admit(child)) {
+          children.add(new SearchNode(child, n, safe, 0));
+        }
+        return children;
+      }
+      for (Move m : generator.moves(n.position)) {
+        Position child = n.position.move(m);
+        if (admit(child)) {
+          children.add(new SearchNode(child, n, m, heuristic.estimate(child)));
+        }
+      }
+      children.sort((a, b) -> Integer.compare(a.priority, b.priority));
+      return children;
+    }
+
+    /**
+     * Mark a child visited and check whether it is worth searching.
+     */
+    private boolean admit(Position child) {
+      return search.visited.add(child.canonicalHash())
+          && (deadEnds == null || !deadEnds.isBlocked(child));
+    }
+  }
+}
@@ -0,0 +1,390 @@
+package freecell.solver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import freecell.model.CardCodes;
+import freecell.model.Position;
+
+/**
+ * This class is a pattern database: a table of exact costs of an abstracted
+ * sub-problem, built once, written to a file and memory mapped when loaded.
+ *
+ * <p>The abstraction keeps only the pattern cards: the next one or two cards
+ * of every suit to go to a foundation. Every other card is ignored and there
+ * is unlimited space to park a card. A pattern card at the top of its cascade,
+ * ignoring other cards, may be parked for one move, and a card that is next
+ * for its suit may go to the foundation for one move, from its cascade or from
+ * where it was parked. The cost of an abstract state is the fewest moves that
+ * put all pattern cards on foundations. It counts a second move for every card
+ * that has to be parked, including cards that block each other across
+ * cascades, like a two of spades under a three of hearts while the two of
+ * hearts is under the three of spades. The cost never exceeds the moves the
+ * real game needs for the pattern cards.</p>
+ *
+ * <p>An abstract state is a key with four bits per pattern card telling what
+ * lies directly under it: another pattern card, the bottom of a cascade, an
+ * open pile, or nothing because the card is already on its foundation. The
+ * key does not depend on which cascade a card is in. The file holds the sorted
+ * keys followed by one cost byte per key, and lookups binary search the mapped
+ * keys.</p>
+ */
+public class PatternDatabase {
+
+  /**
+   * The magic number at the start of a pattern database file.
+   */
+  public static final int MAGIC = 0x46435044;
+
+  static final int BOTTOM = 8;
+  static final int OPEN = 9;
+  static final int ABSENT = 10;
+
+  private static final int HEADER_BYTES = 12;
+
+  private final int cardsPerSuit;
+  private final int size;
+  private final IntBuffer keys;
+  private final ByteBuffer costs;
+
+  /**
+   * Construct a database over the given tables.
+   */
+  private PatternDatabase(int cardsPerSuit, int size, IntBuffer keys,
+      ByteBuffer costs) {
+    this.cardsPerSuit = cardsPerSuit;
+    this.size = size;
+    this.keys = keys;
+    this.costs = costs;
+  }
+
+  /**
+   * Build a database in memory.
+   *
+   * @param cardsPerSuit the number of pattern cards of every suit, 1 or 2
+   * @return the database
+   * @throws IllegalArgumentException if the number of cards is wrong
+   */
+  public static PatternDatabase build(int cardsPerSuit)
+      throws IllegalArgumentException {
+    if (cardsPerSuit < 1 || cardsPerSuit > 2) {
+      throw new IllegalArgumentException("Wrong cards per suit: "
+          + cardsPerSuit);
+    }
+    int numCards = 4 * cardsPerSuit;
+    IntList states = new IntList();
+    enumerate(0, new int[numCards], states);
+    int[] sorted = Arrays.copyOf(states.values, states.size);
+    Arrays.sort(sorted);
+
+    byte[] cost = new byte[sorted.length];
+    Arrays.fill(cost, (byte) -1);
+    for (int i = 0; i < sorted.length; i++) {
+      cost(sorted, cost, i, cardsPerSuit);
+    }
+    return new PatternDatabase(cardsPerSuit, sorted.length,
+        IntBuffer.wrap(sorted), ByteBuffer.wrap(cost));
+  }
+
+  /**
+   * Load a database from a file by memory mapping it.
+   *
+   * @param file the file written by {@link #write(Path)}
+   * @return the database
+   * @throws IOException if reading fails or the file is not a pattern
+   *         database
+   */
+  public static PatternDatabase load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+        throw new IOException("Not a pattern database: " + file);
+      }
+      int cardsPerSuit = map.getInt(4);
+      int size = map.getInt(8);
+      if (map.capacity() != HEADER_BYTES + 5L * size) {
+        throw new IOException("Wrong pattern database size: " + file);
+      }
+      map.position(HEADER_BYTES);
+      IntBuffer keys = map.slice().asIntBuffer();
+      keys.limit(size);
+      map.position(HEADER_BYTES + 4 * size);
+      ByteBuffer costs = map.slice();
+      return new PatternDatabase(cardsPerSuit, size, keys, costs);
+    }
+  }
+
+  /**
+   * Write this database to a file.
+   *
+   * @param file the file to write
+   * @throws IOException if writing fails
+   */
+  public void write(Path file) throws IOException {
+    try (OutputStream stream = new FileOutputStream(file.toFile());
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(stream, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(cardsPerSuit);
+      out.writeInt(size);
+      for (int i = 0; i < size; i++) {
+        out.writeInt(keys.get(i));
+      }
+      for (int i = 0; i < size; i++) {
+        out.writeByte(costs.get(i));
+      }
+    }
+  }
+
+  public int getCardsPerSuit() {
+    return cardsPerSuit;
+  }
+
+  /**
+   * Get the number of abstract states in this database.
+   *
+   * @return the number of states
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the cost of an abstract state.
+   *
+   * @param key the abstract state
+   * @return the cost, or -1 if the key is not a state of this database
+   */
+  public int lookup(int key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int k = keys.get(mid);
+      if (k < key) {
+        low = mid + 1;
+      } else if (k > key) {
+        high = mid - 1;
+      } else {
+        return costs.get(mid);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the cost of the abstraction of a position.
+   *
+   * @param p a position
+   * @return the fewest moves that put the pattern cards on foundations
+   */
+  public int cost(Position p) {
+    return lookup(keyOf(p, null));
+  }
+
+  /**
+   * Get the abstract state of a position.
+   *
+   * @param p a position
+   * @param pattern if not null, filled with whether each card code is a
+   *        pattern card
+   * @return the key of the abstract state
+   */
+  int keyOf(Position p, boolean[] pattern) {
+    int[] next = MoveGenerator.foundationValues(p);
+    int numCards = 4 * cardsPerSuit;
+    int key = 0;
+    for (int id = 0; id < numCards; id++) {
+      key |= ABSENT << (4 * id);
+    }
+    for (int i = 0; i < p.getNumOpens(); i++) {
+      int id = patternId(p.getOpenCard(i), next);
+      if (id >= 0) {
+        key = set(key, id, OPEN);
+        mark(pattern, p.getOpenCard(i));
+      }
+    }
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      int below = BOTTOM;
+      for (int j = 0; j < p.getCascadeSize(i); j++) {
+        int card = p.getCascadeCard(i, j);
+        int id = patternId(card, next);
+        if (id >= 0) {
+          key = set(key, id, below);
+          below = id;
+          mark(pattern, card);
+        }
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Get the pattern card id of a card code.
+   *
+   * @param card a card code, or -1
+   * @param foundationValues the top value on the foundation of each suit
+   * @return the id, or -1 if the card is not a pattern card
+   */
+  private int patternId(int card, int[] foundationValues) {
+    if (card < 0) {
+      return -1;
+    }
+    int suit = CardCodes.suit(card);
+    int offset = CardCodes.value(card) - foundationValues[suit] - 1;
+    return offset >= 0 && offset < cardsPerSuit ? suit * cardsPerSuit + offset
+        : -1;
+  }
+
+  /**
+   * Helper method to mark a pattern card.
+   */
+  private static void mark(boolean[] pattern, int card) {
+    if (pattern != null) {
+      pattern[card] = true;
+    }
+  }
+
+  /**
+   * Get what lies under a card in a key.
+   */
+  static int get(int key, int id) {
+    return (key >>> (4 * id)) & 0xF;
+  }
+
+  /**
+   * Set what lies under a card in a key.
+   */
+  static int set(int key, int id, int value) {
+    return (key & ~(0xF << (4 * id))) | (value << (4 * id));
+  }
+
+  /**
+   * Add every valid abstract state to a list, choosing what lies under each
+   * card in turn. No two cards may lie on the same card, a card can only lie
+   * on a card in a cascade, and the cards under a card never lead back to it.
+   */
+  private static void enumerate(int id, int[] under, IntList states) {
+    if (id == under.length) {
+      int key = 0;
+      for (int i = 0; i < under.length; i++) {
+        key |= under[i] << (4 * i);
+      }
+      for (int i = 0; i < under.length; i++) {
+        if (under[i] < BOTTOM && !valid(under, i)) {
+          return;
+        }
+      }
+      states.add(key);
+      return;
+    }
+    for (int value = 0; value <= ABSENT; value++) {
+      if (value == id || value >= under.length && value < BOTTOM) {
+        continue;
+      }
+      if (value < BOTTOM) {
+        boolean taken = false;
+        for (int i = 0; i < id; i++) {
+          taken |= under[i] == value;
+        }
+        if (taken || value < id && under[value] >= OPEN) {
+          continue;
+        }
+      }
+      under[id] = value;
+      enumerate(id + 1, under, states);
+    }
+  }
+
+  /**
+   * Check that the cards under a card end at the bottom of a cascade, and
+   * that the card lies on a card in a cascade.
+   */
+  private static boolean valid(int[] under, int id) {
+    int current = under[id];
+    for (int steps = 0; steps < under.length; steps++) {
+      if (current == BOTTOM) {
+        return true;
+      }
+      if (current >= OPEN) {
+        return false;
+      }
+      current = under[current];
+    }
+    return false;
+  }
+
+  /**
+   * Compute the cost of the state at an index, computing the states it leads
+   * to first.
+   */
+  private static int cost(int[] keys, byte[] cost, int index,
+      int cardsPerSuit) {
+    if (cost[index] >= 0) {
+      return cost[index];
+    }
+    int key = keys[index];
+    int numCards = 4 * cardsPerSuit;
+    int best = Integer.MAX_VALUE;
+    for (int id = 0; id < numCards; id++) {
+      int under = get(key, id);
+      if (under == ABSENT || hasCardOnTop(key, id, numCards)) {
+        continue;
+      }
+      // Go to the foundation when all lower pattern cards of the suit are.
+      boolean next = true;
+      for (int lower = id - id % cardsPerSuit; lower < id; lower++) {
+        next &= get(key, lower) == ABSENT;
+      }
+      if (next) {
+        best = Math.min(best, 1 + cost(keys, cost, Arrays.binarySearch(keys,
+            set(key, id, ABSENT)), cardsPerSuit));
+      }
+      // Park a card of a cascade.
+      if (under != OPEN) {
+        best = Math.min(best, 1 + cost(keys, cost, Arrays.binarySearch(keys,
+            set(key, id, OPEN)), cardsPerSuit));
+      }
+    }
+    cost[index] = (byte) (best == Integer.MAX_VALUE ? 0 : best);
+    return cost[index];
+  }
+
+  /**
+   * To check whether another pattern card lies on a card.
+   */
+  private static boolean hasCardOnTop(int key, int id, int numCards) {
+    for (int i = 0; i < numCards; i++) {
+      if (get(key, i) == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A growable list of ints.
+   */
+  private static class IntList {
+    private int[] values = new int[1024];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, 2 * size);
+      }
+      values[size++] = value;
+    }
+  }
+}
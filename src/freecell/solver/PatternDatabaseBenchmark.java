@@ -0,0 +1,31 @@
+package freecell.solver;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * This class times building a {@link PatternDatabase} and writes it to a
+ * file.
+ */
+public class PatternDatabaseBenchmark {
+
+  /**
+   * Build a database and write it to a file.
+   *
+   * @param args the file to write and optionally the cards per suit
+   *        (default 2)
+   * @throws IOException if writing fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: PatternDatabaseBenchmark FILE [CARDS]");
+      System.exit(2);
+    }
+    int cardsPerSuit = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+    long start = System.nanoTime();
+    PatternDatabase db = PatternDatabase.build(cardsPerSuit);
+    db.write(Paths.get(args[0]));
+    System.out.println(String.format("%d states written in %.1f s", db.size(),
+        (System.nanoTime() - start) / 1e9));
+  }
+}
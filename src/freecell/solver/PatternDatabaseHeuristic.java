@@ -0,0 +1,59 @@
+package freecell.solver;
+
+import java.util.Arrays;
+
+import freecell.model.CardCodes;
+import freecell.model.Position;
+
+/**
+ * An admissible heuristic adding the cost of the pattern cards from a
+ * {@link PatternDatabase} to the cost of every other card counted like
+ * {@link BlockerHeuristic}. Every move moves one card, so the moves of the
+ * pattern cards and of the other cards can be counted apart and added. It is
+ * never below the blocker heuristic, and is above it when pattern cards block
+ * each other across cascades.
+ */
+public class PatternDatabaseHeuristic implements Heuristic {
+
+  private final PatternDatabase database;
+
+  /**
+   * Constructor for PatternDatabaseHeuristic.
+   *
+   * @param database the pattern database
+   * @throws IllegalArgumentException if the database is null
+   */
+  public PatternDatabaseHeuristic(PatternDatabase database)
+      throws IllegalArgumentException {
+    if (database == null) {
+      throw new IllegalArgumentException("Database cannot be null.");
+    }
+    this.database = database;
+  }
+
+  @Override
+  public int estimate(Position p) {
+    boolean[] pattern = new boolean[CardCodes.NUM_CODES];
+    int estimate = database.lookup(database.keyOf(p, pattern));
+    int numPattern = 0;
+    for (boolean b : pattern) {
+      numPattern += b ? 1 : 0;
+    }
+    estimate += 52 - p.getCardsOnFoundations() - numPattern;
+    int[] lowest = new int[4];
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      Arrays.fill(lowest, 14);
+      for (int j = 0; j < p.getCascadeSize(i); j++) {
+        int card = p.getCascadeCard(i, j);
+        int suit = CardCodes.suit(card);
+        int value = CardCodes.value(card);
+        if (lowest[suit] < value) {
+          estimate += pattern[card] ? 0 : 1;
+        } else {
+          lowest[suit] = value;
+        }
+      }
+    }
+    return estimate;
+  }
+}
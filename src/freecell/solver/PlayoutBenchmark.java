@@ -0,0 +1,28 @@
+package freecell.solver;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class runs playouts of a numbered deal with {@link PlayoutEngine}
+ * and prints their statistics.
+ */
+public class PlayoutBenchmark {
+
+  /**
+   * Run playouts of a numbered deal and print their statistics.
+   *
+   * @param args the deal number (default 1), the number of playouts (default
+   *        1000000) and the seed (default 1)
+   */
+  public static void main(String[] args) {
+    int deal = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+    long playouts = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+    System.out.println(new PlayoutEngine().run(Position.of(model), playouts,
+        seed));
+  }
+}
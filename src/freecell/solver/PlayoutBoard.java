@@ -0,0 +1,217 @@
+package freecell.solver;
+
+import freecell.model.CardCodes;
+import freecell.model.Position;
+
+/**
+ * A mutable board of card codes for fast playouts. Loading a position and
+ * making moves allocate nothing once the board has the shape of the position.
+ * Moves are ints with the source and destination bytes of
+ * {@link freecell.model.Move#pack()}, generated with the same pruning as
+ * {@link MoveGenerator}.
+ */
+final class PlayoutBoard {
+
+  private static final int EMPTY = -1;
+  private static final int OPEN = 0;
+  private static final int CASCADE = 1;
+  private static final int FOUNDATION = 2;
+
+  private int[] foundations = new int[0];
+  private int[] opens = new int[0];
+  private int[][] cascades = new int[0][];
+  private int[] sizes = new int[0];
+  private int onFoundations;
+
+  private int[] moves = new int[0];
+  private int numFoundationMoves;
+
+  /**
+   * Load a position into this board.
+   *
+   * @param p the position
+   */
+  void load(Position p) {
+    if (foundations.length != p.getNumFoundations()) {
+      foundations = new int[p.getNumFoundations()];
+    }
+    if (opens.length != p.getNumOpens()) {
+      opens = new int[p.getNumOpens()];
+    }
+    if (cascades.length != p.getNumCascades()) {
+      cascades = new int[p.getNumCascades()][CardCodes.NUM_CODES];
+      sizes = new int[p.getNumCascades()];
+    }
+    int maxMoves = (opens.length + cascades.length) * (cascades.length + 3);
+    if (moves.length < maxMoves) {
+      moves = new int[maxMoves];
+    }
+    for (int i = 0; i < foundations.length; i++) {
+      foundations[i] = p.getFoundationTop(i);
+    }
+    for (int i = 0; i < opens.length; i++) {
+      opens[i] = p.getOpenCard(i);
+    }
+    for (int i = 0; i < cascades.length; i++) {
+      sizes[i] = p.getCascadeSize(i);
+      for (int j = 0; j < sizes[i]; j++) {
+        cascades[i][j] = p.getCascadeCard(i, j);
+      }
+    }
+    onFoundations = p.getCardsOnFoundations();
+  }
+
+  /**
+   * To check whether all cards are on the foundations.
+   *
+   * @return true if the game is won
+   */
+  boolean isWon() {
+    return onFoundations == CardCodes.NUM_CODES;
+  }
+
+  /**
+   * Generate the moves of the board. Foundation moves come first.
+   *
+   * @return the number of moves, readable with {@link #getMove(int)}
+   */
+  int generate() {
+    int n = 0;
+    for (int i = 0; i < opens.length; i++) {
+      if (opens[i] != EMPTY) {
+        n = toFoundation(opens[i], pile(OPEN, i), n);
+      }
+    }
+    for (int i = 0; i < cascades.length; i++) {
+      if (sizes[i] > 0) {
+        n = toFoundation(cascades[i][sizes[i] - 1], pile(CASCADE, i), n);
+      }
+    }
+    numFoundationMoves = n;
+
+    int emptyCascade = EMPTY;
+    for (int i = 0; i < cascades.length && emptyCascade == EMPTY; i++) {
+      if (sizes[i] == 0) {
+        emptyCascade = i;
+      }
+    }
+    int emptyOpen = EMPTY;
+    for (int i = 0; i < opens.length && emptyOpen == EMPTY; i++) {
+      if (opens[i] == EMPTY) {
+        emptyOpen = i;
+      }
+    }
+    for (int i = 0; i < opens.length; i++) {
+      if (opens[i] != EMPTY) {
+        n = toCascades(opens[i], pile(OPEN, i), EMPTY, emptyCascade, n);
+      }
+    }
+    for (int i = 0; i < cascades.length; i++) {
+      if (sizes[i] == 0) {
+        continue;
+      }
+      int card = cascades[i][sizes[i] - 1];
+      n = toCascades(card, pile(CASCADE, i), i,
+          sizes[i] > 1 ? emptyCascade : EMPTY, n);
+      if (emptyOpen != EMPTY) {
+        moves[n++] = pile(CASCADE, i) << 8 | pile(OPEN, emptyOpen);
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Get the number of foundation moves found by the last
+   * {@link #generate()}.
+   *
+   * @return the number of foundation moves
+   */
+  int getNumFoundationMoves() {
+    return numFoundationMoves;
+  }
+
+  /**
+   * Get a move found by the last {@link #generate()}.
+   *
+   * @param i the index of the move
+   * @return the move
+   */
+  int getMove(int i) {
+    return moves[i];
+  }
+
+  /**
+   * Make a move found by {@link #generate()}.
+   *
+   * @param move the move
+   */
+  void apply(int move) {
+    int from = move >>> 8;
+    int to = move & 0xFF;
+    int fromPile = from & 0x3F;
+    int toPile = to & 0x3F;
+    int card;
+    if (from >>> 6 == OPEN) {
+      card = opens[fromPile];
+      opens[fromPile] = EMPTY;
+    } else if (from >>> 6 == CASCADE) {
+      card = cascades[fromPile][--sizes[fromPile]];
+    } else {
+      card = foundations[fromPile];
+      foundations[fromPile] = CardCodes.value(card) == 1 ? EMPTY : card - 1;
+      onFoundations--;
+    }
+    if (to >>> 6 == OPEN) {
+      opens[toPile] = card;
+    } else if (to >>> 6 == CASCADE) {
+      cascades[toPile][sizes[toPile]++] = card;
+    } else {
+      foundations[toPile] = card;
+      onFoundations++;
+    }
+  }
+
+  /**
+   * Helper method to add the foundation move of a card, if any.
+   */
+  private int toFoundation(int card, int source, int n) {
+    for (int f = 0; f < foundations.length; f++) {
+      int top = foundations[f];
+      if (top == EMPTY ? CardCodes.value(card) == 1
+          : card == top + 1 && CardCodes.value(card) != 1) {
+        moves[n++] = source << 8 | pile(FOUNDATION, f);
+        break;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Helper method to add the moves of a card onto other cascades, and onto an
+   * empty cascade if one is given.
+   */
+  private int toCascades(int card, int source, int self, int emptyCascade,
+      int n) {
+    for (int i = 0; i < cascades.length; i++) {
+      if (i == self || sizes[i] == 0) {
+        continue;
+      }
+      int under = cascades[i][sizes[i] - 1];
+      if (CardCodes.isRed(under) != CardCodes.isRed(card)
+          && CardCodes.value(under) == CardCodes.value(card) + 1) {
+        moves[n++] = source << 8 | pile(CASCADE, i);
+      }
+    }
+    if (emptyCascade != EMPTY) {
+      moves[n++] = source << 8 | pile(CASCADE, emptyCascade);
+    }
+    return n;
+  }
+
+  /**
+   * Helper method to pack a pile into a byte.
+   */
+  private static int pile(int type, int pile) {
+    return type << 6 | pile;
+  }
+}
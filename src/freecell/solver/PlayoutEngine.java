@@ -0,0 +1,186 @@
+package freecell.solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import freecell.model.Position;
+
+/**
+ * This class runs many playouts from a position and aggregates how often they
+ * win and how long they are. A playout makes random legal moves until the game
+ * is won, no move is left, or a move limit is reached. With the greedy policy
+ * a playout always takes a foundation move when there is one.
+ *
+ * <p>Playouts run on a {@link PlayoutBoard} per thread and split into batches
+ * in a fork join pool. Every batch has its own random generator seeded from
+ * the seed of the run and the index of the batch, so a run gives the same
+ * statistics for the same seed whatever the number of threads. A run started
+ * from a task of the pool runs in that task.</p>
+ */
+public class PlayoutEngine {
+
+  private static final int LEAF_SIZE = 256;
+
+  private final ForkJoinPool pool;
+  private final int maxMoves;
+  private final boolean greedy;
+  private final ThreadLocal<PlayoutBoard> boards;
+
+  /**
+   * Construct an engine using the common pool, a limit of 1000 moves and the
+   * greedy policy.
+   */
+  public PlayoutEngine() {
+    this(ForkJoinPool.commonPool(), 1000, true);
+  }
+
+  /**
+   * Constructor for PlayoutEngine.
+   *
+   * @param pool the pool to run playouts in
+   * @param maxMoves the most moves of a playout
+   * @param greedy true to always take a foundation move when there is one
+   * @throws IllegalArgumentException if the pool is null or the move limit is
+   *         not positive
+   */
+  public PlayoutEngine(ForkJoinPool pool, int maxMoves, boolean greedy)
+      throws IllegalArgumentException {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null.");
+    }
+    if (maxMoves < 1) {
+      throw new IllegalArgumentException("Wrong move limit: " + maxMoves);
+    }
+    this.pool = pool;
+    this.maxMoves = maxMoves;
+    this.greedy = greedy;
+    this.boards = ThreadLocal.withInitial(PlayoutBoard::new);
+  }
+
+  /**
+   * Run playouts from a position.
+   *
+   * @param p the position
+   * @param playouts the number of playouts
+   * @param seed the seed of the random generators
+   * @return the statistics of the playouts
+   * @throws IllegalArgumentException if the position is null or the number of
+   *         playouts is negative
+   */
+  public PlayoutStats run(Position p, long playouts, long seed)
+      throws IllegalArgumentException {
+    if (p == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    if (playouts < 0) {
+      throw new IllegalArgumentException("Wrong number of playouts: "
+          + playouts);
+    }
+    long start = System.nanoTime();
+    Totals totals = new Totals();
+    PlayoutTask task = new PlayoutTask(p, seed, 0, playouts, totals);
+    if (ForkJoinTask.getPool() == pool) {
+      task.invoke();
+    } else {
+      pool.invoke(task);
+    }
+    return new PlayoutStats(playouts, totals.wins.sum(), totals.moves.sum(),
+        totals.winMoves.sum(), System.nanoTime() - start);
+  }
+
+  /**
+   * Run one batch of playouts on the board of the current thread.
+   */
+  private void runBatch(Position p, long seed, long from, long to,
+      Totals totals) {
+    PlayoutBoard board = boards.get();
+    long state = mix(seed + from * 0x9E3779B97F4A7C15L);
+    long wins = 0;
+    long moves = 0;
+    long winMoves = 0;
+    for (long i = from; i < to; i++) {
+      board.load(p);
+      int length = 0;
+      while (!board.isWon() && length < maxMoves) {
+        int n = board.generate();
+        if (n == 0) {
+          break;
+        }
+        int choice;
+        if (greedy && board.getNumFoundationMoves() > 0) {
+          choice = 0;
+        } else {
+          state ^= state >>> 12;
+          state ^= state << 25;
+          state ^= state >>> 27;
+          choice = (int) (((state * 0x2545F4914F6CDD1DL) >>> 33) % n);
+        }
+        board.apply(board.getMove(choice));
+        length++;
+      }
+      moves += length;
+      if (board.isWon()) {
+        wins++;
+        winMoves += length;
+      }
+    }
+    totals.wins.add(wins);
+    totals.moves.add(moves);
+    totals.winMoves.add(winMoves);
+  }
+
+  /**
+   * Helper method to mix a seed into a non zero generator state.
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+    z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    z ^= z >>> 33;
+    return z == 0 ? 1 : z;
+  }
+
+  /**
+   * The running totals of a run.
+   */
+  private static class Totals {
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder winMoves = new LongAdder();
+  }
+
+  /**
+   * The task running a range of playouts, split in halves down to batches.
+   */
+  private class PlayoutTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Position position;
+    private final long seed;
+    private final long from;
+    private final long to;
+    private final Totals totals;
+
+    PlayoutTask(Position position, long seed, long from, long to,
+        Totals totals) {
+      this.position = position;
+      this.seed = seed;
+      this.from = from;
+      this.to = to;
+      this.totals = totals;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= LEAF_SIZE) {
+        runBatch(position, seed, from, to, totals);
+        return;
+      }
+      long half = Math.max(LEAF_SIZE, (to - from) / 2 / LEAF_SIZE * LEAF_SIZE);
+      long mid = from + half;
+      invokeAll(new PlayoutTask(position, seed, from, mid, totals),
+          new PlayoutTask(position, seed, mid, to, totals));
+    }
+  }
+}
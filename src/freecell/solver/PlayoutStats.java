@@ -0,0 +1,90 @@
+package freecell.solver;
+
+/**
+ * This class represents the statistics of a batch of playouts.
+ */
+public final class PlayoutStats {
+
+  private final long playouts;
+  private final long wins;
+  private final long moves;
+  private final long winMoves;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for PlayoutStats.
+   *
+   * @param playouts the number of playouts
+   * @param wins the number of playouts that won
+   * @param moves the moves made by all playouts
+   * @param winMoves the moves made by the playouts that won
+   * @param elapsedNanos the time taken
+   */
+  public PlayoutStats(long playouts, long wins, long moves, long winMoves,
+      long elapsedNanos) {
+    this.playouts = playouts;
+    this.wins = wins;
+    this.moves = moves;
+    this.winMoves = winMoves;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getPlayouts() {
+    return playouts;
+  }
+
+  public long getWins() {
+    return wins;
+  }
+
+  public long getMoves() {
+    return moves;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Get the fraction of playouts that won.
+   *
+   * @return the win rate, 0 if there were no playouts
+   */
+  public double getWinRate() {
+    return playouts == 0 ? 0 : (double) wins / playouts;
+  }
+
+  /**
+   * Get the average number of moves of a playout.
+   *
+   * @return the average length, 0 if there were no playouts
+   */
+  public double getAverageLength() {
+    return playouts == 0 ? 0 : (double) moves / playouts;
+  }
+
+  /**
+   * Get the average number of moves of a playout that won.
+   *
+   * @return the average length, 0 if no playout won
+   */
+  public double getAverageWinLength() {
+    return wins == 0 ? 0 : (double) winMoves / wins;
+  }
+
+  /**
+   * Get the number of playouts per second.
+   *
+   * @return the rate
+   */
+  public double getPlayoutsPerSecond() {
+    return elapsedNanos == 0 ? 0 : playouts * 1e9 / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d playouts, win rate %.4f, average length %.1f, "
+        + "average win length %.1f, %.0f playouts/s", playouts, getWinRate(),
+        getAverageLength(), getAverageWinLength(), getPlayoutsPerSecond());
+  }
+}
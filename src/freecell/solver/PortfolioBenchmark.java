@@ -0,0 +1,47 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class races a {@link PortfolioSolver} of several strategies on
+ * the numbered deals and reports which strategies win.
+ */
+public class PortfolioBenchmark {
+
+  /**
+   * Race a portfolio of strategies on deals and print the statistics of each
+   * strategy.
+   *
+   * @param args the number of deals (default 100)
+   */
+  public static void main(String[] args) {
+    int numDeals = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    List<Solver> strategies = new ArrayList<>();
+    strategies.add(new BestFirstSolver(new BlockerHeuristic(), 1, 200_000));
+    strategies.add(new BestFirstSolver(new BlockerHeuristic(), 3, 1_000_000));
+    strategies.add(new BestFirstSolver(new BlockerHeuristic(), 10,
+        1_000_000));
+    strategies.add(new ParallelSolver(new ForkJoinPool(2),
+        new BlockerHeuristic(), 1_000_000));
+    try (PortfolioSolver portfolio = new PortfolioSolver(strategies)) {
+      int solved = 0;
+      long begin = System.nanoTime();
+      for (int deal = 1; deal <= numDeals; deal++) {
+        FreecellModel model = new FreecellModel();
+        model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+        solved += portfolio.solve(Position.of(model)).isSolved() ? 1 : 0;
+      }
+      System.out.printf("%d of %d deals solved in %d ms%n", solved, numDeals,
+          (System.nanoTime() - begin) / 1_000_000);
+      for (StrategyStats s : portfolio.getStats()) {
+        System.out.println(s);
+      }
+    }
+  }
+}
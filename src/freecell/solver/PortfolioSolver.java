@@ -0,0 +1,195 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import freecell.metrics.SolverEvent;
+import freecell.model.Position;
+
+/**
+ * A solver that races several strategies on the same position, each on its
+ * own thread. The first strategy to return a solution that wins from the
+ * start is the winner, and the others are cancelled by interrupting their
+ * threads, which every {@link Solver} takes as a reason to give up. A strategy
+ * that throws an exception loses the race without stopping it. If no
+ * strategy finds a solution, the result is no solution if any strategy proved
+ * it, and giving up otherwise.
+ *
+ * <p>Every strategy has a {@link StrategyStats} counting the races it won, so
+ * strategies that never win can be dropped from the portfolio.</p>
+ */
+public class PortfolioSolver implements Solver, AutoCloseable {
+
+  private final List<Solver> strategies;
+  private final List<StrategyStats> stats;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+
+  /**
+   * Construct a portfolio with its own daemon thread per strategy, shut down
+   * by {@link #close()}.
+   *
+   * @param strategies the strategies to race
+   * @throws IllegalArgumentException if there are no strategies or one is null
+   */
+  public PortfolioSolver(List<? extends Solver> strategies)
+      throws IllegalArgumentException {
+    this(Executors.newFixedThreadPool(Math.max(1, strategies == null ? 1
+        : strategies.size()), r -> {
+          Thread t = new Thread(r, "portfolio");
+          t.setDaemon(true);
+          return t;
+        }), strategies, true);
+  }
+
+  /**
+   * Construct a portfolio running on an executor, which should have a thread
+   * for every strategy.
+   *
+   * @param executor the executor to run the strategies on
+   * @param strategies the strategies to race
+   * @throws IllegalArgumentException if the executor is null, there are no
+   *         strategies or one is null
+   */
+  public PortfolioSolver(ExecutorService executor,
+      List<? extends Solver> strategies) throws IllegalArgumentException {
+    this(executor, strategies, false);
+  }
+
+  /**
+   * Construct a portfolio, checking the arguments.
+   */
+  private PortfolioSolver(ExecutorService executor,
+      List<? extends Solver> strategies, boolean ownsExecutor)
+      throws IllegalArgumentException {
+    if (executor == null || strategies == null || strategies.isEmpty()
+        || strategies.contains(null)) {
+      if (ownsExecutor && executor != null) {
+        executor.shutdown();
+      }
+      throw new IllegalArgumentException("Executor and strategies cannot be "
+          + "null or empty.");
+    }
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.strategies = Collections.unmodifiableList(new ArrayList<>(strategies));
+    List<StrategyStats> list = new ArrayList<>();
+    for (Solver s : strategies) {
+      list.add(new StrategyStats(s.getName()));
+    }
+    this.stats = Collections.unmodifiableList(list);
+  }
+
+  @Override
+  public SolveResult solve(Position start) throws IllegalArgumentException {
+    SolverEvent event = new SolverEvent();
+    event.begin();
+    SolveResult result = race(start);
+    if (event.shouldCommit()) {
+      event.setResult(getName(), result.getStatus().name(), result.getNodes(),
+          result.getMoves().size());
+      event.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Race the strategies on a position, without events.
+   */
+  private SolveResult race(Position start) throws IllegalArgumentException {
+    if (start == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    long begin = System.nanoTime();
+    CompletionService<Finish> service = new ExecutorCompletionService<>(
+        executor);
+    List<Future<Finish>> futures = new ArrayList<>();
+    for (int i = 0; i < strategies.size(); i++) {
+      int index = i;
+      stats.get(i).recordRace();
+      futures.add(service.submit(() -> new Finish(index,
+          strategies.get(index).solve(start))));
+    }
+
+    boolean proved = false;
+    long nodes = 0;
+    try {
+      for (int remaining = futures.size(); remaining > 0; remaining--) {
+        Future<Finish> done = service.take();
+        Finish finish;
+        try {
+          finish = done.get();
+        } catch (ExecutionException e) {
+          stats.get(futures.indexOf(done)).recordFailed();
+          continue;
+        }
+        SolveResult result = finish.result;
+        nodes += result.getNodes();
+        if (result.isSolved()
+            && SolutionShortener.wins(start, result.getMoves())) {
+          stats.get(finish.index).recordWin(System.nanoTime() - begin);
+          return new SolveResult(SolveResult.Status.SOLVED, result.getMoves(),
+              nodes, System.nanoTime() - begin);
+        }
+        stats.get(finish.index).recordFailed();
+        proved |= result.getStatus() == SolveResult.Status.NO_SOLUTION;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      for (Future<Finish> f : futures) {
+        f.cancel(true);
+      }
+    }
+    return new SolveResult(proved ? SolveResult.Status.NO_SOLUTION
+        : SolveResult.Status.GAVE_UP, null, nodes, System.nanoTime() - begin);
+  }
+
+  /**
+   * Get the statistics of every strategy, in the order of the strategies.
+   *
+   * @return an unmodifiable list of live statistics
+   */
+  public List<StrategyStats> getStats() {
+    return stats;
+  }
+
+  @Override
+  public String getName() {
+    StringBuilder name = new StringBuilder("portfolio(");
+    for (int i = 0; i < strategies.size(); i++) {
+      name.append(i == 0 ? "" : ",").append(strategies.get(i).getName());
+    }
+    return name.append(")").toString();
+  }
+
+  /**
+   * Shut down the threads of this portfolio if it made them.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The result of a strategy with its index.
+   */
+  private static class Finish {
+    private final int index;
+    private final SolveResult result;
+
+    Finish(int index, SolveResult result) {
+      this.index = index;
+      this.result = result;
+    }
+  }
+}
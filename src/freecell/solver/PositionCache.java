@@ -0,0 +1,221 @@
+package freecell.solver;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import freecell.model.Position;
+import freecell.model.PositionCodec;
+
+/**
+ * A cache of values for positions, such as solutions or best moves, bounded
+ * to a number of entries. Keys are the compact {@link PositionCodec} encoding
+ * of the exact position, since solutions and moves name piles by number.
+ *
+ * <p>Eviction follows W-TinyLFU. New entries go into a small LRU window of 1%
+ * of the capacity. An entry pushed out of the window is admitted into the LRU
+ * main region only if a {@link FrequencySketch} says its key was asked for
+ * more often than the key main would evict for it. Under the skewed access of
+ * popular deals this keeps the hot positions that plain LRU loses to a stream
+ * of positions asked for once. All methods are thread safe.</p>
+ *
+ * @param <V> the type of values
+ */
+public class PositionCache<V> {
+
+  private final int capacity;
+  private final int windowCapacity;
+  private final LinkedHashMap<Key, V> window = new LinkedHashMap<>(16, 0.75f,
+      true);
+  private final LinkedHashMap<Key, V> main = new LinkedHashMap<>(16, 0.75f,
+      true);
+  private final FrequencySketch sketch;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructor for PositionCache.
+   *
+   * @param capacity the most entries to hold
+   * @throws IllegalArgumentException if the capacity is less than 2
+   */
+  public PositionCache(int capacity) throws IllegalArgumentException {
+    this(capacity, true);
+  }
+
+  /**
+   * Constructor for PositionCache that can turn admission off, making it a
+   * plain LRU cache to compare against.
+   */
+  PositionCache(int capacity, boolean admission)
+      throws IllegalArgumentException {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("Wrong capacity: " + capacity);
+    }
+    this.capacity = capacity;
+    this.windowCapacity = admission ? Math.max(1, capacity / 100) : capacity;
+    this.sketch = new FrequencySketch(capacity);
+  }
+
+  /**
+   * Get the value for a position.
+   *
+   * @param p the position
+   * @return the value, or null if not cached
+   * @throws IllegalArgumentException if the position is null
+   */
+  public V get(Position p) throws IllegalArgumentException {
+    Key key = key(p);
+    V value;
+    synchronized (this) {
+      sketch.increment(key.spread());
+      value = window.get(key);
+      if (value == null) {
+        value = main.get(key);
+      }
+    }
+    (value == null ? misses : hits).increment();
+    return value;
+  }
+
+  /**
+   * Put the value for a position, replacing any value it has.
+   *
+   * @param p the position
+   * @param value the value
+   * @throws IllegalArgumentException if the position or value is null
+   */
+  public void put(Position p, V value) throws IllegalArgumentException {
+    if (value == null) {
+      throw new IllegalArgumentException("Value cannot be null.");
+    }
+    Key key = key(p);
+    synchronized (this) {
+      if (main.containsKey(key)) {
+        main.put(key, value);
+        return;
+      }
+      window.put(key, value);
+      if (window.size() <= windowCapacity) {
+        return;
+      }
+      Map.Entry<Key, V> candidate = removeEldest(window);
+      if (main.size() < capacity - windowCapacity) {
+        main.put(candidate.getKey(), candidate.getValue());
+        return;
+      }
+      evictions.increment();
+      if (main.isEmpty()) {
+        return;
+      }
+      Key victim = main.keySet().iterator().next();
+      if (sketch.frequency(candidate.getKey().spread())
+          > sketch.frequency(victim.spread())) {
+        main.remove(victim);
+        main.put(candidate.getKey(), candidate.getValue());
+      }
+    }
+  }
+
+  /**
+   * Helper method to remove the least recently used entry of a region.
+   */
+  private static <V> Map.Entry<Key, V> removeEldest(LinkedHashMap<Key, V> map) {
+    Iterator<Map.Entry<Key, V>> it = map.entrySet().iterator();
+    Map.Entry<Key, V> eldest = it.next();
+    Map.Entry<Key, V> copy = new AbstractMap.SimpleImmutableEntry<>(eldest);
+    it.remove();
+    return copy;
+  }
+
+  /**
+   * Helper method to make the key of a position.
+   */
+  private static Key key(Position p) throws IllegalArgumentException {
+    if (p == null) {
+      throw new IllegalArgumentException("Position cannot be null.");
+    }
+    return new Key(PositionCodec.encode(p));
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Get the number of entries.
+   *
+   * @return the size
+   */
+  public synchronized int size() {
+    return window.size() + main.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Get the number of entries dropped to stay within the capacity, either
+   * evicted from main or refused admission to it.
+   *
+   * @return the count
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Get the share of lookups that found a value.
+   *
+   * @return the hit rate, 0 before any lookup
+   */
+  public double getHitRate() {
+    long h = hits.sum();
+    long n = h + misses.sum();
+    return n == 0 ? 0 : (double) h / n;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d of %d entries, %d hits, %d misses (%.1f%%), "
+        + "%d evictions", size(), capacity, getHits(), getMisses(),
+        100 * getHitRate(), getEvictions());
+  }
+
+  /**
+   * The encoding of a position with its hash.
+   */
+  private static final class Key {
+    private final byte[] bytes;
+    private final int hash;
+
+    Key(byte[] bytes) {
+      this.bytes = bytes;
+      this.hash = Arrays.hashCode(bytes);
+    }
+
+    long spread() {
+      return hash * 0x9E3779B97F4A7C15L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && hash == ((Key) o).hash
+          && Arrays.equals(bytes, ((Key) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package freecell.solver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class compares the hit rates of {@link PositionCache} with and
+ * without admission by frequency.
+ */
+public class PositionCacheBenchmark {
+
+  /**
+   * Compare the hit rates of the cache and plain LRU on requests for deal
+   * starts drawn from a Zipf distribution, as popular deals are asked for far
+   * more often than the rest.
+   *
+   * @param args the number of deals (default 20000), the capacity (default
+   *        500), the number of requests (default 1000000) and the Zipf
+   *        exponent (default 0.9)
+   */
+  public static void main(String[] args) {
+    int numDeals = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+    int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+    int numRequests = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+    double exponent = args.length > 3 ? Double.parseDouble(args[3]) : 0.9;
+
+    Position[] deals = new Position[numDeals];
+    double[] cumulative = new double[numDeals];
+    double total = 0;
+    for (int i = 0; i < numDeals; i++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(i + 1), 8, 4, false);
+      deals[i] = Position.of(model);
+      total += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = total;
+    }
+    int[] requests = new int[numRequests];
+    Random random = new Random(7);
+    for (int i = 0; i < numRequests; i++) {
+      int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+      requests[i] = Math.min(numDeals - 1, index < 0 ? -index - 1 : index);
+    }
+
+    for (boolean admission : new boolean[] {false, true}) {
+      PositionCache<Integer> cache = new PositionCache<>(capacity, admission);
+      long begin = System.nanoTime();
+      for (int r : requests) {
+        if (cache.get(deals[r]) == null) {
+          cache.put(deals[r], r);
+        }
+      }
+      System.out.printf("%-12s %s, %d ms%n", admission ? "w-tinylfu" : "lru",
+          cache, (System.nanoTime() - begin) / 1_000_000);
+    }
+  }
+}
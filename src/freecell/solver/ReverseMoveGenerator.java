@@ -0,0 +1,90 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+
+/**
+ * This class generates the moves that lead to a position, for searching
+ * backwards from the won position. It mirrors {@link MoveGenerator}: a move is
+ * generated here exactly when, from the position before it, that generator
+ * would make a move to a position with the same canonical hash. So a source
+ * pile that is empty is only the first empty one of its type, moves between
+ * open piles and moves off foundations are skipped, and a lone card never
+ * comes from an otherwise empty cascade to an empty cascade.
+ */
+public class ReverseMoveGenerator {
+
+  /**
+   * Get the moves that lead to a position. Every move can be taken back with
+   * {@link Position#takeBack(Move)}.
+   *
+   * @param p a position
+   * @return a new list of moves
+   */
+  public List<Move> moves(Position p) {
+    List<Move> toReturn = new ArrayList<>();
+    int firstEmptyOpen = -1;
+    for (int i = 0; i < p.getNumOpens(); i++) {
+      if (p.getOpenCard(i) < 0) {
+        firstEmptyOpen = i;
+        break;
+      }
+    }
+    int firstEmptyCascade = -1;
+    for (int i = 0; i < p.getNumCascades(); i++) {
+      if (p.getCascadeSize(i) == 0) {
+        firstEmptyCascade = i;
+        break;
+      }
+    }
+
+    for (PileType type : PileType.values()) {
+      for (int i = 0; i < count(p, type); i++) {
+        if (p.getTop(type, i) < 0) {
+          continue;
+        }
+        for (int j = 0; j < p.getNumCascades(); j++) {
+          if (type == PileType.CASCADE && i == j) {
+            continue;
+          }
+          if (p.getCascadeSize(j) == 0 && (j != firstEmptyCascade
+              || (type == PileType.CASCADE && p.getCascadeSize(i) == 1))) {
+            continue;
+          }
+          add(p, new Move(PileType.CASCADE, j, type, i), toReturn);
+        }
+        if (type != PileType.OPEN && firstEmptyOpen >= 0) {
+          add(p, new Move(PileType.OPEN, firstEmptyOpen, type, i), toReturn);
+        }
+      }
+    }
+    return toReturn;
+  }
+
+  /**
+   * Helper method to add a move if it can be taken back.
+   */
+  private static void add(Position p, Move m, List<Move> moves) {
+    if (p.canTakeBack(m)) {
+      moves.add(m);
+    }
+  }
+
+  /**
+   * Helper method to get the number of piles of a type.
+   */
+  private static int count(Position p, PileType type) {
+    switch (type) {
+      case FOUNDATION:
+        return p.getNumFoundations();
+      case OPEN:
+        return p.getNumOpens();
+      default:
+        return p.getNumCascades();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * A node of a search tree: a position with the move and node it was reached
+ * from. Nodes are immutable, so a path can be shared by many nodes.
+ */
+class SearchNode {
+
+  final Position position;
+  final SearchNode parent;
+  final Move move;
+  final int depth;
+  final int priority;
+
+  /**
+   * Constructor for SearchNode.
+   *
+   * @param position the position of this node
+   * @param parent the node this node was reached from, null for the root
+   * @param move the move from the parent, null for the root
+   * @param priority a search order value, lower first
+   */
+  SearchNode(Position position, SearchNode parent, Move move, int priority) {
+    this.position = position;
+    this.parent = parent;
+    this.move = move;
+    this.depth = parent == null ? 0 : parent.depth + 1;
+    this.priority = priority;
+  }
+
+  /**
+   * Get the moves from the root to this node.
+   *
+   * @return a new list of moves in order
+   */
+  List<Move> path() {
+    List<Move> moves = new ArrayList<>(depth);
+    for (SearchNode n = this; n.parent != null; n = n.parent) {
+      moves.add(n.move);
+    }
+    Collections.reverse(moves);
+    return moves;
+  }
+}
@@ -0,0 +1,55 @@
+package freecell.solver;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.Move;
+import freecell.model.Position;
+
+/**
+ * This class measures how much {@link SolutionShortener} shortens the
+ * solutions of the numbered deals, and how long it takes.
+ */
+public class ShortenerBenchmark {
+
+  /**
+   * Solve the numbered deals 1 to n, shorten every solution and print the
+   * lengths, the reduction and the time taken.
+   *
+   * @param args the number of deals (default 50), and "dfs" to shorten the
+   *        solutions of {@link ParallelSolver} instead of
+   *        {@link BestFirstSolver}
+   */
+  public static void main(String[] args) {
+    int numDeals = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+    Solver solver = args.length > 1 && args[1].equals("dfs")
+        ? new ParallelSolver(new ForkJoinPool(1), new BlockerHeuristic(),
+        1_000_000)
+        : new BestFirstSolver();
+    SolutionShortener shortener = new SolutionShortener();
+    long totalBefore = 0;
+    long totalAfter = 0;
+    long totalNanos = 0;
+    System.out.println("deal  before  after  ratio      ms");
+    for (int d = 1; d <= numDeals; d++) {
+      Position start = SolverBenchmark.deal(d);
+      SolveResult result = solver.solve(start);
+      if (!result.isSolved()) {
+        System.out.println(String.format("%4d  %s", d, result.getStatus()));
+        continue;
+      }
+      long begin = System.nanoTime();
+      List<Move> shorter = shortener.shorten(start, result.getMoves());
+      long nanos = System.nanoTime() - begin;
+      int before = result.getMoves().size();
+      totalBefore += before;
+      totalAfter += shorter.size();
+      totalNanos += nanos;
+      System.out.println(String.format("%4d %7d %6d %6.2f %7.1f", d, before,
+          shorter.size(), (double) shorter.size() / before, nanos / 1e6));
+    }
+    System.out.println(String.format("total %6d %6d %6.2f %7.1f", totalBefore,
+        totalAfter, (double) totalAfter / Math.max(1, totalBefore),
+        totalNanos / 1e6));
+  }
+}
@@ -0,0 +1,110 @@
+package freecell.solver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This class makes concurrent calls for the same key share one computation.
+ * The first caller for a key runs the computation on its own thread; callers
+ * for the same key that arrive before it finishes wait for it and get the same
+ * result, or the same exception. A waiting caller that is interrupted stops
+ * waiting and fails with its interrupt flag set, leaving the computation to
+ * the others. Nothing is kept once a computation finishes, so a later call
+ * computes again.
+ *
+ * @param <K> the type of keys, with equals and hashCode
+ * @param <V> the type of results
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight =
+      new ConcurrentHashMap<>();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder shared = new LongAdder();
+
+  /**
+   * Get the result of a computation for a key, sharing a computation already
+   * running for an equal key.
+   *
+   * @param key the key
+   * @param computation computes the result for the key
+   * @return the result
+   * @throws IllegalArgumentException if an argument is null
+   * @throws IllegalStateException if interrupted while waiting for a shared
+   *         computation
+   */
+  public V run(K key, Supplier<V> computation)
+      throws IllegalArgumentException, IllegalStateException {
+    if (key == null || computation == null) {
+      throw new IllegalArgumentException("Key and computation cannot be null.");
+    }
+    calls.increment();
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      shared.increment();
+      try {
+        return running.get();
+      } catch (ExecutionException e) {
+        throw rethrow(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting.", e);
+      }
+    }
+    try {
+      V value = computation.get();
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /**
+   * Get the number of computations running.
+   *
+   * @return the number of keys in flight
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * Get the number of calls to {@link #run}.
+   *
+   * @return the count
+   */
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  /**
+   * Get the number of calls that shared a computation instead of running one.
+   *
+   * @return the count
+   */
+  public long getShared() {
+    return shared.sum();
+  }
+
+  /**
+   * Helper method to throw the exception of a shared computation again.
+   */
+  private static RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new IllegalStateException("Computation failed.", cause);
+  }
+}
@@ -0,0 +1,279 @@
+package freecell.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+
+/**
+ * This class shortens winning move lists, from solvers or from recorded games.
+ * It repeats three passes until none of them shortens the list:
+ * <ul>
+ *   <li>Removing cycles: the moves between two visits of the same position
+ *   are dropped.</li>
+ *   <li>Merging transits: a card moved to a pile and later moved on from it
+ *   is moved straight to where it ends, if the rest still wins.</li>
+ *   <li>Re-solving windows: from every position a short breadth first search
+ *   looks for a later position of the list, and takes the shortcut when it is
+ *   fewer moves than the list.</li>
+ * </ul>
+ * Every shortened list is a winning list from the same start position.
+ * Positions are compared with their piles in place, so moves after a shortcut
+ * keep referring to the same piles.
+ */
+public class SolutionShortener {
+
+  private final int windowDepth;
+  private final int nodeBudget;
+
+  /**
+   * Construct a shortener searching windows 3 moves deep within 5000
+   * positions.
+   */
+  public SolutionShortener() {
+    this(3, 5000);
+  }
+
+  /**
+   * Constructor for SolutionShortener.
+   *
+   * @param windowDepth the most moves of a shortcut
+   * @param nodeBudget the most positions searched from every position
+   * @throws IllegalArgumentException if a number is not positive
+   */
+  public SolutionShortener(int windowDepth, int nodeBudget)
+      throws IllegalArgumentException {
+    if (windowDepth < 1 || nodeBudget < 1) {
+      throw new IllegalArgumentException("Depth and budget must be positive.");
+    }
+    this.windowDepth = windowDepth;
+    this.nodeBudget = nodeBudget;
+  }
+
+  /**
+   * Shorten a winning move list.
+   *
+   * @param start the start position
+   * @param moves the moves from the start position that win the game
+   * @return a new winning list, no longer than the given one
+   * @throws IllegalArgumentException if the moves do not win the game
+   */
+  public List<Move> shorten(Position start, List<Move> moves)
+      throws IllegalArgumentException {
+    if (start == null || moves == null || !wins(start, moves)) {
+      throw new IllegalArgumentException("Not a winning move list.");
+    }
+    List<Move> current = new ArrayList<>(moves);
+    int before;
+    do {
+      before = current.size();
+      current = removeCycles(start, current);
+      current = mergeTransits(start, current);
+      current = resolveWindows(start, current);
+    } while (current.size() < before);
+    return current;
+  }
+
+  /**
+   * To check whether a move list is legal from a position and wins the game.
+   *
+   * @param start the start position
+   * @param moves the moves
+   * @return true if every move is legal and the game is over after the last
+   */
+  public static boolean wins(Position start, List<Move> moves) {
+    Position p = start;
+    for (Move m : moves) {
+      if (!p.isLegal(m)) {
+        return false;
+      }
+      p = p.move(m);
+    }
+    return p.isGameOver();
+  }
+
+  /**
+   * Drop the moves between the first and last visit of every position.
+   */
+  List<Move> removeCycles(Position start, List<Move> moves) {
+    List<Position> positions = positions(start, moves);
+    Map<Position, Integer> last = lastVisits(positions);
+    List<Move> toReturn = new ArrayList<>(moves.size());
+    int i = last.get(start);
+    while (i < moves.size()) {
+      toReturn.add(moves.get(i));
+      i = last.get(positions.get(i + 1));
+    }
+    return toReturn;
+  }
+
+  /**
+   * Move every card that rests on a pile only to be moved on straight to
+   * where it goes next.
+   */
+  List<Move> mergeTransits(Position start, List<Move> moves) {
+    List<Move> current = new ArrayList<>(moves);
+    List<Position> positions = positions(start, current);
+    int i = 0;
+    while (i < current.size()) {
+      Move first = current.get(i);
+      int card = positions.get(i).getTop(first.getSource(),
+          first.getSourcePile());
+      int j = i + 1;
+      while (j < current.size()
+          && !samePile(current.get(j).getSource(),
+          current.get(j).getSourcePile(), first.getDestination(),
+          first.getDestPile())) {
+        j++;
+      }
+      if (j < current.size() && positions.get(j).getTop(
+          first.getDestination(), first.getDestPile()) == card) {
+        Move second = current.get(j);
+        List<Move> candidate = new ArrayList<>(current);
+        if (samePile(first.getSource(), first.getSourcePile(),
+            second.getDestination(), second.getDestPile())) {
+          candidate.remove(j);
+        } else {
+          candidate.set(j, new Move(first.getSource(), first.getSourcePile(),
+              second.getDestination(), second.getDestPile()));
+        }
+        candidate.remove(i);
+        if (wins(positions.get(i), candidate.subList(i, candidate.size()))) {
+          current = candidate;
+          positions = positions(start, current);
+          continue;
+        }
+      }
+      i++;
+    }
+    return current;
+  }
+
+  /**
+   * Search a few moves from every position for a later position of the list,
+   * and take the shortcut that saves the most moves.
+   */
+  List<Move> resolveWindows(Position start, List<Move> moves) {
+    List<Move> current = new ArrayList<>(moves);
+    List<Position> positions = positions(start, current);
+    Map<Position, Integer> last = lastVisits(positions);
+    int i = 0;
+    while (i < current.size()) {
+      SearchNode best = null;
+      int bestSaving = 0;
+      int bestTarget = -1;
+      Set<Position> seen = new HashSet<>();
+      Deque<SearchNode> queue = new ArrayDeque<>();
+      queue.add(new SearchNode(positions.get(i), null, null, 0));
+      seen.add(positions.get(i));
+      while (!queue.isEmpty() && seen.size() < nodeBudget) {
+        SearchNode node = queue.poll();
+        if (node.depth == windowDepth) {
+          continue;
+        }
+        for (Move m : allMoves(node.position)) {
+          Position child = node.position.move(m);
+          if (!seen.add(child)) {
+            continue;
+          }
+          SearchNode childNode = new SearchNode(child, node, m, 0);
+          Integer k = last.get(child);
+          if (k != null && k - i - childNode.depth > bestSaving) {
+            best = childNode;
+            bestSaving = k - i - childNode.depth;
+            bestTarget = k;
+          }
+          queue.add(childNode);
+        }
+      }
+      if (best != null) {
+        List<Move> candidate = new ArrayList<>(current.subList(0, i));
+        candidate.addAll(best.path());
+        candidate.addAll(current.subList(bestTarget, current.size()));
+        current = candidate;
+        positions = positions(start, current);
+        last = lastVisits(positions);
+      }
+      i++;
+    }
+    return current;
+  }
+
+  /**
+   * Get every legal move of a position, to every pile.
+   */
+  private static List<Move> allMoves(Position p) {
+    List<Move> toReturn = new ArrayList<>();
+    for (PileType from : PileType.values()) {
+      for (int i = 0; i < count(p, from); i++) {
+        int card = p.getTop(from, i);
+        if (card < 0) {
+          continue;
+        }
+        for (PileType to : PileType.values()) {
+          for (int j = 0; j < count(p, to); j++) {
+            if ((from != to || i != j) && p.accepts(card, to, j)) {
+              toReturn.add(new Move(from, i, to, j));
+            }
+          }
+        }
+      }
+    }
+    return toReturn;
+  }
+
+  /**
+   * Helper method to get the number of piles of a type.
+   */
+  private static int count(Position p, PileType type) {
+    switch (type) {
+      case FOUNDATION:
+        return p.getNumFoundations();
+      case OPEN:
+        return p.getNumOpens();
+      default:
+        return p.getNumCascades();
+    }
+  }
+
+  /**
+   * Helper method to compare piles.
+   */
+  private static boolean samePile(PileType a, int aPile, PileType b,
+      int bPile) {
+    return a == b && aPile == bPile;
+  }
+
+  /**
+   * Get the index of the last visit of every position of a list.
+   */
+  private static Map<Position, Integer> lastVisits(List<Position> positions) {
+    Map<Position, Integer> toReturn = new HashMap<>();
+    for (int i = 0; i < positions.size(); i++) {
+      toReturn.put(positions.get(i), i);
+    }
+    return toReturn;
+  }
+
+  /**
+   * Get the positions of a move list, the start position first.
+   */
+  private static List<Position> positions(Position start, List<Move> moves) {
+    List<Position> toReturn = new ArrayList<>(moves.size() + 1);
+    Position p = start;
+    toReturn.add(p);
+    for (Move m : moves) {
+      p = p.move(m);
+      toReturn.add(p);
+    }
+    return toReturn;
+  }
+}
@@ -0,0 +1,83 @@
+package freecell.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import freecell.model.Move;
+
+/**
+ * This class represents the result of a solver search.
+ */
+public class SolveResult {
+
+  /**
+   * How a search ended.
+   * SOLVED: a solution was found.
+   * NO_SOLUTION: every position reachable with the moves the solver tries was
+   * searched without finding a solution.
+   * GAVE_UP: the search stopped at a limit or was interrupted.
+   */
+  public enum Status {
+    SOLVED, NO_SOLUTION, GAVE_UP
+  }
+
+  private final Status status;
+  private final List<Move> moves;
+  private final long nodes;
+  private final long elapsedNanos;
+
+  /**
+   * Constructor for SolveResult.
+   *
+   * @param status how the search ended
+   * @param moves the solution, only used when solved
+   * @param nodes the number of positions expanded
+   * @param elapsedNanos the time the search took
+   */
+  public SolveResult(Status status, List<Move> moves, long nodes,
+      long elapsedNanos) {
+    this.status = status;
+    this.moves = status == Status.SOLVED
+        ? Collections.unmodifiableList(new ArrayList<>(moves))
+        : Collections.<Move>emptyList();
+    this.nodes = nodes;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Signal whether a solution was found.
+   *
+   * @return true if solved
+   */
+  public boolean isSolved() {
+    return status == Status.SOLVED;
+  }
+
+  /**
+   * Get the solution.
+   *
+   * @return an unmodifiable list of moves, empty if not solved
+   */
+  public List<Move> getMoves() {
+    return moves;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s, %d moves, %d nodes, %.1f ms", status,
+        moves.size(), nodes, elapsedNanos / 1e6);
+  }
+}
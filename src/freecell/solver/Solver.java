@@ -0,0 +1,27 @@
+package freecell.solver;
+
+import freecell.model.Position;
+
+/**
+ * The interface for a Freecell solver. A solver searches for a list of moves
+ * that wins the game from a position.
+ */
+public interface Solver {
+
+  /**
+   * Search for a solution from the given position. A solver gives up when it
+   * reaches its own limits or when the calling thread is interrupted.
+   *
+   * @param start the position to solve
+   * @return the result of the search
+   * @throws IllegalArgumentException if the position is null
+   */
+  SolveResult solve(Position start) throws IllegalArgumentException;
+
+  /**
+   * Get a short name of this solver for reports.
+   *
+   * @return the name
+   */
+  String getName();
+}
@@ -0,0 +1,66 @@
+package freecell.solver;
+
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class measures the speedup of {@link ParallelSolver} over the same
+ * search on one thread, on the numbered deals 1 to n.
+ */
+public class SolverBenchmark {
+
+  /**
+   * Run the benchmark and print one line per deal and a summary.
+   *
+   * @param args the number of deals (default 50) and the number of threads
+   *        (default the number of processors)
+   */
+  public static void main(String[] args) {
+    int numDeals = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+    int threads = args.length > 1 ? Integer.parseInt(args[1])
+        : Runtime.getRuntime().availableProcessors();
+    Solver single = new ParallelSolver(new ForkJoinPool(1),
+        new BlockerHeuristic(), 5_000_000);
+    Solver multi = new ParallelSolver(new ForkJoinPool(threads),
+        new BlockerHeuristic(), 5_000_000);
+
+    // Warm up both solvers before measuring.
+    for (int i = 1; i <= 5; i++) {
+      single.solve(deal(i));
+      multi.solve(deal(i));
+    }
+
+    long singleTotal = 0;
+    long multiTotal = 0;
+    System.out.println("deal  1-thread ms  " + threads + "-thread ms  speedup");
+    for (int d = 1; d <= numDeals; d++) {
+      Position start = deal(d);
+      SolveResult a = single.solve(start);
+      SolveResult b = multi.solve(start);
+      singleTotal += a.getElapsedNanos();
+      multiTotal += b.getElapsedNanos();
+      System.out.println(String.format("%4d %12.1f %12.1f %8.2f  %s / %s", d,
+          a.getElapsedNanos() / 1e6, b.getElapsedNanos() / 1e6,
+          (double) a.getElapsedNanos() / b.getElapsedNanos(), a.getStatus(),
+          b.getStatus()));
+    }
+    System.out.println(String.format("total %11.1f %12.1f %8.2f",
+        singleTotal / 1e6, multiTotal / 1e6, (double) singleTotal / multiTotal));
+  }
+
+  /**
+   * Get the start position of a numbered deal.
+   *
+   * @param dealNumber the deal number
+   * @return the position
+   */
+  static Position deal(int dealNumber) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(dealNumber),
+        DealGenerator.NUM_CASCADES, DealGenerator.NUM_OPENS, false);
+    return Position.of(model);
+  }
+}
@@ -0,0 +1,83 @@
+package freecell.solver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts how one strategy of a {@link PortfolioSolver} does: the
+ * races it ran in, the races it won by finishing first with a valid solution,
+ * the races it finished without one before the race ended, and the time it
+ * took to win. Counters can be read while races run.
+ */
+public class StrategyStats {
+
+  private final String name;
+  private final LongAdder races = new LongAdder();
+  private final LongAdder wins = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder winNanos = new LongAdder();
+
+  /**
+   * Constructor for StrategyStats.
+   *
+   * @param name the name of the strategy
+   */
+  StrategyStats(String name) {
+    this.name = name;
+  }
+
+  void recordRace() {
+    races.increment();
+  }
+
+  void recordFailed() {
+    failed.increment();
+  }
+
+  void recordWin(long nanos) {
+    wins.increment();
+    winNanos.add(nanos);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getRaces() {
+    return races.sum();
+  }
+
+  public long getWins() {
+    return wins.sum();
+  }
+
+  public long getFailed() {
+    return failed.sum();
+  }
+
+  /**
+   * Get the share of races this strategy won.
+   *
+   * @return the win rate, 0 before any race
+   */
+  public double getWinRate() {
+    long n = races.sum();
+    return n == 0 ? 0 : (double) wins.sum() / n;
+  }
+
+  /**
+   * Get the mean time this strategy took in the races it won.
+   *
+   * @return the mean in nanoseconds, 0 before any win
+   */
+  public double getMeanWinNanos() {
+    long n = wins.sum();
+    return n == 0 ? 0 : (double) winNanos.sum() / n;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d races, %d wins (%.1f%%, mean %.1f ms), "
+        + "%d failed", name, getRaces(), getWins(), 100 * getWinRate(),
+        getMeanWinNanos() / 1e6, getFailed());
+  }
+}
@@ -0,0 +1,48 @@
+package freecell.solver;
+
+import freecell.model.Position;
+
+/**
+ * A heuristic that is exact on the positions an {@link EndgameTablebase}
+ * covers and falls back to another heuristic on the rest. Covered positions
+ * that are {@link EndgameTablebase#UNWINNABLE} get an estimate far above any
+ * real one, so searches leave them for last.
+ */
+public class TablebaseHeuristic implements Heuristic {
+
+  /**
+   * The estimate of a covered position that is
+   * {@link EndgameTablebase#UNWINNABLE}.
+   */
+  public static final int UNWINNABLE_ESTIMATE = 10_000;
+
+  private final EndgameTablebase tablebase;
+  private final Heuristic fallback;
+
+  /**
+   * Constructor for TablebaseHeuristic.
+   *
+   * @param tablebase the tablebase to probe
+   * @param fallback the estimate of positions not covered
+   * @throws IllegalArgumentException if an argument is null
+   */
+  public TablebaseHeuristic(EndgameTablebase tablebase, Heuristic fallback)
+      throws IllegalArgumentException {
+    if (tablebase == null || fallback == null) {
+      throw new IllegalArgumentException("Tablebase and fallback cannot be "
+          + "null.");
+    }
+    this.tablebase = tablebase;
+    this.fallback = fallback;
+  }
+
+  @Override
+  public int estimate(Position p) {
+    int d = tablebase.distance(p);
+    if (d >= 0) {
+      return d;
+    }
+    return d == EndgameTablebase.UNWINNABLE ? UNWINNABLE_ESTIMATE
+        : fallback.estimate(p);
+  }
+}
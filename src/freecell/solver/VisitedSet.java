@@ -0,0 +1,49 @@
+package freecell.solver;
+
+/**
+ * The interface for the set of positions a search has visited, keyed by
+ * {@link freecell.model.Position#canonicalHash()}. An exact set remembers every
+ * hash added; an inexact one may answer that a hash was added when it was not,
+ * so a search using it can miss positions, but it never forgets one that was
+ * added. Sets are safe for use by several threads.
+ */
+public interface VisitedSet {
+
+  /**
+   * Add a hash.
+   *
+   * @param hash the hash of a position
+   * @return true if the hash was not in the set
+   */
+  boolean add(long hash);
+
+  /**
+   * To check whether a hash is in the set.
+   *
+   * @param hash the hash of a position
+   * @return true if it was added, or may have been for an inexact set
+   */
+  boolean contains(long hash);
+
+  /**
+   * Get the number of hashes added.
+   *
+   * @return the number of calls to {@link #add(long)} that returned true
+   */
+  long size();
+
+  /**
+   * Get an estimate of the memory used.
+   *
+   * @return the number of bytes
+   */
+  long getMemoryBytes();
+
+  /**
+   * To check whether the set remembers exactly what was added. A search with
+   * an inexact set that runs out of positions has not proved anything.
+   *
+   * @return true if exact
+   */
+  boolean isExact();
+}
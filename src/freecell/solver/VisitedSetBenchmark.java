@@ -0,0 +1,89 @@
+package freecell.solver;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * This class measures the false positives and speed of
+ * {@link BloomVisitedSet} against {@link ExactVisitedSet}.
+ */
+public class VisitedSetBenchmark {
+
+  /**
+   * Measure the false positives and speed of Bloom sets of a few sizes against
+   * an exact set, on random hashes and in the best first solver.
+   *
+   * @param args the number of hashes (default 2000000) and of deals (default
+   *        20)
+   */
+  public static void main(String[] args) {
+    int numHashes = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    int numDeals = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    int[] bytesPerHash = {1, 2, 4};
+
+    System.out.printf("%-10s %10s %10s %10s %10s%n", "set", "MB", "add ns",
+        "fpp %", "expected %");
+    measure("exact", new ExactVisitedSet(), numHashes);
+    for (int b : bytesPerHash) {
+      BloomVisitedSet set = new BloomVisitedSet((long) b * numHashes);
+      measure("bloom " + b, set, numHashes);
+    }
+
+    System.out.printf("%n%-10s %8s %12s %10s%n", "set", "solved", "nodes",
+        "ms");
+    solveAll("exact", ExactVisitedSet::new, numDeals);
+    for (int b : bytesPerHash) {
+      long memory = (long) b * 40_000;
+      solveAll("bloom " + b, () -> new BloomVisitedSet(memory), numDeals);
+    }
+  }
+
+  /**
+   * Helper method to add random hashes to a set, then count how many other
+   * hashes it wrongly contains.
+   */
+  private static void measure(String name, VisitedSet set, int numHashes) {
+    Random random = new Random(1);
+    long begin = System.nanoTime();
+    for (int i = 0; i < numHashes; i++) {
+      set.add(random.nextLong());
+    }
+    long elapsed = System.nanoTime() - begin;
+    long falsePositives = 0;
+    for (int i = 0; i < numHashes; i++) {
+      if (set.contains(random.nextLong())) {
+        falsePositives++;
+      }
+    }
+    System.out.printf("%-10s %10.1f %10.1f %10.4f %10.4f%n", name,
+        set.getMemoryBytes() / 1e6, (double) elapsed / numHashes,
+        100.0 * falsePositives / numHashes, set instanceof BloomVisitedSet
+        ? 100 * ((BloomVisitedSet) set).getFalsePositiveRate() : 0.0);
+  }
+
+  /**
+   * Helper method to solve deals with the best first solver and a kind of
+   * visited set.
+   */
+  private static void solveAll(String name, Supplier<VisitedSet> visited,
+      int numDeals) {
+    Solver solver = new BestFirstSolver(new BlockerHeuristic(), 3, 1_000_000,
+        visited);
+    int solved = 0;
+    long nodes = 0;
+    long begin = System.nanoTime();
+    for (int deal = 1; deal <= numDeals; deal++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+      SolveResult result = solver.solve(Position.of(model));
+      solved += result.getStatus() == SolveResult.Status.SOLVED ? 1 : 0;
+      nodes += result.getNodes();
+    }
+    System.out.printf("%-10s %8d %12d %10d%n", name, solved, nodes,
+        (System.nanoTime() - begin) / 1_000_000);
+  }
+}
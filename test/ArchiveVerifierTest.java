@@ -0,0 +1,122 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.record.ArchiveVerifier;
+import freecell.record.GameRecord;
+import freecell.record.VerificationReport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ArchiveVerifier.
+ */
+public class ArchiveVerifierTest {
+
+  private final GameRecord won = record(52, true);
+  private final GameRecord unfinished = record(20, false);
+  private final GameRecord falseClaim = record(20, true);
+  private final GameRecord illegal;
+
+  /**
+   * Set up an illegal record moving a two to an empty foundation.
+   */
+  public ArchiveVerifierTest() {
+    List<Move> moves = new ArrayList<>();
+    moves.add(new Move(PileType.CASCADE, 1, PileType.FOUNDATION, 0));
+    illegal = new GameRecord(new FreecellModel().getDeck(), 52, 4, moves, false);
+  }
+
+  /**
+   * Build a record of the unshuffled deck in 52 cascades, moving the first
+   * cards to the foundations.
+   */
+  private static GameRecord record(int numMoves, boolean won) {
+    List<Move> moves = new ArrayList<>();
+    for (int i = 0; i < numMoves; i++) {
+      moves.add(new Move(PileType.CASCADE, i, PileType.FOUNDATION, i / 13));
+    }
+    return new GameRecord(new FreecellModel().getDeck(), 52, 4, moves, won);
+  }
+
+  /**
+   * Write the records the given number of times.
+   */
+  private static ByteArrayInputStream archive(int times, GameRecord... records)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    for (int i = 0; i < times; i++) {
+      for (GameRecord r : records) {
+        r.writeTo(out);
+      }
+    }
+    return new ByteArrayInputStream(bytes.toByteArray());
+  }
+
+  /**
+   * Testing an archive of valid records has no failures.
+   */
+  @Test
+  public void verifyValid() throws IOException {
+    VerificationReport report = new ArchiveVerifier(new ForkJoinPool(4), 100)
+        .verify(archive(500, won, unfinished));
+    assertEquals(1000, report.getRecords());
+    assertEquals(500 * 72, report.getMoves());
+    assertTrue(report.getFailures().isEmpty());
+  }
+
+  /**
+   * Testing illegal moves and wrong claims are reported by record index.
+   */
+  @Test
+  public void verifyFailures() throws IOException {
+    VerificationReport report = new ArchiveVerifier(new ForkJoinPool(3), 7)
+        .verify(archive(50, won, falseClaim, illegal));
+    assertEquals(150, report.getRecords());
+    assertEquals(100, report.getFailures().size());
+    VerificationReport.Failure first = report.getFailures().get(0);
+    assertEquals(1, first.getIndex());
+    assertEquals("Claims a win but the game is not over.", first.getReason());
+    assertEquals(2, report.getFailures().get(1).getIndex());
+    assertTrue(report.getFailures().get(1).getReason().startsWith("Move 1"));
+    assertEquals(149, report.getFailures().get(99).getIndex());
+  }
+
+  /**
+   * Testing an empty archive.
+   */
+  @Test
+  public void verifyEmpty() throws IOException {
+    VerificationReport report = new ArchiveVerifier().verify(archive(0));
+    assertEquals(0, report.getRecords());
+    assertTrue(report.getFailures().isEmpty());
+  }
+
+  /**
+   * Testing an archive cut within its last record is not taken as complete.
+   */
+  @Test(expected = IOException.class)
+  public void verifyTruncated() throws IOException {
+    ByteArrayInputStream whole = archive(10, won);
+    byte[] bytes = new byte[whole.available() - 5];
+    whole.read(bytes, 0, bytes.length);
+    new ArchiveVerifier(new ForkJoinPool(2), 3).verify(
+        new ByteArrayInputStream(bytes));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongChunkSize() {
+    new ArchiveVerifier(ForkJoinPool.commonPool(), 0);
+  }
+}
@@ -0,0 +1,115 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import freecell.controller.BatchRunner;
+import freecell.controller.BatchSummary;
+import freecell.controller.GameScript;
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for GameScript, BatchRunner and BatchSummary.
+ */
+public class BatchRunnerTest {
+
+  /**
+   * Helper method to write the commands of a solution of a deal.
+   */
+  private String solutionCommands(int dealNumber) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(dealNumber), 8, 4, false);
+    List<Move> moves = new BestFirstSolver().solve(Position.of(model))
+        .getMoves();
+    StringBuilder commands = new StringBuilder();
+    for (Move m : moves) {
+      int index = model.getPileSize(m.getSource(), m.getSourcePile());
+      commands.append(Move.pileName(m.getSource())).append(m.getSourcePile() + 1)
+          .append(' ').append(index).append(' ')
+          .append(Move.pileName(m.getDestination())).append(m.getDestPile() + 1)
+          .append('\n');
+      model.move(m.getSource(), m.getSourcePile(), index - 1,
+          m.getDestination(), m.getDestPile());
+    }
+    return commands.toString();
+  }
+
+  @Test
+  public void parse() {
+    List<GameScript> scripts = GameScript.parse("farm", "# two games\n"
+        + "deal 7\nC1 7 O1\n\nq\ndeal 9 6 2\nh\n");
+    assertEquals(2, scripts.size());
+    assertEquals("farm-1", scripts.get(0).getName());
+    assertEquals(7, scripts.get(0).getDealNumber());
+    assertEquals(8, scripts.get(0).getNumCascades());
+    assertEquals(4, scripts.get(0).getNumOpens());
+    assertEquals("C1 7 O1\nq\n", scripts.get(0).getCommands());
+    assertEquals(6, scripts.get(1).getNumCascades());
+    assertEquals(2, scripts.get(1).getNumOpens());
+    assertEquals("single", GameScript.parse("single", "deal 3\nq\n").get(0)
+        .getName());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void commandsBeforeDeal() {
+    GameScript.parse("bad", "C1 7 O1\ndeal 1\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongDealLine() {
+    GameScript.parse("bad", "deal one\n");
+  }
+
+  @Test
+  public void runDirectoryInParallel() throws IOException {
+    Path scripts = Files.createTempDirectory("batch-scripts");
+    Path transcripts = Files.createTempDirectory("batch-transcripts");
+    String win = solutionCommands(1);
+    Files.write(scripts.resolve("win.txt"), ("deal 1\n" + win + "q\n"
+        + "deal 1\n" + win).getBytes(StandardCharsets.UTF_8));
+    Files.write(scripts.resolve("quit.txt"), "deal 2\nh\nq\n"
+        .getBytes(StandardCharsets.UTF_8));
+    Files.write(scripts.resolve("bad.txt"), "deal 3 2 1\nq\n"
+        .getBytes(StandardCharsets.UTF_8));
+
+    List<GameScript> games = GameScript.load(scripts);
+    assertEquals(4, games.size());
+    BatchSummary summary = new BatchRunner(3).run(games, transcripts);
+    assertEquals(4, summary.getGames());
+    assertEquals(2, summary.getWon());
+    assertEquals(0, summary.getFailures().size());
+    assertEquals(2 * win.trim().split("\\s+").length + 2,
+        summary.getCommands());
+
+    String won = new String(Files.readAllBytes(transcripts.resolve(
+        "win-2.txt")), StandardCharsets.UTF_8);
+    assertTrue(won.endsWith("Game over.\n"));
+    String quit = new String(Files.readAllBytes(transcripts.resolve(
+        "quit.txt")), StandardCharsets.UTF_8);
+    assertTrue(quit.contains("Hint: "));
+    assertTrue(quit.endsWith("Game quit prematurely.\n"));
+    String bad = new String(Files.readAllBytes(transcripts.resolve(
+        "bad.txt")), StandardCharsets.UTF_8);
+    assertEquals("Could not start game.", bad);
+
+    for (Path dir : new Path[] {scripts, transcripts}) {
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Object file : files.toArray()) {
+          Files.delete((Path) file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+}
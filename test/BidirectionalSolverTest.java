@@ -0,0 +1,103 @@
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BidirectionalSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.MoveGenerator;
+import freecell.solver.ReverseMoveGenerator;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ReverseMoveGenerator and BidirectionalSolver.
+ */
+public class BidirectionalSolverTest {
+
+  /**
+   * Testing the reverse generator mirrors the forward one: every position a
+   * forward move leads to can be taken back to the position it came from, up
+   * to the order of the piles, and every move taken back can be made again.
+   */
+  @Test
+  public void mirrorsForwardMoves() {
+    MoveGenerator forward = new MoveGenerator();
+    ReverseMoveGenerator reverse = new ReverseMoveGenerator();
+    Random random = new Random(9);
+    for (int number = 1; number <= 5; number++) {
+      Position p = Deals.start(number, 8, 4);
+      for (int step = 0; step < 60; step++) {
+        List<Move> moves = forward.moves(p);
+        if (moves.isEmpty()) {
+          break;
+        }
+        for (Move m : moves) {
+          Position child = p.move(m);
+          Set<Long> parents = new HashSet<>();
+          for (Move r : reverse.moves(child)) {
+            Position parent = child.takeBack(r);
+            assertEquals(child, parent.move(r));
+            parents.add(parent.canonicalHash());
+          }
+          assertTrue(parents.contains(p.canonicalHash()));
+        }
+        p = p.move(moves.get(random.nextInt(moves.size())));
+      }
+    }
+  }
+
+  /**
+   * Testing the end of a game is solved as short as by forward search alone,
+   * with fewer nodes.
+   */
+  @Test
+  public void solvesEndgames() {
+    for (int number = 1; number <= 3; number++) {
+      Position p = Deals.start(number, 8, 4);
+      List<Move> known = new BestFirstSolver().solve(p).getMoves();
+      int left = 8;
+      for (Move m : known.subList(0, known.size() - left)) {
+        p = p.move(m);
+      }
+      SolveResult result = new BidirectionalSolver(1_000_000).solve(p);
+      assertEquals(SolveResult.Status.SOLVED, result.getStatus());
+      assertTrue(result.getMoves().size() <= left);
+      Position q = p;
+      for (Move m : result.getMoves()) {
+        q = q.move(m);
+      }
+      assertTrue(q.isGameOver());
+    }
+  }
+
+  /**
+   * Testing small deals without a solution are proved so.
+   */
+  @Test
+  public void provesNoSolution() {
+    for (int number = 1; number <= 5; number++) {
+      Position p = Deals.start(number, 4, 1);
+      assertEquals(new BestFirstSolver(new BlockerHeuristic(), 1, 1_000_000)
+          .solve(p).getStatus(), new BidirectionalSolver(1_000_000).solve(p)
+          .getStatus());
+    }
+  }
+
+  /**
+   * Testing a won position needs no moves.
+   */
+  @Test
+  public void alreadyWon() {
+    SolveResult result = new BidirectionalSolver(10).solve(Position.won(4, 8));
+    assertTrue(result.isSolved());
+    assertEquals(0, result.getMoves().size());
+  }
+}
@@ -0,0 +1,207 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import freecell.model.Position;
+import freecell.solver.CoalescingHintEngine;
+import freecell.solver.CoalescingSolver;
+import freecell.solver.SingleFlight;
+import freecell.solver.SolveResult;
+import freecell.solver.Solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for SingleFlight, CoalescingSolver and CoalescingHintEngine.
+ */
+public class CoalescingSolverTest {
+
+  /**
+   * A solver that counts its searches and waits for a latch before returning.
+   */
+  private static class GatedSolver implements Solver {
+    private final AtomicInteger searches = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public SolveResult solve(Position start) {
+      searches.incrementAndGet();
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new SolveResult(SolveResult.Status.NO_SOLUTION, null, 1, 0);
+    }
+
+    @Override
+    public String getName() {
+      return "gated";
+    }
+  }
+
+  @Test
+  public void concurrentRequestsShareOneSearch() throws Exception {
+    GatedSolver gated = new GatedSolver();
+    CoalescingSolver solver = new CoalescingSolver(gated);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<SolveResult>> futures = new ArrayList<>();
+      futures.add(executor.submit(() -> solver.solve(Deals.start(1))));
+      assertTrue(gated.started.await(10, TimeUnit.SECONDS));
+      for (int i = 1; i < 8; i++) {
+        futures.add(executor.submit(() -> solver.solve(Deals.start(1))));
+      }
+      while (solver.getFlight().getCalls() < 8) {
+        Thread.sleep(1);
+      }
+      gated.release.countDown();
+      SolveResult first = futures.get(0).get();
+      for (Future<SolveResult> f : futures) {
+        assertSame(first, f.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, gated.searches.get());
+    assertEquals(7, solver.getFlight().getShared());
+    assertEquals(0, solver.getFlight().getInFlight());
+  }
+
+  @Test
+  public void laterRequestsSearchAgain() {
+    GatedSolver gated = new GatedSolver();
+    gated.release.countDown();
+    CoalescingSolver solver = new CoalescingSolver(gated);
+    solver.solve(Deals.start(1));
+    solver.solve(Deals.start(1));
+    solver.solve(Deals.start(2));
+    assertEquals(3, gated.searches.get());
+    assertEquals(0, solver.getFlight().getShared());
+    assertEquals("coalescing(gated)", solver.getName());
+  }
+
+  @Test
+  public void exceptionReachesEveryCaller() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> leader = executor.submit(() -> flight.run("key", () -> {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        throw new IllegalStateException("boom");
+      }));
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      Future<String> follower = executor.submit(() -> flight.run("key",
+          () -> "never"));
+      while (flight.getShared() < 1) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+      for (Future<String> f : Arrays.asList(leader, follower)) {
+        try {
+          f.get();
+          fail("Expected an exception.");
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof IllegalStateException);
+          assertEquals("boom", e.getCause().getMessage());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals("again", flight.run("key", () -> "again"));
+  }
+
+  @Test
+  public void interruptedWaiterGivesUp() throws Exception {
+    GatedSolver gated = new GatedSolver();
+    CoalescingSolver solver = new CoalescingSolver(gated);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<SolveResult> leader = executor.submit(() -> solver.solve(Deals.start(1)));
+      assertTrue(gated.started.await(10, TimeUnit.SECONDS));
+      List<SolveResult> waited = new ArrayList<>();
+      Thread waiter = new Thread(() -> waited.add(solver.solve(Deals.start(1))));
+      waiter.start();
+      while (solver.getFlight().getShared() < 1) {
+        Thread.sleep(1);
+      }
+      waiter.interrupt();
+      waiter.join(10_000);
+      assertEquals(SolveResult.Status.GAVE_UP, waited.get(0).getStatus());
+      gated.release.countDown();
+      assertEquals(SolveResult.Status.NO_SOLUTION,
+          leader.get(10, TimeUnit.SECONDS).getStatus());
+      assertEquals(1, gated.searches.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void interruptedCallerFails() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread leader = new Thread(() -> flight.run("key", () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "done";
+    }));
+    leader.start();
+    started.await();
+    Thread.currentThread().interrupt();
+    try {
+      flight.run("key", () -> "never");
+      fail("Expected an exception.");
+    } catch (IllegalStateException e) {
+      assertTrue(Thread.interrupted());
+    } finally {
+      release.countDown();
+    }
+    leader.join();
+  }
+
+  @Test
+  public void hintMatchesEngine() {
+    CoalescingHintEngine engine = new CoalescingHintEngine();
+    Position p = Deals.start(3);
+    assertTrue(p.isLegal(engine.hint(p)));
+    assertEquals(1, engine.getFlight().getCalls());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullSolver() {
+    new CoalescingSolver(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullKey() {
+    new SingleFlight<String, String>().run(null, () -> "x");
+  }
+}
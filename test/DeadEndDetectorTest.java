@@ -0,0 +1,183 @@
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.controller.FreecellController;
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.DeadEndDetector;
+import freecell.solver.ExactVisitedSet;
+import freecell.solver.HintEngine;
+import freecell.solver.MoveGenerator;
+import freecell.solver.ParallelSolver;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for DeadEndDetector and dead end pruning in the solvers.
+ */
+public class DeadEndDetectorTest {
+
+  /**
+   * The unshuffled deck in 4 cascades with 1 open pile, after filling the
+   * open pile. Every cascade has a king on top, nothing can move.
+   */
+  private Position stuck() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 4, 1, false);
+    new Move(PileType.CASCADE, 1, PileType.OPEN, 0).applyTo(model);
+    return Position.of(model);
+  }
+
+  @Test
+  public void stuckPositionIsLost() {
+    DeadEndDetector detector = new DeadEndDetector();
+    assertTrue(detector.isTight(stuck()));
+    assertTrue(detector.isBlocked(stuck()));
+    assertTrue(detector.isLost(stuck()));
+  }
+
+  /**
+   * Testing a position with moves left that can only go round in circles is
+   * proven lost.
+   */
+  @Test
+  public void circlingPositionIsLost() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 4, 2, false);
+    Position p = Position.of(model);
+    DeadEndDetector detector = new DeadEndDetector();
+    assertFalse(detector.isBlocked(p));
+    assertTrue(detector.isLost(p));
+  }
+
+  /**
+   * Testing a solvable deal is not reported lost, even with a budget large
+   * enough to search far.
+   */
+  @Test
+  public void solvableDealIsNotLost() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    Position p = Position.of(model);
+    DeadEndDetector detector = new DeadEndDetector(100_000);
+    assertFalse(detector.isTight(p));
+    assertFalse(detector.isBlocked(p));
+    assertFalse(detector.isLost(p));
+  }
+
+  /**
+   * Testing the static check agrees with the move generator on positions of
+   * random play, and finds the stuck position.
+   */
+  @Test
+  public void blockedMatchesMoves() {
+    DeadEndDetector detector = new DeadEndDetector();
+    MoveGenerator generator = new MoveGenerator(true);
+    assertTrue(detector.isBlocked(stuck()));
+    Random random = new Random(3);
+    for (int deal = 1; deal <= 20; deal++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(deal), 8, 2, false);
+      Position p = Position.of(model);
+      for (int step = 0; step < 200 && !p.isGameOver(); step++) {
+        List<Move> moves = generator.moves(p);
+        assertEquals(moves.isEmpty(), detector.isBlocked(p));
+        if (moves.isEmpty()) {
+          break;
+        }
+        p = p.move(moves.get(random.nextInt(moves.size())));
+      }
+    }
+  }
+
+  /**
+   * Testing pruning keeps the solvers correct.
+   */
+  @Test
+  public void solversPrune() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    Position p = Position.of(model);
+    assertTrue(new BestFirstSolver(new BlockerHeuristic(), 3, 1_000_000,
+        ExactVisitedSet::new, true).solve(p).isSolved());
+    assertTrue(new ParallelSolver(new ForkJoinPool(2), new BlockerHeuristic(),
+        1_000_000, ExactVisitedSet::new, true).solve(p).isSolved());
+    model.startGame(model.getDeck(), 4, 2, false);
+    assertEquals(SolveResult.Status.NO_SOLUTION, new BestFirstSolver(
+        new BlockerHeuristic(), 1, 1_000_000, ExactVisitedSet::new, true)
+        .solve(Position.of(model)).getStatus());
+  }
+
+  /**
+   * Testing the controller announces a lost game once when given a detector.
+   */
+  @Test
+  public void controllerAnnouncesLoss() {
+    StringBuffer out = new StringBuffer();
+    FreecellModel model = new FreecellModel();
+    new FreecellController(new StringReader("C2 13 O1 C1 13 C2 q"), out,
+        new HintEngine(), new DeadEndDetector())
+        .playGame(model.getDeck(), model, 4, 1, false);
+    String[] lines = out.toString().split("\n");
+    assertEquals("No moves can win this game anymore.", lines[18]);
+    assertTrue(lines[19].startsWith("Invalid move."));
+    assertEquals("Game quit prematurely.", lines[20]);
+  }
+
+  /**
+   * Testing a loop check reports positions repeated without progress, by
+   * canonical hash and only within its window.
+   */
+  @Test
+  public void loopCheck() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    Position start = Position.of(model);
+    Position first = start.move(new Move(PileType.CASCADE, 0, PileType.OPEN,
+        0));
+    Position second = first.move(new Move(PileType.CASCADE, 1, PileType.OPEN,
+        1));
+    Position swapped = second.move(new Move(PileType.OPEN, 0, PileType.OPEN,
+        2));
+    DeadEndDetector.LoopCheck loops = new DeadEndDetector().loopCheck();
+    assertFalse(loops.visit(start));
+    assertFalse(loops.visit(first));
+    assertFalse(loops.visit(second));
+    assertTrue(loops.visit(swapped));
+
+    DeadEndDetector.LoopCheck narrow = new DeadEndDetector(2000, 1)
+        .loopCheck();
+    assertFalse(narrow.visit(first));
+    assertFalse(narrow.visit(second));
+    assertFalse(narrow.visit(start));
+    assertFalse(narrow.visit(second));
+  }
+
+  /**
+   * Testing the controller announces moves back to a position seen before.
+   */
+  @Test
+  public void controllerAnnouncesLoop() {
+    StringBuffer out = new StringBuffer();
+    FreecellModel model = new FreecellModel();
+    new FreecellController(new StringReader("C1 7 O1 O1 1 O2 q"), out,
+        new HintEngine(), new DeadEndDetector())
+        .playGame(new DealGenerator().getDeal(1), model, 8, 4, false);
+    String[] lines = out.toString().split("\n");
+    assertEquals("No progress: this position was reached before.",
+        lines[lines.length - 2]);
+    assertEquals(1, out.toString().split("No progress").length - 1);
+  }
+}
@@ -0,0 +1,37 @@
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+
+/**
+ * Fixtures shared by tests: the start positions of numbered deals.
+ */
+final class Deals {
+
+  private Deals() {
+  }
+
+  /**
+   * Get the start of a deal with 8 cascades and 4 open piles.
+   *
+   * @param number the deal number
+   * @return the start position
+   */
+  static Position start(int number) {
+    return start(number, 8, 4);
+  }
+
+  /**
+   * Get the start of a deal.
+   *
+   * @param number the deal number
+   * @param numCascades the number of cascade piles
+   * @param numOpens the number of open piles
+   * @return the start position
+   */
+  static Position start(int number, int numCascades, int numOpens) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(number), numCascades,
+        numOpens, false);
+    return Position.of(model);
+  }
+}
@@ -0,0 +1,204 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import freecell.model.CardCodes;
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.model.PositionCodec;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BidirectionalSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.EndgameTablebase;
+import freecell.solver.HintEngine;
+import freecell.solver.SolveResult;
+import freecell.solver.TablebaseHeuristic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for EndgameTablebase, TablebaseHeuristic and the hint engine probing a
+ * tablebase.
+ */
+public class EndgameTablebaseTest {
+
+  private static final EndgameTablebase TABLEBASE =
+      EndgameTablebase.build(4, 8, 5);
+
+  /**
+   * Helper method to get the first position of a solution of a deal with at
+   * most a number of cards off the foundations.
+   */
+  private Position endgame(int number, int maxCards) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(number), 8, 4, false);
+    Position p = Position.of(model);
+    for (Move m : new BestFirstSolver().solve(p).getMoves()) {
+      if (CardCodes.NUM_CODES - p.getCardsOnFoundations() <= maxCards) {
+        break;
+      }
+      p = p.move(m);
+    }
+    return p;
+  }
+
+  /**
+   * Testing distances are the lengths of shortest solutions, and tablebase
+   * solutions have that length.
+   */
+  @Test
+  public void exactDistances() {
+    for (int number = 1; number <= 10; number++) {
+      Position p = endgame(number, 5);
+      assertTrue(TABLEBASE.covers(p));
+      int d = TABLEBASE.distance(p);
+      assertEquals(new BidirectionalSolver(1_000_000).solve(p).getMoves()
+          .size(), d);
+      List<Move> moves = TABLEBASE.solution(p);
+      assertEquals(d, moves.size());
+      for (Move m : moves) {
+        p = p.move(m);
+      }
+      assertTrue(p.isGameOver());
+    }
+  }
+
+  /**
+   * Testing positions outside the tablebase are unknown.
+   */
+  @Test
+  public void notCovered() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    Position start = Position.of(model);
+    assertFalse(TABLEBASE.covers(start));
+    assertEquals(EndgameTablebase.UNKNOWN, TABLEBASE.distance(start));
+    assertNull(TABLEBASE.bestMove(start));
+    assertEquals(EndgameTablebase.UNKNOWN,
+        TABLEBASE.distance(Position.won(3, 8)));
+    assertEquals(0, TABLEBASE.distance(Position.won(4, 8)));
+  }
+
+  /**
+   * Testing a position that cannot be won is known to be so: J♥ J♣ K♦ K♠ on
+   * the foundations, one empty open pile and one cascade of Q♥ Q♣ K♥ K♣ from
+   * the bottom. Models need four cascades, so it is decoded from the 6-bit
+   * symbols of {@link PositionCodec}.
+   */
+  @Test
+  public void unwinnable() {
+    int[] symbols = {1, 1, 11, 24, 39, 52, 0, 12, 25, 13, 26};
+    byte[] bytes = new byte[(symbols.length * 6 + 7) / 8];
+    for (int i = 0; i < symbols.length; i++) {
+      for (int bit = 0; bit < 6; bit++) {
+        if ((symbols[i] >> (5 - bit) & 1) != 0) {
+          int at = i * 6 + bit;
+          bytes[at / 8] |= 0x80 >> (at % 8);
+        }
+      }
+    }
+    Position p = PositionCodec.decode(bytes, 0, bytes.length);
+    EndgameTablebase small = EndgameTablebase.build(1, 1, 4);
+    assertTrue(small.covers(p));
+    assertEquals(EndgameTablebase.UNWINNABLE, small.distance(p));
+    assertEquals(SolveResult.Status.NO_SOLUTION,
+        new BidirectionalSolver(1_000_000).solve(p).getStatus());
+  }
+
+  /**
+   * Testing a written tablebase loads with the same distances.
+   */
+  @Test
+  public void writeAndLoad() throws IOException {
+    Path file = Files.createTempFile("tablebase", ".dat");
+    try {
+      TABLEBASE.write(file);
+      EndgameTablebase loaded = EndgameTablebase.load(file);
+      assertEquals(TABLEBASE.size(), loaded.size());
+      assertEquals(5, loaded.getMaxCards());
+      for (int number = 1; number <= 5; number++) {
+        Position p = endgame(number, 5);
+        assertEquals(TABLEBASE.distance(p), loaded.distance(p));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Testing a file that is not a tablebase is refused.
+   */
+  @Test(expected = IOException.class)
+  public void notATablebase() throws IOException {
+    Path file = Files.createTempFile("tablebase", ".dat");
+    try {
+      Files.write(file, new byte[64]);
+      EndgameTablebase.load(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Testing the heuristic and the hint engine use exact distances.
+   */
+  @Test
+  public void heuristicAndHints() {
+    TablebaseHeuristic heuristic = new TablebaseHeuristic(TABLEBASE,
+        new BlockerHeuristic());
+    HintEngine engine = new HintEngine(new BlockerHeuristic(),
+        HintEngine.DEFAULT_BUDGET_NANOS, TABLEBASE);
+    for (int number = 1; number <= 5; number++) {
+      Position p = endgame(number, 5);
+      int d = TABLEBASE.distance(p);
+      assertEquals(d, heuristic.estimate(p));
+      for (int i = 0; i < d; i++) {
+        p = p.move(engine.hint(p));
+      }
+      assertTrue(p.isGameOver());
+    }
+  }
+
+  /**
+   * Testing a distance no move agrees with, as a collision of hashes can
+   * give, makes the tablebase give no move and the hint engine search.
+   */
+  @Test
+  public void inconsistentDistance() throws IOException {
+    Position p = endgame(1, 5);
+    int d = TABLEBASE.distance(p);
+    long key = p.canonicalHash() & ~0xFFL;
+    Path file = Files.createTempFile("tablebase", ".dat");
+    try {
+      TABLEBASE.write(file);
+      byte[] bytes = Files.readAllBytes(file);
+      for (int at = 0; at + 8 <= bytes.length; at += 8) {
+        long slot = 0;
+        for (int i = 0; i < 8; i++) {
+          slot = slot << 8 | (bytes[at + i] & 0xFF);
+        }
+        if ((slot & ~0xFFL) == key && (slot & 0xFF) == d + 1) {
+          bytes[at + 7] = (byte) (d + 3);
+        }
+      }
+      Files.write(file, bytes);
+      EndgameTablebase corrupt = EndgameTablebase.load(file);
+      assertEquals(d + 2, corrupt.distance(p));
+      assertNull(corrupt.bestMove(p));
+      assertNull(corrupt.solution(p));
+      HintEngine engine = new HintEngine(new BlockerHeuristic(),
+          HintEngine.DEFAULT_BUDGET_NANOS, corrupt);
+      assertTrue(p.isLegal(engine.hint(p)));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
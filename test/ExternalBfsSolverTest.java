@@ -0,0 +1,90 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.ExternalBfsSolver;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ExternalBfsSolver.
+ */
+public class ExternalBfsSolverTest {
+
+  /**
+   * Helper method to count the files left in a directory.
+   */
+  private long countFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  /**
+   * Testing an exhausted search proves there is no solution after the same
+   * positions as an exact best first search, with many runs per layer.
+   */
+  @Test
+  public void provesNoSolution() throws IOException {
+    Path directory = Files.createTempDirectory("bfs-test");
+    for (int number = 1; number <= 5; number++) {
+      Position start = Deals.start(number, 6, 2);
+      SolveResult expected = new BestFirstSolver(new BlockerHeuristic(), 1,
+          1_000_000).solve(start);
+      SolveResult result = new ExternalBfsSolver(directory, 64, 1_000_000)
+          .solve(start);
+      assertEquals(SolveResult.Status.NO_SOLUTION, expected.getStatus());
+      assertEquals(expected.getStatus(), result.getStatus());
+      assertEquals(expected.getNodes(), result.getNodes());
+    }
+    assertEquals(0, countFiles(directory));
+    Files.delete(directory);
+  }
+
+  /**
+   * Testing the end of a game is solved in no more moves than a known
+   * solution.
+   */
+  @Test
+  public void solvesEndgame() throws IOException {
+    Position p = Deals.start(1, 8, 4);
+    List<Move> known = new BestFirstSolver().solve(p).getMoves();
+    int left = 10;
+    for (Move m : known.subList(0, known.size() - left)) {
+      p = p.move(m);
+    }
+    Path directory = Files.createTempDirectory("bfs-test");
+    SolveResult result = new ExternalBfsSolver(directory, 100, 1_000_000)
+        .solve(p);
+    assertEquals(SolveResult.Status.SOLVED, result.getStatus());
+    assertTrue(result.getMoves().size() <= left);
+    for (Move m : result.getMoves()) {
+      p = p.move(m);
+    }
+    assertTrue(p.isGameOver());
+    assertEquals(0, countFiles(directory));
+    Files.delete(directory);
+  }
+
+  /**
+   * Testing a search gives up after its position limit.
+   */
+  @Test
+  public void givesUp() throws IOException {
+    Path directory = Files.createTempDirectory("bfs-test");
+    SolveResult result = new ExternalBfsSolver(directory, 100, 50)
+        .solve(Deals.start(2, 8, 4));
+    assertEquals(SolveResult.Status.GAVE_UP, result.getStatus());
+    Files.delete(directory);
+  }
+}
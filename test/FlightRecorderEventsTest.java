@@ -0,0 +1,97 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+
+import freecell.controller.FreecellController;
+import freecell.model.FreecellModel;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for the Flight Recorder events of the model, controller and solvers.
+ */
+public class FlightRecorderEventsTest {
+
+  /**
+   * Count the events of a type in a list.
+   */
+  private int count(List<RecordedEvent> events, String name) {
+    int n = 0;
+    for (RecordedEvent e : events) {
+      n += e.getEventType().getName().equals(name) ? 1 : 0;
+    }
+    return n;
+  }
+
+  /**
+   * Find the first event of a type in a list.
+   */
+  private RecordedEvent first(List<RecordedEvent> events, String name,
+      boolean applied) {
+    for (RecordedEvent e : events) {
+      if (e.getEventType().getName().equals(name)
+          && e.getBoolean("applied") == applied) {
+        return e;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Testing a recorded game has the events of the game, its moves, renders
+   * and a solver search.
+   */
+  @Test
+  public void recordsGame() throws Exception {
+    File file = File.createTempFile("freecell", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("freecell.GameStarted");
+      recording.enable("freecell.Move");
+      recording.enable("freecell.StateRendered");
+      recording.enable("freecell.GameFinished");
+      recording.enable("freecell.SolverSearch");
+      recording.start();
+      FreecellModel model = new FreecellModel();
+      new FreecellController(new StringReader("C1 13 O1 C2 13 O1 q"),
+          new StringBuffer()).playGame(model.getDeck(), model, 4, 1, false);
+      FreecellModel sorted = new FreecellModel();
+      sorted.startGame(sorted.getDeck(), 52, 1, false);
+      new BestFirstSolver().solve(Position.of(sorted));
+      recording.stop();
+      recording.dump(file.toPath());
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+      assertEquals(2, count(events, "freecell.GameStarted"));
+      assertEquals(2, count(events, "freecell.Move"));
+      assertEquals(2, count(events, "freecell.StateRendered"));
+      assertEquals(1, count(events, "freecell.GameFinished"));
+      assertEquals(1, count(events, "freecell.SolverSearch"));
+
+      RecordedEvent applied = first(events, "freecell.Move", true);
+      assertEquals("C1", applied.getString("source"));
+      assertEquals("O1", applied.getString("destination"));
+      RecordedEvent rejected = first(events, "freecell.Move", false);
+      assertTrue(rejected.getString("reason").length() > 0);
+      for (RecordedEvent e : events) {
+        if (e.getEventType().getName().equals("freecell.GameFinished")) {
+          assertFalse(e.getBoolean("won"));
+        }
+        if (e.getEventType().getName().equals("freecell.SolverSearch")) {
+          assertEquals("SOLVED", e.getString("status"));
+          assertEquals(52, e.getInt("solutionLength"));
+        }
+      }
+    } finally {
+      file.delete();
+    }
+  }
+}
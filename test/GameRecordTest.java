@@ -0,0 +1,200 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import freecell.model.Card;
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.record.GameRecord;
+import freecell.record.ReplayEngine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for GameRecord, ReplayEngine and DealGenerator.
+ */
+public class GameRecordTest {
+
+  /**
+   * The moves that win a game of the unshuffled deck dealt to 52 cascades.
+   *
+   * @return 52 moves from cascades to foundations
+   */
+  private List<Move> winningMoves() {
+    List<Move> moves = new ArrayList<>();
+    for (int j = 0; j < 4; j++) {
+      for (int i = 0; i < 13; i++) {
+        moves.add(new Move(PileType.CASCADE, i + 13 * j, PileType.FOUNDATION, j));
+      }
+    }
+    return moves;
+  }
+
+  /**
+   * Write a record and read it back.
+   */
+  private GameRecord roundTrip(GameRecord record) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    record.writeTo(new DataOutputStream(bytes));
+    assertEquals(record.getEncodedSize(), bytes.size());
+    return GameRecord.readFrom(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  /**
+   * Testing a move is packed into two bytes and unpacked back.
+   */
+  @Test
+  public void packMove() {
+    for (PileType s : PileType.values()) {
+      for (PileType d : PileType.values()) {
+        Move m = new Move(s, 63, d, 5);
+        assertTrue(m.pack() <= 0xFFFF);
+        assertEquals(m, Move.unpack(m.pack()));
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void packMovePileTooLarge() {
+    new Move(PileType.CASCADE, 64, PileType.OPEN, 0).pack();
+  }
+
+  /**
+   * Testing deal 1 matches the first row of the classic deal 1.
+   */
+  @Test
+  public void dealNumberOne() {
+    List<Card> deck = new DealGenerator().getDeal(1);
+    assertEquals("[J♦, 2♦, 9♥, J♣, 5♦, 7♥, 7♣, 5♥]",
+        deck.subList(0, 8).toString());
+    assertEquals(deck, new DealGenerator().getDeal(1));
+  }
+
+  /**
+   * Testing a layout record is written, read and replayed to a won game.
+   */
+  @Test
+  public void layoutRecordRoundTrip() throws IOException {
+    FreecellModel model = new FreecellModel();
+    GameRecord record = roundTrip(new GameRecord(model.getDeck(), 52, 4,
+        winningMoves(), true));
+    assertEquals(0, record.getDealNumber());
+    assertEquals(model.getDeck(), record.getDeck());
+    assertEquals(52, record.getNumCascades());
+    assertEquals(4, record.getNumOpens());
+    assertEquals(winningMoves(), record.getMoves());
+    assertTrue(record.isWon());
+
+    ReplayEngine engine = new ReplayEngine();
+    assertTrue(engine.replay(record).isGameOver());
+    assertEquals(52, engine.getMovesReplayed());
+  }
+
+  /**
+   * Testing a deal number record is replayed to the same state as the moves
+   * played on a model.
+   */
+  @Test
+  public void dealRecordReplay() throws IOException {
+    List<Move> moves = new ArrayList<>();
+    moves.add(new Move(PileType.CASCADE, 0, PileType.OPEN, 0));
+    moves.add(new Move(PileType.CASCADE, 1, PileType.OPEN, 1));
+    moves.add(new Move(PileType.OPEN, 1, PileType.OPEN, 2));
+    GameRecord record = roundTrip(new GameRecord(1, 8, 4, moves, false));
+    assertEquals(1, record.getDealNumber());
+
+    FreecellModel expected = new FreecellModel();
+    expected.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    for (Move m : moves) {
+      m.applyTo(expected);
+    }
+    FreecellModel replayed = new ReplayEngine().replay(record);
+    assertEquals(expected.getGameState(), replayed.getGameState());
+    assertFalse(replayed.isGameOver());
+  }
+
+  /**
+   * Testing a stream of records is replayed until its end.
+   */
+  @Test
+  public void replayAll() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    GameRecord record = new GameRecord(new FreecellModel().getDeck(), 52, 1,
+        winningMoves(), true);
+    for (int i = 0; i < 10; i++) {
+      record.writeTo(out);
+    }
+    ReplayEngine engine = new ReplayEngine();
+    assertEquals(10, engine.replayAll(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(520, engine.getMovesReplayed());
+  }
+
+  /**
+   * Testing an illegal move in a record is reported with its number.
+   */
+  @Test
+  public void replayIllegalMove() {
+    List<Move> moves = winningMoves();
+    moves.add(1, new Move(PileType.CASCADE, 20, PileType.FOUNDATION, 0));
+    GameRecord record = new GameRecord(new FreecellModel().getDeck(), 52, 4,
+        moves, true);
+    try {
+      new ReplayEngine().replay(record);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("Move 2 failed"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void readNotARecord() throws IOException {
+    GameRecord.readFrom(new DataInputStream(
+        new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5})));
+  }
+
+  /**
+   * Testing a stream cut within its last record fails instead of ending.
+   */
+  @Test(expected = IOException.class)
+  public void replayAllTruncated() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    GameRecord record = new GameRecord(new FreecellModel().getDeck(), 52, 1,
+        winningMoves(), true);
+    record.writeTo(out);
+    record.writeTo(out);
+    byte[] cut = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+    new ReplayEngine().replayAll(new ByteArrayInputStream(cut));
+  }
+
+  /**
+   * Testing a huge move count is rejected before allocating the moves.
+   */
+  @Test(expected = IOException.class)
+  public void readHugeMoveCount() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(GameRecord.MAGIC);
+    out.writeByte(0);
+    out.writeInt(1);
+    out.writeByte(8);
+    out.writeByte(4);
+    out.writeInt(Integer.MAX_VALUE);
+    GameRecord.readFrom(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
@@ -0,0 +1,71 @@
+import org.junit.Test;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.HintEngine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for HintEngine.
+ */
+public class HintEngineTest {
+
+  /**
+   * Testing following every hint wins a deal.
+   */
+  @Test
+  public void followingHintsWins() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    HintEngine engine = new HintEngine(new BlockerHeuristic(), 200_000_000L);
+    for (int i = 0; i < 300 && !model.isGameOver(); i++) {
+      Move m = engine.hint(Position.of(model));
+      m.applyTo(model);
+    }
+    assertTrue(model.isGameOver());
+  }
+
+  /**
+   * Testing a hint is legal and comes back soon after a deadline that has
+   * already passed.
+   */
+  @Test
+  public void expiredDeadline() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(2), 8, 4, false);
+    Position p = Position.of(model);
+    long start = System.nanoTime();
+    Move m = new HintEngine().hint(p, start);
+    assertTrue(System.nanoTime() - start < 50_000_000L);
+    assertTrue(p.isLegal(m));
+  }
+
+  /**
+   * Testing a safe move is hinted first and no hint is given in a won game.
+   */
+  @Test
+  public void safeMoveAndGameOver() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    HintEngine engine = new HintEngine();
+    for (int i = 0; i < 52; i++) {
+      Move m = engine.hint(Position.of(model));
+      assertEquals(PileType.FOUNDATION, m.getDestination());
+      m.applyTo(model);
+    }
+    assertTrue(model.isGameOver());
+    assertNull(engine.hint(Position.of(model)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongBudget() {
+    new HintEngine(new BlockerHeuristic(), 0);
+  }
+}
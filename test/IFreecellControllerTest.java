@@ -95,6 +95,10 @@ public class IFreecellControllerTest {
       testMutateReadableBeforePlayGame
       testMutateAppendableBeforePlayGame
 
+  Hint:
+      testHintLowerCase
+      testHintUpperCaseKeepsPartialInput
+
   Helper method:
       createSortedDeck
       stringToValue
@@ -1234,6 +1238,39 @@ public class IFreecellControllerTest {
     assertEquals(expected.toString(), modelDefault.getGameState() + "\n");
   }
 
+  /**
+   * Tests for the hint command.
+   */
+  // The aces of the sorted deck are safe to move, so the first one is hinted.
+  @Test
+  public void testHintLowerCase() {
+    input.append("h\nQ");
+    IFreecellController newController = new FreecellController(new
+        StringReader(input.toString()), out);
+    newController.playGame(deckSorted, modelDefault, 52, 52, false);
+    expected.append(testerInitialState);
+    expected.append("Hint: C1 1 F1\n");
+    expected.append("Game quit prematurely.\n");
+
+    assertEquals(expected.toString(), out.toString());
+  }
+
+  // A hint between the inputs of a move does not lose the inputs before it.
+  @Test
+  public void testHintUpperCaseKeepsPartialInput() {
+    input.append("C1 H 1 O1\nQ");
+    IFreecellController newController = new FreecellController(new
+        StringReader(input.toString()), out);
+    newController.playGame(deckSorted, modelDefault, 52, 52, false);
+    expected.append(testerInitialState);
+    expected.append("Hint: C1 1 F1\n");
+    moveTestHelper(modelTester, expected, PileType.CASCADE, 1, 1, PileType
+        .OPEN, 1);
+    expected.append("Game quit prematurely.\n");
+
+    assertEquals(expected.toString(), out.toString());
+  }
+
   // And one more: If the implementation of controller is generic, what about
   // creating a FreecellController<Integer>? What to expect?
 
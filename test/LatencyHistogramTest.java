@@ -0,0 +1,128 @@
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import freecell.controller.FreecellController;
+import freecell.metrics.LatencyDumper;
+import freecell.metrics.LatencyHistogram;
+import freecell.metrics.Metrics;
+import freecell.model.FreecellModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for LatencyHistogram, LatencyDumper and the latencies recorded by the
+ * controller.
+ */
+public class LatencyHistogramTest {
+
+  /**
+   * Testing percentiles are within the precision of the buckets.
+   */
+  @Test
+  public void percentiles() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (long v = 1; v <= 100_000; v++) {
+      h.record(v * 1000);
+    }
+    assertEquals(100_000, h.getCount());
+    assertEquals(50_000_000, h.getValueAtPercentile(50), 50_000_000 * 0.016);
+    assertEquals(99_000_000, h.getValueAtPercentile(99), 99_000_000 * 0.016);
+    assertEquals(99_900_000, h.getValueAtPercentile(99.9),
+        99_900_000 * 0.016);
+    assertTrue(h.getMax() >= 100_000_000);
+    assertTrue(h.getMax() <= 100_000_000 * 1.016);
+  }
+
+  /**
+   * Testing small values are exact, and negative and huge values are kept.
+   */
+  @Test
+  public void smallAndExtremeValues() {
+    LatencyHistogram h = new LatencyHistogram();
+    h.record(5);
+    h.record(127);
+    assertEquals(5, h.getValueAtPercentile(50));
+    assertEquals(127, h.getMax());
+    h.record(-1);
+    h.record(Long.MAX_VALUE);
+    assertEquals(4, h.getCount());
+    assertEquals(0, h.getValueAtPercentile(0));
+    assertTrue(h.getMax() > 1L << 41);
+  }
+
+  /**
+   * Testing snapshots and intervals.
+   */
+  @Test
+  public void snapshotAndSince() {
+    LatencyHistogram h = new LatencyHistogram();
+    h.record(1000);
+    LatencyHistogram before = h.snapshot();
+    h.record(2000);
+    h.record(3000);
+    assertEquals(1, before.getCount());
+    assertEquals(2, h.since(before).getCount());
+    before.add(h);
+    assertEquals(4, before.getCount());
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getValueAtPercentile(99));
+  }
+
+  /**
+   * Testing the dumper writes the interval and total percentiles.
+   */
+  @Test
+  public void dumper() {
+    LatencyHistogram h = new LatencyHistogram();
+    StringBuffer out = new StringBuffer();
+    try (LatencyDumper dumper = new LatencyDumper(h, 60_000, out)) {
+      h.record(1000);
+      dumper.dump();
+      h.record(2000);
+      dumper.dump();
+    }
+    String[] lines = out.toString().split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].contains("interval count=1"));
+    assertTrue(lines[1].contains("interval count=1"));
+    assertTrue(lines[1].contains("total count=2"));
+  }
+
+  /**
+   * Testing the controller records one latency per move command, valid or
+   * not, in its session and globally.
+   */
+  @Test
+  public void controllerRecordsMoves() {
+    Metrics metrics = Metrics.global();
+    metrics.setEnabled(true);
+    try {
+      metrics.reset();
+      FreecellModel model = new FreecellModel();
+      FreecellController controller = new FreecellController(
+          new StringReader("C1 13 O1 C2 13 O1 h q"), new StringBuffer());
+      controller.playGame(model.getDeck(), model, 4, 1, false);
+      assertEquals(2, controller.getSessionLatency().getCount());
+      assertEquals(2, metrics.getMoveLatency().getCount());
+      assertTrue(metrics.getMoveLatencyP99Nanos() > 0);
+    } finally {
+      metrics.setEnabled(false);
+    }
+  }
+
+  /**
+   * Testing the controller records nothing while metrics are off.
+   */
+  @Test
+  public void controllerSkipsMovesWhenOff() {
+    Metrics.global().setEnabled(false);
+    FreecellModel model = new FreecellModel();
+    FreecellController controller = new FreecellController(
+        new StringReader("C1 13 O1 q"), new StringBuffer());
+    controller.playGame(model.getDeck(), model, 4, 1, false);
+    assertEquals(0, controller.getSessionLatency().getCount());
+  }
+}
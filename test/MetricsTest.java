@@ -0,0 +1,79 @@
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import freecell.controller.FreecellController;
+import freecell.metrics.Metrics;
+import freecell.model.FreecellModel;
+import freecell.model.PileType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for Metrics and the instrumentation of the model and controller.
+ */
+public class MetricsTest {
+
+  /**
+   * Testing moves, refused moves, renders and games are counted when on.
+   */
+  @Test
+  public void countsWhenOn() {
+    Metrics metrics = Metrics.global();
+    metrics.setEnabled(true);
+    try {
+      metrics.reset();
+      StringBuffer out = new StringBuffer();
+      FreecellModel model = new FreecellModel();
+      new FreecellController(new StringReader("C1 13 O1 C2 13 O1 q"), out)
+          .playGame(model.getDeck(), model, 4, 1, false);
+      assertEquals(2, metrics.getMoves());
+      assertEquals(1, metrics.getIllegalMoves());
+      assertEquals(0.5, metrics.getIllegalMoveRatio(), 0);
+      assertEquals(1, metrics.getGamesStarted());
+      assertEquals(1, metrics.getGamesPlayed());
+      assertEquals(0, metrics.getGamesWon());
+      assertEquals(2, metrics.getRenders());
+      assertTrue(metrics.getMeanRenderNanos() > 0);
+      assertTrue(metrics.getMaxRenderNanos() > 0);
+      assertTrue(metrics.getMovesPerSecond() > 0);
+    } finally {
+      metrics.setEnabled(false);
+    }
+  }
+
+  /**
+   * Testing nothing is counted when off.
+   */
+  @Test
+  public void silentWhenOff() {
+    Metrics metrics = Metrics.global();
+    metrics.setEnabled(false);
+    metrics.reset();
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    model.move(PileType.CASCADE, 0, 0, PileType.FOUNDATION, 0);
+    model.getGameState();
+    assertEquals(0, metrics.getMoves());
+    assertEquals(0, metrics.getGamesStarted());
+    assertEquals(0, metrics.getRenders());
+  }
+
+  /**
+   * Testing the metrics can be read and switched through JMX.
+   */
+  @Test
+  public void exportedThroughJmx() throws Exception {
+    ObjectName name = Metrics.register();
+    assertEquals(name, Metrics.register());
+    Metrics.global().reset();
+    assertEquals(0L, ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(name, "Moves"));
+    assertEquals(false, ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(name, "Enabled"));
+  }
+}
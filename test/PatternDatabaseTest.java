@@ -0,0 +1,163 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import freecell.model.Card;
+import freecell.model.CardCodes;
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.PatternDatabase;
+import freecell.solver.PatternDatabaseHeuristic;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for PatternDatabase and PatternDatabaseHeuristic.
+ */
+public class PatternDatabaseTest {
+
+  private static PatternDatabase database;
+
+  /**
+   * Build the database once for all tests.
+   */
+  private static synchronized PatternDatabase database() {
+    if (database == null) {
+      database = PatternDatabase.build(2);
+    }
+    return database;
+  }
+
+  /**
+   * A deal in 26 cascades of two cards where the two of hearts lies on the
+   * ace of spades and the two of spades lies on the ace of hearts. Every
+   * other cascade has a higher card under a lower card.
+   */
+  private Position crossed() {
+    List<Integer> rest = new ArrayList<>();
+    for (int value = 13; value >= 1; value--) {
+      for (int suit = 0; suit < 4; suit++) {
+        int code = suit * 13 + value - 1;
+        if (code != 0 && code != 1 && code != 39 && code != 40) {
+          rest.add(code);
+        }
+      }
+    }
+    int[] codes = new int[52];
+    codes[0] = 39;
+    codes[1] = 0;
+    codes[26] = 1;
+    codes[27] = 40;
+    for (int i = 2; i < 26; i++) {
+      codes[i] = rest.get(i - 2);
+      codes[i + 26] = rest.get(i + 22);
+    }
+    List<Card> deck = new ArrayList<>();
+    for (int code : codes) {
+      deck.add(CardCodes.fromCode(code));
+    }
+    FreecellModel model = new FreecellModel();
+    model.startGame(deck, 26, 4, false);
+    return Position.of(model);
+  }
+
+  /**
+   * Testing the cards that block each other across cascades cost one more
+   * move than the blocker heuristic counts.
+   */
+  @Test
+  public void crossedCardsCostMore() {
+    Position p = crossed();
+    assertEquals(52, new BlockerHeuristic().estimate(p));
+    assertEquals(53, new PatternDatabaseHeuristic(database()).estimate(p));
+  }
+
+  /**
+   * Testing the heuristic is never below the blocker heuristic, and is exact
+   * for a won game.
+   */
+  @Test
+  public void neverBelowBlocker() {
+    PatternDatabaseHeuristic pdb = new PatternDatabaseHeuristic(database());
+    BlockerHeuristic blocker = new BlockerHeuristic();
+    for (int d = 1; d <= 20; d++) {
+      Position p = Position.of(deal(d));
+      assertTrue(pdb.estimate(p) >= blocker.estimate(p));
+    }
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    Position p = Position.of(model);
+    assertEquals(52, pdb.estimate(p));
+  }
+
+  /**
+   * Testing a database written to a file and mapped back gives the same
+   * costs.
+   */
+  @Test
+  public void writeAndLoad() throws IOException {
+    File file = File.createTempFile("freecell", ".pdb");
+    try {
+      database().write(file.toPath());
+      assertEquals(12 + 5L * database().size(), file.length());
+      PatternDatabase loaded = PatternDatabase.load(file.toPath());
+      assertEquals(2, loaded.getCardsPerSuit());
+      assertEquals(database().size(), loaded.size());
+      for (int d = 1; d <= 10; d++) {
+        Position p = Position.of(deal(d));
+        assertEquals(database().cost(p), loaded.cost(p));
+      }
+      assertEquals(53, new PatternDatabaseHeuristic(loaded).estimate(crossed()));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void loadWrongFile() throws IOException {
+    File file = File.createTempFile("freecell", ".pdb");
+    try {
+      PatternDatabase.load(file.toPath());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Testing the solver solves deals with the heuristic.
+   */
+  @Test
+  public void solvesDeals() {
+    BestFirstSolver solver = new BestFirstSolver(
+        new PatternDatabaseHeuristic(database()), 3, 1_000_000);
+    for (int d = 1; d <= 5; d++) {
+      FreecellModel model = deal(d);
+      SolveResult result = solver.solve(Position.of(model));
+      assertTrue(result.isSolved());
+      for (Move m : result.getMoves()) {
+        m.applyTo(model);
+      }
+      assertTrue(model.isGameOver());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongCardsPerSuit() {
+    PatternDatabase.build(3);
+  }
+
+  private FreecellModel deal(int dealNumber) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(dealNumber), 8, 4, false);
+    return model;
+  }
+}
@@ -0,0 +1,89 @@
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.solver.PlayoutEngine;
+import freecell.solver.PlayoutStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for PlayoutEngine.
+ */
+public class PlayoutEngineTest {
+
+  private Position deal(int dealNumber) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(dealNumber), 8, 4, false);
+    return Position.of(model);
+  }
+
+  /**
+   * Testing greedy playouts of the unshuffled deck in 52 cascades all win in
+   * 52 moves.
+   */
+  @Test
+  public void greedyWinsSortedDeck() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    PlayoutStats stats = new PlayoutEngine().run(Position.of(model), 1000, 1);
+    assertEquals(1000, stats.getPlayouts());
+    assertEquals(1000, stats.getWins());
+    assertEquals(1.0, stats.getWinRate(), 0);
+    assertEquals(52.0, stats.getAverageLength(), 0);
+    assertEquals(52.0, stats.getAverageWinLength(), 0);
+  }
+
+  /**
+   * Testing a position without moves ends every playout at once.
+   */
+  @Test
+  public void stuckPosition() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 4, 1, false);
+    new Move(PileType.CASCADE, 1, PileType.OPEN, 0).applyTo(model);
+    PlayoutStats stats = new PlayoutEngine().run(Position.of(model), 100, 1);
+    assertEquals(0, stats.getWins());
+    assertEquals(0, stats.getMoves());
+  }
+
+  /**
+   * Testing the same seed gives the same statistics with one thread and with
+   * four, and the statistics are consistent.
+   */
+  @Test
+  public void sameSeedSameStats() {
+    Position p = deal(1);
+    PlayoutStats one = new PlayoutEngine(new ForkJoinPool(1), 300, false)
+        .run(p, 2000, 42);
+    PlayoutStats four = new PlayoutEngine(new ForkJoinPool(4), 300, false)
+        .run(p, 2000, 42);
+    assertEquals(one.getWins(), four.getWins());
+    assertEquals(one.getMoves(), four.getMoves());
+    assertTrue(one.getAverageLength() > 0);
+    assertTrue(one.getAverageLength() <= 300);
+    assertTrue(one.getWins() <= one.getPlayouts());
+
+    PlayoutStats other = new PlayoutEngine(new ForkJoinPool(1), 300, false)
+        .run(p, 2000, 43);
+    assertTrue(other.getMoves() != one.getMoves());
+  }
+
+  @Test
+  public void noPlayouts() {
+    PlayoutStats stats = new PlayoutEngine().run(deal(1), 0, 1);
+    assertEquals(0, stats.getPlayouts());
+    assertEquals(0.0, stats.getWinRate(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongMoveLimit() {
+    new PlayoutEngine(ForkJoinPool.commonPool(), 0, true);
+  }
+}
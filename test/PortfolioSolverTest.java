@@ -0,0 +1,191 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.PortfolioSolver;
+import freecell.solver.SolveResult;
+import freecell.solver.Solver;
+import freecell.solver.StrategyStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for PortfolioSolver and StrategyStats.
+ */
+public class PortfolioSolverTest {
+
+  /**
+   * A strategy that returns a fixed result at once.
+   */
+  private static Solver fixed(String name, SolveResult.Status status,
+      List<Move> moves) {
+    return new Solver() {
+      @Override
+      public SolveResult solve(Position start) {
+        return new SolveResult(status, moves, 1, 0);
+      }
+
+      @Override
+      public String getName() {
+        return name;
+      }
+    };
+  }
+
+  /**
+   * Testing a race gives a winning solution and counts races and wins.
+   */
+  @Test
+  public void solvesAndCounts() {
+    try (PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(
+        new BestFirstSolver(new BlockerHeuristic(), 3, 1_000_000),
+        new BestFirstSolver(new BlockerHeuristic(), 10, 1_000_000)))) {
+      for (int number = 1; number <= 5; number++) {
+        Position p = Deals.start(number);
+        SolveResult result = portfolio.solve(p);
+        assertTrue(result.isSolved());
+        for (Move m : result.getMoves()) {
+          p = p.move(m);
+        }
+        assertTrue(p.isGameOver());
+      }
+      long wins = 0;
+      for (StrategyStats s : portfolio.getStats()) {
+        assertEquals(5, s.getRaces());
+        wins += s.getWins();
+      }
+      assertEquals(5, wins);
+    }
+  }
+
+  /**
+   * Testing a solution that does not win never wins a race.
+   */
+  @Test
+  public void invalidSolutionLoses() {
+    Solver liar = fixed("liar", SolveResult.Status.SOLVED,
+        Collections.<Move>emptyList());
+    try (PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(liar,
+        new BestFirstSolver()))) {
+      assertTrue(portfolio.solve(Deals.start(1)).isSolved());
+      assertEquals(0, portfolio.getStats().get(0).getWins());
+      assertEquals(1, portfolio.getStats().get(0).getFailed());
+      assertEquals(1, portfolio.getStats().get(1).getWins());
+    }
+  }
+
+  /**
+   * Testing the losers are interrupted as soon as a strategy wins.
+   */
+  @Test
+  public void losersAreCancelled() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    Solver slow = new Solver() {
+      @Override
+      public SolveResult solve(Position start) {
+        started.countDown();
+        try {
+          Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+        return new SolveResult(SolveResult.Status.GAVE_UP, null, 0, 0);
+      }
+
+      @Override
+      public String getName() {
+        return "slow";
+      }
+    };
+    Solver fast = new Solver() {
+      private final Solver inner = new BestFirstSolver();
+
+      @Override
+      public SolveResult solve(Position start) {
+        try {
+          started.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return inner.solve(start);
+      }
+
+      @Override
+      public String getName() {
+        return inner.getName();
+      }
+    };
+    try (PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(slow,
+        fast))) {
+      long begin = System.nanoTime();
+      assertTrue(portfolio.solve(Deals.start(2)).isSolved());
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      assertTrue(System.nanoTime() - begin < 30_000_000_000L);
+      assertEquals(0, portfolio.getStats().get(0).getWins());
+    }
+  }
+
+  /**
+   * Testing a strategy that throws loses without stopping the race.
+   */
+  @Test
+  public void failedStrategyLoses() {
+    Solver broken = new Solver() {
+      @Override
+      public SolveResult solve(Position start) {
+        throw new IllegalStateException("broken");
+      }
+
+      @Override
+      public String getName() {
+        return "broken";
+      }
+    };
+    try (PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(broken,
+        new BestFirstSolver()))) {
+      assertTrue(portfolio.solve(Deals.start(1)).isSolved());
+      assertEquals(1, portfolio.getStats().get(0).getFailed());
+      assertEquals(1, portfolio.getStats().get(1).getWins());
+    }
+    try (PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(broken,
+        fixed("b", SolveResult.Status.NO_SOLUTION, null)))) {
+      assertEquals(SolveResult.Status.NO_SOLUTION,
+          portfolio.solve(Deals.start(1)).getStatus());
+    }
+  }
+
+  /**
+   * Testing a race without a solution is a proof if any strategy proved it.
+   */
+  @Test
+  public void noSolution() {
+    List<Solver> strategies = new ArrayList<>();
+    strategies.add(fixed("a", SolveResult.Status.GAVE_UP, null));
+    try (PortfolioSolver portfolio = new PortfolioSolver(strategies)) {
+      assertEquals(SolveResult.Status.GAVE_UP,
+          portfolio.solve(Deals.start(1)).getStatus());
+    }
+    strategies.add(fixed("b", SolveResult.Status.NO_SOLUTION, null));
+    try (PortfolioSolver portfolio = new PortfolioSolver(strategies)) {
+      assertEquals(SolveResult.Status.NO_SOLUTION,
+          portfolio.solve(Deals.start(1)).getStatus());
+      assertEquals("portfolio(a,b)", portfolio.getName());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noStrategies() {
+    new PortfolioSolver(Collections.<Solver>emptyList());
+  }
+}
@@ -0,0 +1,113 @@
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.CachingSolver;
+import freecell.solver.PositionCache;
+import freecell.solver.SolveResult;
+import freecell.solver.Solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for PositionCache and CachingSolver.
+ */
+public class PositionCacheTest {
+
+  @Test
+  public void getAndPut() {
+    PositionCache<String> cache = new PositionCache<>(10);
+    assertNull(cache.get(Deals.start(1)));
+    cache.put(Deals.start(1), "one");
+    assertEquals("one", cache.get(Deals.start(1)));
+    cache.put(Deals.start(1), "uno");
+    assertEquals("uno", cache.get(Deals.start(1)));
+    assertNull(cache.get(Deals.start(2)));
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(0.5, cache.getHitRate(), 1e-9);
+  }
+
+  @Test
+  public void staysWithinCapacity() {
+    PositionCache<Integer> cache = new PositionCache<>(20);
+    for (int i = 1; i <= 100; i++) {
+      cache.put(Deals.start(i), i);
+      assertTrue(cache.size() <= 20);
+    }
+    assertEquals(20, cache.size());
+    assertEquals(80, cache.getEvictions());
+  }
+
+  @Test
+  public void keepsPopularPositions() {
+    PositionCache<Integer> cache = new PositionCache<>(20);
+    for (int round = 0; round < 5; round++) {
+      for (int i = 1; i <= 10; i++) {
+        if (cache.get(Deals.start(i)) == null) {
+          cache.put(Deals.start(i), i);
+        }
+      }
+    }
+    for (int i = 100; i < 300; i++) {
+      if (cache.get(Deals.start(i)) == null) {
+        cache.put(Deals.start(i), i);
+      }
+    }
+    for (int i = 1; i <= 10; i++) {
+      assertNotNull(cache.get(Deals.start(i)));
+    }
+  }
+
+  @Test
+  public void solverAskedOncePerPosition() {
+    AtomicInteger searches = new AtomicInteger();
+    Solver counted = new Solver() {
+      private final Solver inner = new BestFirstSolver();
+
+      @Override
+      public SolveResult solve(Position start) {
+        searches.incrementAndGet();
+        return inner.solve(start);
+      }
+
+      @Override
+      public String getName() {
+        return inner.getName();
+      }
+    };
+    CachingSolver solver = new CachingSolver(counted, 10);
+    SolveResult first = solver.solve(Deals.start(1));
+    SolveResult second = solver.solve(Deals.start(1));
+    assertTrue(first.isSolved());
+    assertEquals(first.getMoves(), second.getMoves());
+    assertEquals(0, second.getNodes());
+    assertEquals(1, searches.get());
+    assertEquals(1, solver.getCache().getHits());
+  }
+
+  @Test
+  public void givingUpIsNotCached() {
+    CachingSolver solver = new CachingSolver(new BestFirstSolver(
+        new BlockerHeuristic(), 1, 1), 10);
+    assertEquals(SolveResult.Status.GAVE_UP, solver.solve(Deals.start(1)).getStatus());
+    assertEquals(0, solver.getCache().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void smallCapacity() {
+    new PositionCache<String>(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullValue() {
+    new PositionCache<String>(10).put(Deals.start(1), null);
+  }
+}
@@ -0,0 +1,172 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.model.PositionCodec;
+import freecell.record.PositionReader;
+import freecell.record.PositionWriter;
+import freecell.solver.MoveGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for PositionCodec, PositionWriter and PositionReader.
+ */
+public class PositionCodecTest {
+
+  /**
+   * The positions of random games of a few deals and layouts.
+   */
+  private List<Position> randomPositions() {
+    Random random = new Random(7);
+    MoveGenerator generator = new MoveGenerator(true);
+    List<Position> positions = new ArrayList<>();
+    int[][] layouts = {{8, 4}, {4, 1}, {10, 6}, {52, 1}};
+    for (int deal = 1; deal <= 5; deal++) {
+      for (int[] layout : layouts) {
+        FreecellModel model = new FreecellModel();
+        model.startGame(new DealGenerator().getDeal(deal), layout[0],
+            layout[1], false);
+        Position p = Position.of(model);
+        for (int step = 0; step < 150; step++) {
+          positions.add(p);
+          Move safe = generator.safeMove(p);
+          List<Move> moves = generator.moves(p);
+          if (safe == null && moves.isEmpty()) {
+            break;
+          }
+          p = p.move(safe != null && random.nextBoolean() ? safe
+              : moves.get(random.nextInt(moves.size())));
+        }
+      }
+    }
+    return positions;
+  }
+
+  /**
+   * Testing positions decode to the same position and game state.
+   */
+  @Test
+  public void roundTrip() {
+    for (Position p : randomPositions()) {
+      byte[] bytes = PositionCodec.encode(p);
+      assertTrue(bytes.length <= PositionCodec.MAX_BYTES);
+      Position q = PositionCodec.decode(bytes, 0, bytes.length);
+      assertEquals(p, q);
+      assertEquals(p.toModel().getGameState(), q.toModel().getGameState());
+    }
+  }
+
+  /**
+   * Testing the size of a deal, and that positions shrink as cards go to the
+   * foundations.
+   */
+  @Test
+  public void sizes() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    assertEquals(52, PositionCodec.encode(Position.of(model)).length);
+    byte[] buffer = new byte[PositionCodec.MAX_BYTES + 3];
+    for (Position p : randomPositions()) {
+      if (p.getNumCascades() == 8 && p.getNumOpens() == 4) {
+        int length = PositionCodec.encode(p, buffer, 3);
+        assertTrue(length <= 52);
+        assertTrue(p.getCardsOnFoundations() < 2 || length < 52);
+        assertEquals(p, PositionCodec.decode(buffer, 3, length));
+      }
+    }
+  }
+
+  /**
+   * Testing canonical encodings are equal exactly when canonical hashes are,
+   * and decode to a position with the same canonical hash.
+   */
+  @Test
+  public void canonical() {
+    List<Position> positions = randomPositions();
+    byte[] a = new byte[PositionCodec.MAX_BYTES];
+    byte[] b = new byte[PositionCodec.MAX_BYTES];
+    Random random = new Random(5);
+    for (int k = 0; k < 20_000; k++) {
+      Position p = positions.get(random.nextInt(positions.size()));
+      Position q = random.nextInt(4) == 0 ? p
+          : positions.get(random.nextInt(positions.size()));
+      int aLength = PositionCodec.encodeCanonical(p, a, 0);
+      int bLength = PositionCodec.encodeCanonical(q, b, 0);
+      boolean same = PositionCodec.compare(a, 0, aLength, b, 0, bLength) == 0;
+      assertEquals(p.canonicalHash() == q.canonicalHash(), same);
+      assertEquals(p.canonicalHash(),
+          PositionCodec.decode(a, 0, aLength).canonicalHash());
+    }
+  }
+
+  /**
+   * Testing bytes that are not a position are refused.
+   */
+  @Test
+  public void badInput() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(2), 8, 4, false);
+    byte[] bytes = PositionCodec.encode(Position.of(model));
+    assertBad(bytes, bytes.length - 1);
+    assertBad(new byte[bytes.length], bytes.length);
+    byte[] copy = bytes.clone();
+    // the first card of the first cascade is bits 6 to 11 of byte 7
+    copy[7] ^= 0x3F;
+    assertBad(copy, copy.length);
+  }
+
+  /**
+   * Helper method to check decoding fails.
+   */
+  private void assertBad(byte[] bytes, int length) {
+    try {
+      PositionCodec.decode(bytes, 0, length);
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    throw new AssertionError("Decoded a bad position.");
+  }
+
+  /**
+   * Testing a stream of positions reads back in order.
+   */
+  @Test
+  public void stream() throws IOException {
+    List<Position> positions = randomPositions();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (PositionWriter writer = new PositionWriter(bytes)) {
+      for (Position p : positions) {
+        writer.write(p);
+      }
+      assertEquals(positions.size(), writer.getCount());
+    }
+    try (PositionReader reader = new PositionReader(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      for (Position p : positions) {
+        assertEquals(p, reader.read());
+      }
+      assertNull(reader.read());
+      assertEquals(positions.size(), reader.getCount());
+    }
+  }
+
+  /**
+   * Testing a stream without the magic number is refused.
+   */
+  @Test(expected = IOException.class)
+  public void notAStream() throws IOException {
+    new PositionReader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}));
+  }
+}
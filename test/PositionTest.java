@@ -0,0 +1,202 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for Position.
+ */
+public class PositionTest {
+
+  /**
+   * All moves between piles of a model, legal or not.
+   */
+  private List<Move> allMoves(FreecellModel model) {
+    List<Move> moves = new ArrayList<>();
+    for (PileType s : PileType.values()) {
+      for (int i = 0; i < model.getNumPiles(s); i++) {
+        for (PileType d : PileType.values()) {
+          for (int j = 0; j < model.getNumPiles(d); j++) {
+            moves.add(new Move(s, i, d, j));
+          }
+        }
+      }
+    }
+    return moves;
+  }
+
+  /**
+   * Testing a position agrees with the model on every move of random games.
+   */
+  @Test
+  public void agreesWithModel() {
+    Random random = new Random(42);
+    for (int deal = 1; deal <= 5; deal++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+      Position position = Position.of(model);
+      for (int step = 0; step < 200; step++) {
+        assertEquals(model.getGameState(), position.toString());
+        List<Move> legal = new ArrayList<>();
+        for (Move m : allMoves(model)) {
+          boolean modelLegal = true;
+          try {
+            m.applyTo(model.copy());
+          } catch (IllegalArgumentException e) {
+            modelLegal = false;
+          }
+          assertEquals(m.toString(), modelLegal, position.isLegal(m));
+          if (modelLegal) {
+            legal.add(m);
+          }
+        }
+        if (legal.isEmpty()) {
+          break;
+        }
+        Move m = legal.get(random.nextInt(legal.size()));
+        m.applyTo(model);
+        position = position.move(m);
+        assertEquals(Position.of(model), position);
+      }
+    }
+  }
+
+  /**
+   * Testing a move leaves the original position unchanged.
+   */
+  @Test
+  public void moveIsImmutable() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    Position start = Position.of(model);
+    String before = start.toString();
+    Position next = start.move(new Move(PileType.CASCADE, 0, PileType.OPEN, 0));
+    assertEquals(before, start.toString());
+    assertEquals(-1, start.getOpenCard(0));
+    assertEquals(6, next.getCascadeSize(0));
+    assertEquals(7, start.getCascadeSize(0));
+    assertNotEquals(start, next);
+  }
+
+  /**
+   * Testing equal positions reached by different moves have the same hash.
+   */
+  @Test
+  public void equalityAndHash() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    Position start = Position.of(model);
+    Position a = start.move(new Move(PileType.CASCADE, 0, PileType.OPEN, 0))
+        .move(new Move(PileType.CASCADE, 1, PileType.OPEN, 1));
+    Position b = start.move(new Move(PileType.CASCADE, 1, PileType.OPEN, 1))
+        .move(new Move(PileType.CASCADE, 0, PileType.OPEN, 0));
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    Set<Position> set = new HashSet<>();
+    set.add(a);
+    assertTrue(set.contains(b));
+    assertFalse(set.contains(start));
+  }
+
+  /**
+   * Testing a won game and moves off the foundation.
+   */
+  @Test
+  public void gameOverAndFoundationMoves() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    Position position = Position.of(model);
+    for (int j = 0; j < 4; j++) {
+      for (int i = 0; i < 13; i++) {
+        assertFalse(position.isGameOver());
+        position = position.move(new Move(PileType.CASCADE, i + 13 * j,
+            PileType.FOUNDATION, j));
+      }
+    }
+    assertTrue(position.isGameOver());
+    assertEquals(52, position.getCardsOnFoundations());
+    assertTrue(position.toModel().isGameOver());
+
+    Position back = position.move(new Move(PileType.FOUNDATION, 2,
+        PileType.OPEN, 0));
+    assertEquals(12, back.getPileSize(PileType.FOUNDATION, 2));
+    assertEquals(51, back.getCardsOnFoundations());
+    assertEquals(Position.of(back.toModel()), back);
+  }
+
+  /**
+   * Testing every legal move of random games can be taken back, giving the
+   * position before it.
+   */
+  @Test
+  public void takeBack() {
+    Random random = new Random(11);
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(3), 8, 4, false);
+    Position position = Position.of(model);
+    for (int step = 0; step < 100; step++) {
+      List<Move> legal = new ArrayList<>();
+      for (Move m : allMoves(model)) {
+        if (position.isLegal(m)) {
+          Position next = position.move(m);
+          assertTrue(m.toString(), next.canTakeBack(m));
+          assertEquals(position, next.takeBack(m));
+          legal.add(m);
+        }
+      }
+      if (legal.isEmpty()) {
+        break;
+      }
+      position = position.move(legal.get(random.nextInt(legal.size())));
+    }
+    assertFalse(position.canTakeBack(new Move(PileType.CASCADE, 0,
+        PileType.CASCADE, 0)));
+  }
+
+  /**
+   * Testing the won position and what can be taken back from it.
+   */
+  @Test
+  public void won() {
+    Position won = Position.won(4, 8);
+    assertTrue(won.isGameOver());
+    assertEquals(52, won.getCardsOnFoundations());
+    assertTrue(won.canTakeBack(new Move(PileType.CASCADE, 3,
+        PileType.FOUNDATION, 0)));
+    assertTrue(won.canTakeBack(new Move(PileType.OPEN, 0,
+        PileType.FOUNDATION, 0)));
+    Position before = won.takeBack(new Move(PileType.OPEN, 0,
+        PileType.FOUNDATION, 1));
+    assertFalse(before.canTakeBack(new Move(PileType.OPEN, 0,
+        PileType.FOUNDATION, 2)));
+    assertFalse(before.canTakeBack(new Move(PileType.CASCADE, 0,
+        PileType.OPEN, 1)));
+    assertEquals(51, before.getCardsOnFoundations());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void illegalMove() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    Position.of(model).move(new Move(PileType.CASCADE, 1, PileType.FOUNDATION, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void notBegun() {
+    Position.of(new FreecellModel());
+  }
+}
@@ -0,0 +1,115 @@
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.rating.DealRating;
+import freecell.rating.RatingIndex;
+import freecell.rating.RatingPipeline;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for RatingPipeline, RatingIndex and DealRating.
+ */
+public class RatingPipelineTest {
+
+  private RatingPipeline pipeline(int threads) {
+    return new RatingPipeline(new ForkJoinPool(threads), new BestFirstSolver(),
+        300, 3);
+  }
+
+  /**
+   * Testing an index written by the pipeline gives back the rating of every
+   * deal.
+   */
+  @Test
+  public void writeAndLookUp() throws IOException {
+    RatingPipeline pipeline = pipeline(2);
+    File file = File.createTempFile("freecell", ".idx");
+    try {
+      try (OutputStream out = new FileOutputStream(file)) {
+        pipeline.rate(5, 8, out);
+      }
+      assertEquals(16 + 8 * DealRating.BYTES, file.length());
+      RatingIndex index = RatingIndex.load(file.toPath());
+      assertEquals(5, index.getFirstDeal());
+      assertEquals(8, index.getNumDeals());
+      assertFalse(index.contains(4));
+      assertFalse(index.contains(13));
+      for (int d = 5; d < 13; d++) {
+        DealRating expected = pipeline.rate(d);
+        DealRating actual = index.get(d);
+        assertEquals(d, actual.getDealNumber());
+        assertEquals(SolveResult.Status.SOLVED, actual.getStatus());
+        assertEquals(expected.getNodes(), actual.getNodes());
+        assertEquals(expected.getSolutionLength(), actual.getSolutionLength());
+        assertEquals(expected.getWinRate(), actual.getWinRate(), 0);
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getScore(), index.getScore(d));
+        assertTrue(actual.getScore() >= 0 && actual.getScore() <= 1000);
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Testing the index does not depend on the number of threads.
+   */
+  @Test
+  public void sameIndexWithMoreThreads() throws IOException {
+    ByteArrayOutputStream one = new ByteArrayOutputStream();
+    pipeline(1).rate(1, 5, one);
+    ByteArrayOutputStream four = new ByteArrayOutputStream();
+    pipeline(4).rate(1, 5, four);
+    assertTrue(Arrays.equals(one.toByteArray(), four.toByteArray()));
+  }
+
+  /**
+   * Testing unsolved deals get the highest score and the score grows with
+   * effort.
+   */
+  @Test
+  public void score() {
+    assertEquals(1000, new DealRating(1, SolveResult.Status.GAVE_UP, 10, 0,
+        0.5).getScore());
+    DealRating easy = new DealRating(1, SolveResult.Status.SOLVED, 100, 80,
+        0.2);
+    DealRating hard = new DealRating(2, SolveResult.Status.SOLVED, 100_000,
+        120, 0.001);
+    assertTrue(easy.getScore() < hard.getScore());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void lookUpMissingDeal() throws IOException {
+    File file = File.createTempFile("freecell", ".idx");
+    try {
+      try (OutputStream out = new FileOutputStream(file)) {
+        pipeline(1).rate(1, 1, out);
+      }
+      RatingIndex.load(file.toPath()).get(2);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void loadWrongFile() throws IOException {
+    File file = File.createTempFile("freecell", ".idx");
+    try {
+      RatingIndex.load(file.toPath());
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,164 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import freecell.controller.CapturedSession;
+import freecell.controller.FreecellController;
+import freecell.controller.ReplayReport;
+import freecell.controller.SessionCapture;
+import freecell.controller.SessionReplay;
+import freecell.model.Card;
+import freecell.model.CardCodes;
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.FreecellOperations;
+import freecell.model.PileType;
+import freecell.solver.HintEngine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for SessionCapture, CapturedSession and SessionReplay.
+ */
+public class SessionReplayTest {
+
+  /**
+   * Helper method to play a game with a capture.
+   */
+  private FreecellModel play(SessionCapture capture, String input,
+      boolean shuffle) {
+    FreecellModel model = new FreecellModel();
+    new FreecellController(new StringReader(input), new StringBuilder(),
+        new HintEngine(), null, capture).playGame(new DealGenerator()
+        .getDeal(5), model, 8, 4, shuffle);
+    return model;
+  }
+
+  @Test
+  public void captureAndRead() throws IOException {
+    StringWriter out = new StringWriter();
+    SessionCapture capture = new SessionCapture(out);
+    FreecellModel first = play(capture, "C1 7 O1\nh\nq\n", false);
+    FreecellModel second = play(capture, "C2 7 O2", true);
+
+    List<CapturedSession> sessions = SessionCapture.read(new StringReader(
+        out.toString()));
+    assertEquals(2, sessions.size());
+    assertEquals(Arrays.asList("C1", "7", "O1", "h", "q"),
+        sessions.get(0).getTokens());
+    assertEquals(Arrays.asList("C2", "7", "O2"), sessions.get(1).getTokens());
+    assertEquals(8, sessions.get(0).getNumCascades());
+    assertEquals(4, sessions.get(0).getNumOpens());
+    assertEquals(new DealGenerator().getDeal(5), sessions.get(0).getDeck());
+    assertTrue(sessions.get(0).getStartNanos()
+        <= sessions.get(1).getStartNanos());
+    assertTrue(sessions.get(0).getOffsetNanos(0)
+        <= sessions.get(0).getOffsetNanos(4));
+    assertTrue(sessions.get(0).getOffsetNanos(4)
+        <= sessions.get(0).getEndNanos());
+    assertTrue(out.toString().endsWith("\nE 2 " + sessions.get(1)
+        .getEndNanos() + "\n"));
+
+    FreecellModel dealt = new FreecellModel();
+    dealt.startGame(sessions.get(1).getDeck(), 8, 4, false);
+    dealt.move(PileType.CASCADE, 1, 6,
+        PileType.OPEN, 1);
+    assertEquals(second.getGameState(), dealt.getGameState());
+    assertTrue(first.getGameState().length() > 0);
+  }
+
+  @Test
+  public void replayAtFullSpeed() throws IOException {
+    StringWriter out = new StringWriter();
+    SessionCapture capture = new SessionCapture(out);
+    play(capture, "C1 7 O1\nC2 7 O2\n", false);
+    play(capture, "C3 7 O3\nq\n", false);
+    List<CapturedSession> sessions = SessionCapture.read(new StringReader(
+        out.toString()));
+    ReplayReport report = new SessionReplay(false, 2, new HintEngine())
+        .replay(sessions);
+    assertEquals(2, report.getSessions());
+    assertEquals(10, report.getTokens());
+    assertEquals(10, report.getLatency().getCount());
+  }
+
+  @Test
+  public void replayAtOriginalPace() throws IOException {
+    StringBuilder codes = new StringBuilder();
+    List<Card> deck = new DealGenerator().getDeal(1);
+    for (int i = 0; i < deck.size(); i++) {
+      codes.append(i == 0 ? "" : ",").append(CardCodes.toCode(deck.get(i)));
+    }
+    List<CapturedSession> sessions = SessionCapture.read(new StringReader(
+        "FCCAP1\nS 1 0 8 4 " + codes + "\nT 1 100000000 q\n"));
+    ReplayReport paced = new SessionReplay(true, 1, new HintEngine())
+        .replay(sessions);
+    assertTrue(paced.getElapsedNanos() >= 100_000_000L);
+    assertEquals(1, paced.getTokens());
+  }
+
+  /**
+   * Testing a shuffled game of a model whose cascades cannot be read is not
+   * captured, and an unshuffled one is captured from its deck.
+   */
+  @Test
+  public void otherModel() throws IOException {
+    StringWriter out = new StringWriter();
+    SessionCapture capture = new SessionCapture(out);
+    for (boolean shuffle : new boolean[] {true, false}) {
+      FreecellModel inner = new FreecellModel();
+      FreecellOperations<Card> model = new FreecellOperations<Card>() {
+        @Override
+        public List<Card> getDeck() {
+          return inner.getDeck();
+        }
+
+        @Override
+        public void startGame(List<Card> deck, int numCascadePiles,
+            int numOpenPiles, boolean shuffle) {
+          inner.startGame(deck, numCascadePiles, numOpenPiles, shuffle);
+        }
+
+        @Override
+        public void move(PileType source, int pileNumber, int cardIndex,
+            PileType destination, int destPileNumber) {
+          inner.move(source, pileNumber, cardIndex, destination,
+              destPileNumber);
+        }
+
+        @Override
+        public boolean isGameOver() {
+          return inner.isGameOver();
+        }
+
+        @Override
+        public String getGameState() {
+          return inner.getGameState();
+        }
+      };
+      new FreecellController(new StringReader("q"), new StringBuilder(),
+          new HintEngine(), null, capture).playGame(new DealGenerator()
+          .getDeal(5), model, 8, 4, shuffle);
+    }
+    List<CapturedSession> sessions = SessionCapture.read(new StringReader(
+        out.toString()));
+    assertEquals(1, sessions.size());
+    assertEquals(new DealGenerator().getDeal(5), sessions.get(0).getDeck());
+    assertEquals(Arrays.asList("q"), sessions.get(0).getTokens());
+  }
+
+  @Test(expected = IOException.class)
+  public void notACapture() throws IOException {
+    SessionCapture.read(new StringReader("FCR1\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void wrongLine() throws IOException {
+    SessionCapture.read(new StringReader("FCCAP1\nT 1 5 q\n"));
+  }
+}
@@ -0,0 +1,109 @@
+import org.junit.Test;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.FreecellSnapshot;
+import freecell.model.PileType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for snapshot, restore and copy of FreecellModel.
+ */
+public class SnapshotTest {
+
+  /**
+   * Start a model with deal 1.
+   */
+  private FreecellModel dealOne() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(1), 8, 4, false);
+    return model;
+  }
+
+  /**
+   * Testing restore brings back the position of a snapshot after moves.
+   */
+  @Test
+  public void restoreAfterMoves() {
+    FreecellModel model = dealOne();
+    String before = model.getGameState();
+    FreecellSnapshot snapshot = model.snapshot();
+
+    model.move(PileType.CASCADE, 0, 6, PileType.OPEN, 0);
+    model.move(PileType.CASCADE, 1, 6, PileType.OPEN, 1);
+    assertNotEquals(before, model.getGameState());
+
+    model.restore(snapshot);
+    assertEquals(before, model.getGameState());
+    assertEquals(7, model.getPileSize(PileType.CASCADE, 0));
+    assertEquals(0, model.getPileSize(PileType.OPEN, 0));
+
+    // the snapshot can be restored more than once
+    model.move(PileType.CASCADE, 0, 6, PileType.OPEN, 3);
+    model.restore(snapshot);
+    assertEquals(before, model.getGameState());
+  }
+
+  /**
+   * Testing a copy does not change with the original model.
+   */
+  @Test
+  public void copyIsIndependent() {
+    FreecellModel model = dealOne();
+    FreecellModel copy = model.copy();
+    assertEquals(model.getGameState(), copy.getGameState());
+
+    model.move(PileType.CASCADE, 0, 6, PileType.OPEN, 0);
+    assertEquals(0, copy.getPileSize(PileType.OPEN, 0));
+    copy.move(PileType.CASCADE, 2, 6, PileType.OPEN, 2);
+    assertEquals(0, model.getPileSize(PileType.OPEN, 2));
+  }
+
+  /**
+   * Testing a snapshot can be restored into a model with different piles or a
+   * model that has not begun.
+   */
+  @Test
+  public void restoreIntoOtherModel() {
+    FreecellModel model = dealOne();
+    FreecellModel other = new FreecellModel();
+    other.startGame(other.getDeck(), 52, 1, false);
+    other.restore(model.snapshot());
+    assertEquals(model.getGameState(), other.getGameState());
+
+    FreecellModel notBegun = new FreecellModel();
+    FreecellSnapshot empty = notBegun.snapshot();
+    assertFalse(empty.hasBegun());
+    other.restore(empty);
+    assertEquals("", other.getGameState());
+    assertFalse(other.isGameOver());
+
+    notBegun.restore(model.snapshot());
+    assertTrue(notBegun.snapshot().hasBegun());
+    assertEquals(model.getGameState(), notBegun.getGameState());
+  }
+
+  /**
+   * Testing a won position is kept by a copy.
+   */
+  @Test
+  public void copyGameOver() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    for (int j = 0; j < 4; j++) {
+      for (int i = 0; i < 13; i++) {
+        model.move(PileType.CASCADE, i + 13 * j, 0, PileType.FOUNDATION, j);
+      }
+    }
+    assertTrue(model.copy().isGameOver());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void restoreNull() {
+    new FreecellModel().restore(null);
+  }
+}
@@ -0,0 +1,101 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.ParallelSolver;
+import freecell.solver.SolutionShortener;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for SolutionShortener.
+ */
+public class SolutionShortenerTest {
+
+  /**
+   * The unshuffled deck in 52 cascades, won by moving every cascade to a
+   * foundation in order.
+   */
+  private Position sorted() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 2, false);
+    return Position.of(model);
+  }
+
+  private List<Move> direct() {
+    List<Move> moves = new ArrayList<>();
+    for (int i = 0; i < 52; i++) {
+      moves.add(new Move(PileType.CASCADE, i, PileType.FOUNDATION, i / 13));
+    }
+    return moves;
+  }
+
+  /**
+   * Testing a card going round the open piles and back is removed.
+   */
+  @Test
+  public void removesCycle() {
+    List<Move> moves = direct();
+    moves.add(0, new Move(PileType.CASCADE, 5, PileType.OPEN, 0));
+    moves.add(1, new Move(PileType.OPEN, 0, PileType.OPEN, 1));
+    moves.add(2, new Move(PileType.OPEN, 1, PileType.CASCADE, 5));
+    assertTrue(SolutionShortener.wins(sorted(), moves));
+    List<Move> shorter = new SolutionShortener().shorten(sorted(), moves);
+    assertEquals(direct(), shorter);
+  }
+
+  /**
+   * Testing cards resting in open piles on their way to the foundations are
+   * moved straight there.
+   */
+  @Test
+  public void mergesTransits() {
+    List<Move> moves = new ArrayList<>();
+    for (int i = 0; i < 52; i++) {
+      if (i % 2 == 0) {
+        moves.add(new Move(PileType.CASCADE, i, PileType.OPEN, 1));
+        moves.add(new Move(PileType.OPEN, 1, PileType.FOUNDATION, i / 13));
+      } else {
+        moves.add(new Move(PileType.CASCADE, i, PileType.FOUNDATION, i / 13));
+      }
+    }
+    List<Move> shorter = new SolutionShortener(1, 1).shorten(sorted(), moves);
+    assertEquals(direct(), shorter);
+  }
+
+  /**
+   * Testing a long depth first solution gets shorter and still wins.
+   */
+  @Test
+  public void shortensSolverSolution() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(3), 8, 4, false);
+    Position start = Position.of(model);
+    SolveResult result = new ParallelSolver(new ForkJoinPool(1),
+        new BlockerHeuristic(), 1_000_000).solve(start);
+    assertTrue(result.isSolved());
+    List<Move> shorter = new SolutionShortener().shorten(start,
+        result.getMoves());
+    assertTrue(shorter.size() < result.getMoves().size());
+    assertTrue(SolutionShortener.wins(start, shorter));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void notWinning() {
+    List<Move> moves = direct();
+    moves.remove(51);
+    assertFalse(SolutionShortener.wins(sorted(), moves));
+    new SolutionShortener().shorten(sorted(), moves);
+  }
+}
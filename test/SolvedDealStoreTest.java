@@ -0,0 +1,186 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.record.SolvedDealStore;
+import freecell.record.SolvedDealWriter;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.SolveResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for SolvedDealWriter and SolvedDealStore.
+ */
+public class SolvedDealStoreTest {
+
+  /**
+   * Helper method to make a result with a solution of moves.
+   */
+  private SolveResult solved(Move... moves) {
+    return new SolveResult(SolveResult.Status.SOLVED, Arrays.asList(moves), 1,
+        0);
+  }
+
+  /**
+   * Helper method to delete a store.
+   */
+  private void delete(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Object file : files.toArray()) {
+        Files.delete((Path) file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void writeAndRead() throws IOException {
+    Path directory = Files.createTempDirectory("store-test");
+    Move a = new Move(PileType.CASCADE, 0, PileType.OPEN, 1);
+    Move b = new Move(PileType.OPEN, 1, PileType.FOUNDATION, 3);
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 100, 50, 8,
+        4)) {
+      writer.put(120, solved(a, b));
+      writer.put(101, new SolveResult(SolveResult.Status.NO_SOLUTION, null, 1,
+          0));
+      writer.put(149, solved());
+    }
+    try (SolvedDealStore store = SolvedDealStore.open(directory)) {
+      assertEquals(100, store.getFirstDeal());
+      assertEquals(50, store.getNumDeals());
+      assertEquals(8, store.getNumCascades());
+      assertEquals(4, store.getNumOpens());
+      assertTrue(store.contains(149));
+      assertFalse(store.contains(150));
+      assertEquals(SolveResult.Status.SOLVED, store.getStatus(120));
+      assertEquals(Arrays.asList(a, b), store.getSolution(120));
+      assertEquals(SolveResult.Status.NO_SOLUTION, store.getStatus(101));
+      assertNull(store.getSolution(101));
+      assertEquals(0, store.getSolution(149).size());
+      assertNull(store.getStatus(100));
+      assertNull(store.getSolution(100));
+    }
+    delete(directory);
+  }
+
+  @Test
+  public void reopenAppends() throws IOException {
+    Path directory = Files.createTempDirectory("store-test");
+    Move a = new Move(PileType.CASCADE, 0, PileType.OPEN, 1);
+    Move b = new Move(PileType.CASCADE, 2, PileType.CASCADE, 3);
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 1, 10, 8,
+        4)) {
+      writer.put(1, solved(a));
+      writer.put(2, solved(b));
+    }
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 1, 10, 8,
+        4)) {
+      writer.put(1, solved(b, a));
+    }
+    try (SolvedDealStore store = SolvedDealStore.open(directory)) {
+      assertEquals(Arrays.asList(b, a), store.getSolution(1));
+      assertEquals(Arrays.asList(b), store.getSolution(2));
+    }
+    delete(directory);
+  }
+
+  @Test
+  public void concurrentProducers() throws Exception {
+    Path directory = Files.createTempDirectory("store-test");
+    List<List<Move>> solutions = new ArrayList<>();
+    for (int deal = 1; deal <= 8; deal++) {
+      FreecellModel model = new FreecellModel();
+      model.startGame(new DealGenerator().getDeal(deal), 8, 4, false);
+      solutions.add(new BestFirstSolver().solve(Position.of(model))
+          .getMoves());
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 1, 1000, 8,
+        4)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int first = t;
+        futures.add(executor.submit(() -> {
+          for (int deal = 1 + first; deal <= 1000; deal += 4) {
+            writer.put(deal, new SolveResult(SolveResult.Status.SOLVED,
+                solutions.get(deal % 8), 1, 0));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    try (SolvedDealStore store = SolvedDealStore.open(directory)) {
+      for (int deal = 1; deal <= 1000; deal++) {
+        assertEquals(solutions.get(deal % 8), store.getSolution(deal));
+      }
+    }
+    delete(directory);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void otherRange() throws IOException {
+    Path directory = Files.createTempDirectory("store-test");
+    try {
+      new SolvedDealWriter(directory, 1, 10, 8, 4).close();
+      new SolvedDealWriter(directory, 1, 20, 8, 4).close();
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void gaveUp() throws IOException {
+    Path directory = Files.createTempDirectory("store-test");
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 1, 10, 8,
+        4)) {
+      writer.put(1, new SolveResult(SolveResult.Status.GAVE_UP, null, 1, 0));
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void secondWriter() throws IOException {
+    Path directory = Files.createTempDirectory("store-test");
+    try (SolvedDealWriter writer = new SolvedDealWriter(directory, 1, 10, 8,
+        4)) {
+      writer.flush();
+      new SolvedDealWriter(directory, 1, 10, 8, 4).close();
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void tooManyCascades() throws IOException {
+    Path directory = Files.createTempDirectory("store-test");
+    try {
+      new SolvedDealWriter(directory, 1, 10, 1 << 16, 4).close();
+    } finally {
+      delete(directory);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import freecell.model.DealGenerator;
+import freecell.model.FreecellModel;
+import freecell.model.Move;
+import freecell.model.PileType;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.ParallelSolver;
+import freecell.solver.SolveResult;
+import freecell.solver.Solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for BestFirstSolver and ParallelSolver.
+ */
+public class SolverTest {
+
+  /**
+   * Start a model with a numbered deal.
+   */
+  private FreecellModel deal(int dealNumber) {
+    FreecellModel model = new FreecellModel();
+    model.startGame(new DealGenerator().getDeal(dealNumber), 8, 4, false);
+    return model;
+  }
+
+  /**
+   * Check a solver solves the first deals, replaying each solution on a model.
+   */
+  private void solvesDeals(Solver solver) {
+    for (int d = 1; d <= 5; d++) {
+      FreecellModel model = deal(d);
+      SolveResult result = solver.solve(Position.of(model));
+      assertEquals(SolveResult.Status.SOLVED, result.getStatus());
+      assertTrue(result.getNodes() > 0);
+      for (Move m : result.getMoves()) {
+        m.applyTo(model);
+      }
+      assertTrue(model.isGameOver());
+    }
+  }
+
+  @Test
+  public void bestFirstSolvesDeals() {
+    solvesDeals(new BestFirstSolver());
+  }
+
+  @Test
+  public void parallelSolvesDeals() {
+    solvesDeals(new ParallelSolver(new ForkJoinPool(4), new BlockerHeuristic(),
+        1_000_000));
+  }
+
+  @Test
+  public void singleThreadSolvesDeals() {
+    solvesDeals(new ParallelSolver(new ForkJoinPool(1), new BlockerHeuristic(),
+        1_000_000));
+  }
+
+  /**
+   * Testing a won position is solved with no moves.
+   */
+  @Test
+  public void solveWonPosition() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    for (int j = 0; j < 4; j++) {
+      for (int i = 0; i < 13; i++) {
+        new Move(PileType.CASCADE, i + 13 * j, PileType.FOUNDATION, j).applyTo(model);
+      }
+    }
+    SolveResult result = new ParallelSolver().solve(Position.of(model));
+    assertTrue(result.isSolved());
+    assertEquals(0, result.getMoves().size());
+  }
+
+  /**
+   * Testing the solvers give up at their node limit.
+   */
+  @Test
+  public void giveUpAtLimit() {
+    Position start = Position.of(deal(1));
+    assertEquals(SolveResult.Status.GAVE_UP, new BestFirstSolver(
+        new BlockerHeuristic(), 1, 10).solve(start).getStatus());
+    assertEquals(SolveResult.Status.GAVE_UP, new ParallelSolver(
+        new ForkJoinPool(2), new BlockerHeuristic(), 10).solve(start)
+        .getStatus());
+  }
+
+  /**
+   * Testing the heuristic counts blocked cards once more.
+   */
+  @Test
+  public void blockerHeuristic() {
+    FreecellModel model = new FreecellModel();
+    model.startGame(model.getDeck(), 52, 1, false);
+    assertEquals(52, new BlockerHeuristic().estimate(Position.of(model)));
+
+    // Dealt to 4 cascades, each suit lies in every cascade in ascending order,
+    // so all but the lowest card of a suit in a cascade are blocked.
+    model.startGame(model.getDeck(), 4, 1, false);
+    assertEquals(52 + 4 * 9, new BlockerHeuristic().estimate(Position.of(model)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void solveNull() {
+    new BestFirstSolver().solve(null);
+  }
+}
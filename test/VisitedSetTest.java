@@ -0,0 +1,122 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import freecell.model.Move;
+import freecell.model.Position;
+import freecell.solver.BestFirstSolver;
+import freecell.solver.BlockerHeuristic;
+import freecell.solver.BloomVisitedSet;
+import freecell.solver.ExactVisitedSet;
+import freecell.solver.ParallelSolver;
+import freecell.solver.SolveResult;
+import freecell.solver.VisitedSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ExactVisitedSet, BloomVisitedSet and solvers using them.
+ */
+public class VisitedSetTest {
+
+  /**
+   * Testing an exact set remembers exactly.
+   */
+  @Test
+  public void exact() {
+    VisitedSet set = new ExactVisitedSet();
+    assertTrue(set.add(5));
+    assertFalse(set.add(5));
+    assertTrue(set.contains(5));
+    assertFalse(set.contains(6));
+    assertEquals(1, set.size());
+    assertTrue(set.isExact());
+  }
+
+  /**
+   * Testing a Bloom set never forgets a hash, and wrongly contains about as
+   * many others as estimated.
+   */
+  @Test
+  public void bloomFalsePositives() {
+    int n = 200_000;
+    BloomVisitedSet set = new BloomVisitedSet(8L * n);
+    Random random = new Random(3);
+    long[] added = new long[n];
+    for (int i = 0; i < n; i++) {
+      added[i] = random.nextLong();
+      set.add(added[i]);
+    }
+    for (long hash : added) {
+      assertTrue(set.contains(hash));
+      assertFalse(set.add(hash));
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < n; i++) {
+      falsePositives += set.contains(random.nextLong()) ? 1 : 0;
+    }
+    double rate = (double) falsePositives / n;
+    assertFalse(set.isExact());
+    assertTrue(set.size() > n * 0.99);
+    assertTrue(rate < 0.01);
+    assertEquals(set.getFalsePositiveRate(), rate, 0.003);
+  }
+
+  /**
+   * Testing a Bloom set added to by several threads keeps every hash.
+   */
+  @Test
+  public void bloomConcurrent() {
+    BloomVisitedSet set = new BloomVisitedSet(1 << 20);
+    LongStream.range(0, 100_000).parallel().forEach(i -> set.add(i * 31));
+    for (long i = 0; i < 100_000; i++) {
+      assertTrue(set.contains(i * 31));
+    }
+  }
+
+  /**
+   * Testing bad memory sizes are refused.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void bloomTooSmall() {
+    new BloomVisitedSet(63);
+  }
+
+  /**
+   * Testing solvers with a Bloom set solve deals with valid solutions.
+   */
+  @Test
+  public void solversWithBloom() {
+    for (int number = 1; number <= 3; number++) {
+      Position start = Deals.start(number);
+      SolveResult a = new BestFirstSolver(new BlockerHeuristic(), 3,
+          1_000_000, () -> new BloomVisitedSet(1 << 22)).solve(start);
+      SolveResult b = new ParallelSolver(ForkJoinPool.commonPool(),
+          new BlockerHeuristic(), 1_000_000,
+          () -> new BloomVisitedSet(1 << 22)).solve(start);
+      for (SolveResult r : new SolveResult[] {a, b}) {
+        assertEquals(SolveResult.Status.SOLVED, r.getStatus());
+        Position p = start;
+        for (Move m : r.getMoves()) {
+          p = p.move(m);
+        }
+        assertTrue(p.isGameOver());
+      }
+    }
+  }
+
+  /**
+   * Testing a search that runs out of positions with a full Bloom set gives up
+   * rather than claiming there is no solution.
+   */
+  @Test
+  public void fullBloomGivesUp() {
+    SolveResult r = new BestFirstSolver(new BlockerHeuristic(), 3, 1_000_000,
+        () -> new BloomVisitedSet(64)).solve(Deals.start(1));
+    assertEquals(SolveResult.Status.GAVE_UP, r.getStatus());
+  }
+}